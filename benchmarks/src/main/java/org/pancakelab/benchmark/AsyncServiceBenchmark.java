@@ -0,0 +1,74 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.model.Order;
+import org.pancakelab.service.AsyncPancakeService;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.PANCAKE;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.building;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.room;
+
+/**
+ * 64 clients each running a customer session (create an order, add a pancake, place it, cancel it) against one
+ * {@link PancakeService}: {@code sync} calls it directly, {@code async} goes through an {@link AsyncPancakeService}
+ * and waits for the final stage. The async session only waits for the new order's id, then issues the other three
+ * commands back to back. Reports throughput and the per-session latency distribution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(64)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AsyncServiceBenchmark {
+    @Param({"sync", "async"})
+    String impl;
+
+    PancakeService service;
+    AsyncPancakeService async;
+
+    @Setup(Level.Iteration)
+    public void resetService() {
+        OrderLog.clearLog();
+        service = new PancakeService();
+        if (impl.equals("async")) {
+            async = new AsyncPancakeService.Builder(service).build();
+            async.start();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopPipeline() throws InterruptedException {
+        if (async != null) {
+            async.close();
+            async = null;
+        }
+    }
+
+    @Benchmark
+    public Object session() {
+        if (impl.equals("sync")) {
+            Order order = service.createOrder(building(), room());
+            UUID orderId = order.getId();
+            service.addPancakeToOrder(orderId, PANCAKE);
+            service.placeOrder(orderId);
+            service.cancelOrder(orderId);
+            return order;
+        }
+        // Commands from one caller apply in issue order, so only the id needs a round trip
+        return async.createOrder(building(), room())
+                .thenCompose(order -> {
+                    async.addPancakeToOrder(order.getId(), PANCAKE);
+                    async.placeOrder(order.getId());
+                    return async.cancelOrder(order.getId());
+                })
+                .toCompletableFuture()
+                .join();
+    }
+}
@@ -0,0 +1,79 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.model.Pancake;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.PANCAKE;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.building;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.room;
+
+/**
+ * Per-pancake cost of a group order of {@link #GROUP_SIZE} pancakes, added one call at a time versus in one batch.
+ * Scores are reported per pancake.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BatchOrderBenchmark {
+    static final int GROUP_SIZE = 20;
+    private static final List<Pancake> GROUP = Collections.nCopies(GROUP_SIZE, PANCAKE);
+
+    PancakeService service;
+
+    @Setup(Level.Iteration)
+    public void resetService() {
+        service = new PancakeService();
+        OrderLog.clearLog();
+    }
+
+    // A fresh empty order for every invocation
+    @State(Scope.Thread)
+    public static class EmptyOrder {
+        UUID orderId;
+
+        @Setup(Level.Invocation)
+        public void create(BatchOrderBenchmark benchmark) {
+            orderId = benchmark.service.createOrder(building(), room()).getId();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GROUP_SIZE)
+    public void addOneByOne(EmptyOrder order) {
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            service.addPancakeToOrder(order.orderId, PANCAKE);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GROUP_SIZE)
+    public void addAsBatch(EmptyOrder order) {
+        service.addPancakesToOrder(order.orderId, GROUP);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GROUP_SIZE)
+    public void createAddAndPlaceOneByOne() {
+        UUID orderId = service.createOrder(building(), room()).getId();
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            service.addPancakeToOrder(orderId, PANCAKE);
+        }
+        service.placeOrder(orderId);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GROUP_SIZE)
+    public void createAndPlaceAsBatch() {
+        service.createAndPlaceOrder(building(), room(), GROUP);
+    }
+}
@@ -0,0 +1,127 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.util.Statistics;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the selected suites once per thread count and prints one table with
+ * throughput, sampled latency percentiles and allocation per operation.
+ * <p>
+ * Usage: {@code java -jar benchmarks.jar [regex] [--threads 1,2,4,8,16] [--quick]}
+ */
+public class BenchmarkRunner {
+    private static final int[] DEFAULT_THREADS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) throws RunnerException {
+        String include = "org.pancakelab.benchmark.*";
+        int[] threads = DEFAULT_THREADS;
+        boolean quick = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Arrays.stream(args[++i].split(","))
+                        .mapToInt(Integer::parseInt)
+                        .toArray();
+                case "--quick" -> quick = true;
+                default -> include = args[i];
+            }
+        }
+
+        Map<String, Row> rows = new LinkedHashMap<>();
+        for (int threadCount : threads) {
+            try {
+                for (RunResult result : run(include, threadCount, Mode.Throughput, quick)) {
+                    Row row = rows.computeIfAbsent(key(result, threadCount), k -> new Row(label(result), threadCount));
+                    row.opsPerSecond = result.getPrimaryResult().getScore();
+                    Result<?> alloc = result.getSecondaryResults().get("gc.alloc.rate.norm");
+                    row.bytesPerOp = alloc == null ? Double.NaN : alloc.getScore();
+                }
+                for (RunResult result : run(include, threadCount, Mode.SampleTime, quick)) {
+                    Row row = rows.computeIfAbsent(key(result, threadCount), k -> new Row(label(result), threadCount));
+                    Statistics statistics = result.getPrimaryResult().getStatistics();
+                    row.p50 = statistics.getPercentile(50);
+                    row.p99 = statistics.getPercentile(99);
+                    row.p999 = statistics.getPercentile(99.9);
+                }
+            } catch (RunnerException e) {
+                System.err.println("Run with " + threadCount + " thread(s) failed: " + e.getMessage());
+            }
+        }
+        printReport(rows.values());
+    }
+
+    private static Collection<RunResult> run(String include, int threads, Mode mode, boolean quick) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include)
+                .threads(threads)
+                .mode(mode)
+                .timeUnit(mode == Mode.Throughput ? TimeUnit.SECONDS : TimeUnit.NANOSECONDS)
+                .shouldFailOnError(false);
+        if (mode == Mode.Throughput) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (quick) {
+            options.warmupIterations(1).measurementIterations(2);
+        }
+        return new Runner(options.build()).run();
+    }
+
+    private static String label(RunResult result) {
+        String benchmark = result.getParams().getBenchmark();
+        String label = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+        List<String> params = new ArrayList<>();
+        for (String param : result.getParams().getParamsKeys()) {
+            params.add(param + "=" + result.getParams().getParam(param));
+        }
+        return params.isEmpty() ? label : label + params;
+    }
+
+    private static String key(RunResult result, int threads) {
+        return label(result) + "@" + threads;
+    }
+
+    private static void printReport(Collection<Row> rows) {
+        String format = "%-55s %7s %15s %12s %12s %12s %12s%n";
+        System.out.println();
+        System.out.printf(format, "Benchmark", "Threads", "ops/s", "p50 ns", "p99 ns", "p99.9 ns", "B/op");
+        rows.stream()
+                .sorted(Comparator.comparing((Row row) -> row.benchmark).thenComparingInt(row -> row.threads))
+                .forEach(row -> System.out.printf(format,
+                        row.benchmark,
+                        row.threads,
+                        format(row.opsPerSecond, "%,.0f"),
+                        format(row.p50, "%,.0f"),
+                        format(row.p99, "%,.0f"),
+                        format(row.p999, "%,.0f"),
+                        format(row.bytesPerOp, "%,.1f")));
+    }
+
+    private static String format(double value, String pattern) {
+        return Double.isNaN(value) ? "-" : pattern.formatted(value);
+    }
+
+    private static class Row {
+        private final String benchmark;
+        private final int threads;
+        private double opsPerSecond = Double.NaN;
+        private double p50 = Double.NaN;
+        private double p99 = Double.NaN;
+        private double p999 = Double.NaN;
+        private double bytesPerOp = Double.NaN;
+
+        Row(String benchmark, int threads) {
+            this.benchmark = benchmark;
+            this.threads = threads;
+        }
+    }
+}
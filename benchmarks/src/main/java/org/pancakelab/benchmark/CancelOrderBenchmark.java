@@ -0,0 +1,57 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.model.Order;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancels a freshly placed order sitting behind a backlog of {@code backlog} CREATED orders.
+ * Latency should stay flat across all backlog sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CancelOrderBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    int backlog;
+
+    PancakeService service;
+
+    @Setup(Level.Trial)
+    public void fillBacklog() {
+        service = new PancakeService();
+        for (int i = 0; i < backlog; i++) {
+            placeOrder(service);
+        }
+        OrderLog.clearLog();
+    }
+
+    static UUID placeOrder(PancakeService service) {
+        Order order = service.createOrder(PancakeServiceBenchmark.building(), PancakeServiceBenchmark.room());
+        service.addPancakeToOrder(order.getId(), PancakeServiceBenchmark.PANCAKE);
+        service.placeOrder(order.getId());
+        return order.getId();
+    }
+
+    @State(Scope.Thread)
+    public static class PlacedOrder {
+        UUID orderId;
+
+        @Setup(Level.Invocation)
+        public void place(CancelOrderBenchmark benchmark) {
+            orderId = placeOrder(benchmark.service);
+        }
+    }
+
+    @Benchmark
+    public void cancelPlacedOrder(PlacedOrder placed) {
+        service.cancelOrder(placed.orderId);
+    }
+}
@@ -0,0 +1,79 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.service.OrderEvent;
+import org.pancakelab.service.OrderEventFilter;
+import org.pancakelab.service.OrderEventPublisher;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.PANCAKE;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.building;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.room;
+
+/**
+ * Order path cost with {@code subscribers} room displays attached to an {@link OrderEventPublisher}, each following
+ * one building. Half of them never request anything, the worst case of a stalled display, so their buffers fill and
+ * every further event for them is dropped. The lifecycle cost should not depend on how stalled the displays are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class EventStreamBenchmark {
+    @Param({"0", "16"})
+    int subscribers;
+
+    OrderEventPublisher publisher;
+    PancakeService service;
+
+    @Setup(Level.Iteration)
+    public void resetService() {
+        OrderLog.clearLog();
+        publisher = new OrderEventPublisher();
+        for (int i = 0; i < subscribers; i++) {
+            publisher.subscribe(new Display(i % 2 == 0), OrderEventFilter.building(1 + i * 99 / Math.max(subscribers, 1)));
+        }
+        service = new PancakeService.Builder().addListener(publisher).build();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closePublisher() {
+        System.out.printf("%n  dropped=%d%n", publisher.droppedCount());
+        publisher.close();
+    }
+
+    @Benchmark
+    public int orderLifecycle() {
+        service.createAndPlaceOrder(building(), room(), List.of(PANCAKE));
+        return service.prepareOrders(1) + service.deliverOrders(1);
+    }
+
+    private record Display(boolean stalled) implements Flow.Subscriber<OrderEvent> {
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            if (!stalled) {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(OrderEvent event) {
+            event.status(); // Render the tile
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
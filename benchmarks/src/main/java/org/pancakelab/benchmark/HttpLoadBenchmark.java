@@ -0,0 +1,86 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.http.OrderHttpServer;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.building;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.room;
+
+/**
+ * Load test of {@link OrderHttpServer} on localhost: 32 terminals share one keep-alive HTTP/1.1 client and each walks
+ * through customer sessions, one request per operation: create an order, add a pancake, place it, cancel it. The
+ * throughput score is requests per millisecond; the sample-time run gives the per-request latency percentiles (p99).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(32)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Dsun.net.httpserver.nodelay=true"})
+public class HttpLoadBenchmark {
+    private static final String PANCAKE = "{\"base\":[\"FLOUR\",\"EGG\",\"MILK\"],\"custom\":[\"DARK_CHOCOLATE\"]}";
+
+    OrderHttpServer server;
+    HttpClient client;
+    String baseUri;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        OrderLog.clearLog();
+        server = new OrderHttpServer(new PancakeService(), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUri = "http://localhost:" + server.address().getPort();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.close();
+    }
+
+    // Where one terminal is in its current session
+    @State(Scope.Thread)
+    public static class Session {
+        String orderPath;
+        int step;
+    }
+
+    @Benchmark
+    public int request(Session session) throws IOException, InterruptedException {
+        HttpResponse<String> response = switch (session.step) {
+            case 0 -> post("/orders", "{\"building\":" + building() + ",\"room\":" + room() + "}");
+            case 1 -> post(session.orderPath + "/pancakes", PANCAKE);
+            case 2 -> post(session.orderPath + "/place", "");
+            default -> post(session.orderPath + "/cancel", "");
+        };
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + ": " + response.body());
+        }
+        if (session.step == 0) {
+            String body = response.body();
+            int start = body.indexOf("\"id\":\"") + 6;
+            session.orderPath = "/orders/" + body.substring(start, start + 36);
+        }
+        session.step = (session.step + 1) & 3;
+        return response.body().length();
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,58 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.model.Pancake;
+import org.pancakelab.service.KitchenEngine;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.PANCAKE;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.building;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.room;
+
+/**
+ * Time for a {@link KitchenEngine} to take a backlog of placed orders from CREATED to DELIVERED, per order.
+ * {@code workers} sets both the preparation and the delivery worker count; orders/sec is 1e6 / score.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class KitchenEngineBenchmark {
+    static final int ORDERS = 100_000;
+
+    @Param({"1", "2", "4", "8"})
+    int workers;
+
+    PancakeService service;
+    KitchenEngine engine;
+
+    @Setup(Level.Invocation)
+    public void placeBacklog() {
+        OrderLog.clearLog();
+        service = new PancakeService();
+        List<Pancake> pancakes = List.of(PANCAKE);
+        for (int i = 0; i < ORDERS; i++) {
+            service.createAndPlaceOrder(building(), room(), pancakes);
+        }
+        engine = new KitchenEngine.Builder(service)
+                .preparationWorkers(workers)
+                .deliveryWorkers(workers)
+                .build();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public long drainBacklog() throws InterruptedException {
+        engine.start();
+        if (!engine.drainAndShutdown(1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Kitchen did not drain the backlog in time");
+        }
+        return engine.deliveredCount();
+    }
+}
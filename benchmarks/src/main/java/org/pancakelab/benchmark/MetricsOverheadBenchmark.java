@@ -0,0 +1,65 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.metrics.Histogram;
+import org.pancakelab.metrics.MetricsRegistry;
+import org.pancakelab.model.Order;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.PANCAKE;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.building;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.room;
+
+/**
+ * Cost of instrumentation on one full order lifecycle (create, add a pancake, place, prepare, deliver).
+ * With {@code instrumented} false the service holds no metrics and should match the uninstrumented numbers of
+ * {@link ShardingBenchmark}; true adds five counter increments, ten clock reads and five operation plus four stage
+ * histogram records.
+ * {@code histogramRecord} is the cost of a single histogram record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class MetricsOverheadBenchmark {
+    @Param({"false", "true"})
+    boolean instrumented;
+
+    PancakeService service;
+    Histogram histogram;
+
+    @Setup(Level.Iteration)
+    public void resetService() {
+        OrderLog.clearLog();
+        MetricsRegistry registry = new MetricsRegistry();
+        PancakeService.Builder builder = new PancakeService.Builder();
+        if (instrumented) {
+            builder.metrics(registry);
+        }
+        service = builder.build();
+        histogram = registry.histogram("benchmark_nanos");
+    }
+
+    @Benchmark
+    public int orderLifecycle() {
+        Order order = service.createOrder(building(), room());
+        UUID orderId = order.getId();
+        service.addPancakeToOrder(orderId, PANCAKE);
+        service.placeOrder(orderId);
+        service.prepareOrder();
+        service.deliverOrder();
+        return order.getPancakes().size();
+    }
+
+    @Benchmark
+    public void histogramRecord() {
+        histogram.record(ThreadLocalRandom.current().nextLong(100_000));
+    }
+}
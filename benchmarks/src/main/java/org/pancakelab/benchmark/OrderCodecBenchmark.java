@@ -0,0 +1,114 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.codec.OrderCodec;
+import org.pancakelab.codec.OrderView;
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+import org.pancakelab.model.Pancake;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.PANCAKE;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.building;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.room;
+
+/**
+ * {@link OrderCodec} against {@code toString()}, the only serialized form of an order before it, over {@code ORDERS}
+ * orders of 1 to 4 pancakes. {@code encode*} write every order into one reused buffer, {@code decode} rebuilds
+ * them all and {@code scanByView} reads the building and status of each through one {@link OrderView}. Run with
+ * {@code -prof gc}: encoding and scanning should show about 0 B/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class OrderCodecBenchmark {
+    private static final int ORDERS = 1024;
+    private static final Pancake VEGAN = Pancake.Builder.vegan().addCustomIngredient(Ingredient.HAZELNUT).build();
+
+    Order[] orders;
+    ByteBuffer heap;
+    ByteBuffer direct;
+    ByteBuffer encoded;
+    final OrderView view = new OrderView();
+
+    @Setup
+    public void createOrders() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        orders = new Order[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            orders[i] = new Order(building(), room());
+            for (int p = random.nextInt(1, 5); p > 0; p--) {
+                orders[i].addPancake(random.nextBoolean() ? PANCAKE : VEGAN);
+            }
+            if (random.nextBoolean()) {
+                orders[i].placeOrder();
+            }
+        }
+        heap = ByteBuffer.allocate(ORDERS * 64);
+        direct = ByteBuffer.allocateDirect(ORDERS * 64);
+        encoded = encode(direct).flip();
+        System.out.printf("%n  %d bytes per order encoded, %d as toString() bytes%n",
+                encoded.limit() / ORDERS, toStringBytes() / ORDERS);
+    }
+
+    @Benchmark
+    public int encodeHeap() {
+        return encode(heap).position();
+    }
+
+    @Benchmark
+    public int encodeDirect() {
+        return encode(direct).position();
+    }
+
+    @Benchmark
+    public long encodeToString() {
+        return toStringBytes();
+    }
+
+    @Benchmark
+    public long decode() {
+        ByteBuffer in = encoded.duplicate();
+        long sum = 0;
+        while (in.hasRemaining()) {
+            sum += OrderCodec.readOrder(in).getRoom();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int scanByView() {
+        int placedInLowBuildings = 0;
+        for (int offset = 0; offset < encoded.limit(); offset += view.length()) {
+            view.wrap(encoded, offset);
+            if (view.building() < 50 && view.status() == OrderStatus.CREATED) {
+                placedInLowBuildings++;
+            }
+        }
+        return placedInLowBuildings;
+    }
+
+    private ByteBuffer encode(ByteBuffer buffer) {
+        buffer.clear();
+        for (Order order : orders) {
+            OrderCodec.writeOrder(buffer, order);
+        }
+        return buffer;
+    }
+
+    private long toStringBytes() {
+        long bytes = 0;
+        for (Order order : orders) {
+            bytes += order.toString().getBytes(StandardCharsets.UTF_8).length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,94 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.Pancake;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.PANCAKE;
+
+/**
+ * Wake-up latency of a parked kitchen terminal: the benchmark thread places an order and waits until a terminal
+ * thread blocked in {@code takeNextOrderToPrepare} (or on {@code takeNextOrderToPrepareAsync}) has it.
+ * Each sample covers two thread wake-ups, the terminal's and the benchmark thread's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class OrderHandoffBenchmark {
+    private static final List<Pancake> PANCAKES = List.of(PANCAKE);
+
+    @Param({"BLOCKING", "ASYNC"})
+    String terminal;
+
+    PancakeService service;
+    Thread terminalThread;
+    volatile CompletableFuture<Order> handoff;
+    volatile boolean running;
+
+    @Setup(Level.Iteration)
+    public void startTerminal() {
+        OrderLog.clearLog();
+        service = new PancakeService();
+        running = true;
+        terminalThread = new Thread(this::terminalLoop, "kitchen-terminal");
+        terminalThread.setDaemon(true);
+        terminalThread.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopTerminal() throws InterruptedException {
+        running = false;
+        terminalThread.join();
+    }
+
+    private void terminalLoop() {
+        CompletableFuture<Order> pending = null;
+        try {
+            while (running) {
+                Order order;
+                if ("ASYNC".equals(terminal)) {
+                    if (pending == null) {
+                        pending = service.takeNextOrderToPrepareAsync();
+                    }
+                    try {
+                        order = pending.get(100, TimeUnit.MILLISECONDS);
+                        pending = null;
+                    } catch (TimeoutException e) {
+                        continue; // Still registered, keep waiting on the same future
+                    }
+                } else {
+                    order = service.takeNextOrderToPrepare(100, TimeUnit.MILLISECONDS).orElse(null);
+                }
+                if (order != null) {
+                    handoff.complete(order);
+                    service.deliverOrder();
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+    }
+
+    @Benchmark
+    public Order placeAndAwaitTerminal() {
+        CompletableFuture<Order> next = new CompletableFuture<>();
+        handoff = next;
+        service.createAndPlaceOrder(5, 101, PANCAKES);
+        return next.join();
+    }
+}
@@ -0,0 +1,54 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.TimeOrderedIds;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order id generation, {@code random} for {@link UUID#randomUUID()} as used before and {@code timeOrdered} for
+ * {@link TimeOrderedIds}. {@code nextId} times the generator alone, {@code nextIdOneSequence} the time-ordered
+ * generator with every thread on one sequence as before lanes, and {@code createOrder} the whole call on a service
+ * built with that generator. Run with {@code -t 4} or more to see the generators contend.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class OrderIdBenchmark {
+    @Param({"random", "timeOrdered"})
+    String ids;
+
+    PancakeService service;
+
+    @Setup(Level.Iteration)
+    public void createService() {
+        PancakeService.Builder builder = new PancakeService.Builder();
+        if (ids.equals("random")) {
+            builder.orderIds(UUID::randomUUID);
+        }
+        service = builder.build();
+        OrderLog.clearLog();
+    }
+
+    @Benchmark
+    public UUID nextId() {
+        return ids.equals("random") ? UUID.randomUUID() : TimeOrderedIds.defaultIds().nextUuid();
+    }
+
+    @Benchmark
+    public UUID nextIdOneSequence() {
+        return ids.equals("random") ? UUID.randomUUID() : TimeOrderedIds.toUuid(TimeOrderedIds.defaultIds().nextId());
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        return service.createOrder(PancakeServiceBenchmark.building(), PancakeServiceBenchmark.room());
+    }
+}
@@ -0,0 +1,92 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.journal.FlushPolicy;
+import org.pancakelab.journal.JournalReader;
+import org.pancakelab.journal.OrderJournal;
+import org.pancakelab.model.Order;
+import org.pancakelab.service.OrderEventType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderJournalBenchmark {
+    private static final int SCANNED_EVENTS = 2_000_000;
+
+    @Param({"SEGMENT_ROLL", "INTERVAL"})
+    FlushPolicy.Mode flushMode;
+
+    private Path appendDirectory;
+    private Path scanDirectory;
+    private OrderJournal journal;
+    private Order order;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        order = new Order(5, 101);
+        order.addPancake(PancakeServiceBenchmark.PANCAKE);
+
+        appendDirectory = Files.createTempDirectory("journal-append");
+        journal = new OrderJournal.Builder(appendDirectory)
+                .retainedSegments(2)
+                .flushPolicy(flushMode == FlushPolicy.Mode.INTERVAL ? FlushPolicy.every(10) : FlushPolicy.onSegmentRoll())
+                .open();
+
+        scanDirectory = Files.createTempDirectory("journal-scan");
+        try (OrderJournal scanJournal = new OrderJournal.Builder(scanDirectory).retainedSegments(64).open()) {
+            for (int i = 0; i < SCANNED_EVENTS; i++) {
+                scanJournal.append(i % 2 == 0 ? OrderEventType.PLACE : OrderEventType.ADD_PANCAKE, order,
+                        i % 2 == 0 ? null : PancakeServiceBenchmark.PANCAKE);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        delete(appendDirectory);
+        delete(scanDirectory);
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public long appendPlace() {
+        return journal.append(OrderEventType.PLACE, order, null);
+    }
+
+    @Benchmark
+    public long appendAddPancake() {
+        return journal.append(OrderEventType.ADD_PANCAKE, order, PancakeServiceBenchmark.PANCAKE);
+    }
+
+    // Full sequential scan, score is scans/s of SCANNED_EVENTS events
+    @Benchmark
+    public long scanPlacedOrders() throws IOException {
+        long placed = 0;
+        try (JournalReader reader = JournalReader.open(scanDirectory)) {
+            while (reader.next()) {
+                if (reader.type() == OrderEventType.PLACE) {
+                    placed += reader.building();
+                }
+            }
+        }
+        return placed;
+    }
+}
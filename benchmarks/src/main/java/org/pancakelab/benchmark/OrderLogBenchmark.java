@@ -0,0 +1,39 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.model.Order;
+import org.pancakelab.service.OrderLog;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class OrderLogBenchmark {
+    private Order order;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        OrderLog.clearLog();
+        order = new Order(5, 101);
+        order.addPancake(PancakeServiceBenchmark.PANCAKE);
+    }
+
+    @Benchmark
+    public void logAddPancake() {
+        OrderLog.logAddPancake(order, PancakeServiceBenchmark.PANCAKE);
+    }
+
+    @Benchmark
+    public void logPlaceOrder() {
+        OrderLog.logPlaceOrder(order);
+    }
+
+    @Benchmark
+    public void logCancelOrder() {
+        OrderLog.logCancelOrder(order);
+    }
+}
@@ -0,0 +1,54 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.model.Order;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.PANCAKE;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.building;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.room;
+
+/**
+ * The room terminal query, "what does this room have in flight?", over {@code orders} placed orders spread across
+ * 99 buildings and 499 rooms. {@code scanOrders} filters getOrders() as callers did before the indexes;
+ * {@code findOrdersByRoom} should stay flat as the order count grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class OrderQueryBenchmark {
+    @Param({"10000", "1000000"})
+    int orders;
+
+    PancakeService service;
+
+    @Setup(Level.Trial)
+    public void placeOrders() {
+        service = new PancakeService();
+        for (int i = 0; i < orders; i++) {
+            service.createAndPlaceOrder(building(), room(), List.of(PANCAKE));
+        }
+        OrderLog.clearLog();
+    }
+
+    @Benchmark
+    public List<Order> findOrdersByRoom() {
+        return service.findOrdersByRoom(building(), room());
+    }
+
+    @Benchmark
+    public List<Order> scanOrders() {
+        int building = building();
+        int room = room();
+        return service.getOrders().values().stream()
+                .filter(order -> order.getBuilding() == building && order.getRoom() == room)
+                .toList();
+    }
+}
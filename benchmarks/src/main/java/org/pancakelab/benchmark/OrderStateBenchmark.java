@@ -0,0 +1,97 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+import org.pancakelab.model.Pancake;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.PANCAKE;
+
+/**
+ * Writers and readers hammering one shared order: three threads add pancakes while one reads the total.
+ * {@code cas} is {@link Order}; {@code synchronized} is a copy of the former lock-based design, kept here as the
+ * baseline. The shared order is swapped for a fresh one every {@code ORDER_SIZE} pancakes so its size stays
+ * realistic. Compare the per-group throughput of both variants.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class OrderStateBenchmark {
+    private static final int ORDER_SIZE = 16;
+
+    @Param({"cas", "synchronized"})
+    String impl;
+
+    volatile Order order;
+    volatile SynchronizedOrder lockedOrder;
+
+    @Setup(Level.Iteration)
+    public void newOrder() {
+        order = new Order(1, 1);
+        lockedOrder = new SynchronizedOrder();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public void addPancake() {
+        if (impl.equals("cas")) {
+            Order current = order;
+            current.addPancake(PANCAKE);
+            if (current.getPancakes().size() >= ORDER_SIZE) {
+                order = new Order(1, 1);
+            }
+        } else {
+            SynchronizedOrder current = lockedOrder;
+            current.addPancake(PANCAKE);
+            if (current.getPancakes().size() >= ORDER_SIZE) {
+                lockedOrder = new SynchronizedOrder();
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public long readTotal() {
+        if (impl.equals("cas")) {
+            Order.Snapshot snapshot = order.snapshot();
+            return snapshot.totalCents() + snapshot.status().ordinal();
+        }
+        return lockedOrder.getTotalCents() + lockedOrder.getStatus().ordinal();
+    }
+
+    // The lock-based order this benchmark compares against: synchronized methods over a plain status and list
+    static final class SynchronizedOrder {
+        private final List<Pancake> pancakes = new ArrayList<>();
+        private OrderStatus status = OrderStatus.INIT;
+        private long totalCents;
+
+        synchronized void addPancake(Pancake pancake) {
+            if (status != OrderStatus.INIT) {
+                throw new IllegalStateException("Order already created.");
+            }
+            pancakes.add(pancake);
+            totalCents += pancake.getPriceCents();
+        }
+
+        synchronized List<Pancake> getPancakes() {
+            return new ArrayList<>(pancakes);
+        }
+
+        synchronized OrderStatus getStatus() {
+            return status;
+        }
+
+        synchronized long getTotalCents() {
+            return totalCents;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.metrics.Histogram;
+import org.pancakelab.metrics.MetricsRegistry;
+import org.pancakelab.model.Pancake;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.OrderRejectedException;
+import org.pancakelab.service.OverloadPolicy;
+import org.pancakelab.service.PancakeService;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.PANCAKE;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.building;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.room;
+
+/**
+ * Load test at 2x overload: every 1 ms tick customers place {@code ARRIVALS} orders of 1 to 3 pancakes and the
+ * kitchen prepares and delivers half as many, for {@code TICKS} ticks. Ticks drive both sides, so the overload
+ * ratio holds whatever the host's timer resolution. The printed figures are what matters: placed-to-prepared
+ * latency percentiles, and how many orders were admitted, rejected and shed. Unbounded, p99 grows with the length
+ * of the run; with a capacity of {@code CAPACITY} it stays near CAPACITY / SERVED ticks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class OverloadBenchmark {
+    private static final int TICKS = 2000;
+    private static final int ARRIVALS = 10;
+    private static final int SERVED = ARRIVALS / 2;
+    private static final int CAPACITY = 50;
+    private static final List<List<Pancake>> SIZES = List.of(
+            List.of(PANCAKE), Collections.nCopies(2, PANCAKE), Collections.nCopies(3, PANCAKE));
+
+    @Param({"UNBOUNDED", "REJECT", "SHED"})
+    String policy;
+
+    MetricsRegistry metrics;
+    PancakeService service;
+    long rejected;
+
+    @Setup(Level.Iteration)
+    public void resetService() {
+        OrderLog.clearLog();
+        metrics = new MetricsRegistry();
+        PancakeService.Builder builder = new PancakeService.Builder().metrics(metrics);
+        switch (policy) {
+            case "REJECT" -> builder.kitchenCapacity(CAPACITY, OverloadPolicy.reject());
+            case "SHED" -> builder.kitchenCapacity(CAPACITY,
+                    OverloadPolicy.shedLowestPriority(order -> order.getPancakes().size()));
+            default -> {
+                // Unbounded backlog, the behaviour without admission control
+            }
+        }
+        service = builder.build();
+        rejected = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        Histogram.Snapshot latency = metrics.histogram("pancake_stage_placed_to_prepared_nanos").snapshot();
+        System.out.printf("%n  placed->prepared p50=%.1f ms p99=%.1f ms max=%.1f ms, admitted=%d rejected=%d shed=%d backlog=%d%n",
+                latency.percentile(0.5) / 1e6, latency.percentile(0.99) / 1e6, latency.max() / 1e6,
+                metrics.counter("pancake_orders_placed_total").sum(), rejected,
+                metrics.counter("pancake_orders_shed_total").sum(), service.getKitchenBacklog());
+    }
+
+    @Benchmark
+    public long overload() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int tick = 0; tick < TICKS; tick++) {
+            for (int i = 0; i < ARRIVALS; i++) {
+                try {
+                    service.createAndPlaceOrder(building(), room(), SIZES.get(random.nextInt(SIZES.size())));
+                } catch (OrderRejectedException e) {
+                    rejected++; // A real client would come back after e.getRetryAfter()
+                }
+            }
+            service.prepareOrders(SERVED);
+            service.deliverOrders(SERVED);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return rejected;
+    }
+}
@@ -0,0 +1,36 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Pancake;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of building the common recipes; interned pancakes should allocate nothing beyond the builder
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PancakeBuilderBenchmark {
+    @Benchmark
+    public Pancake standard() {
+        return Pancake.Builder.standard().build();
+    }
+
+    @Benchmark
+    public Pancake veganWithTopping() {
+        return Pancake.Builder.vegan()
+                .addCustomIngredient(Ingredient.HAZELNUT)
+                .build();
+    }
+
+    @Benchmark
+    public Pancake standardWithTwoToppings() {
+        return Pancake.Builder.standard()
+                .addCustomIngredient(Ingredient.DARK_CHOCOLATE)
+                .addCustomIngredient(Ingredient.WHIPPED_CREAM)
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.Pancake;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PancakePriceBenchmark {
+    private Pancake standard;
+    private Pancake vegan;
+    private Pancake loaded;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        standard = Pancake.Builder.standard().build();
+        vegan = Pancake.Builder.vegan()
+                .addCustomIngredient(Ingredient.HAZELNUT)
+                .build();
+        loaded = Pancake.Builder.standard()
+                .addCustomIngredient(Ingredient.DARK_CHOCOLATE)
+                .addCustomIngredient(Ingredient.MILK_CHOCOLATE)
+                .addCustomIngredient(Ingredient.WHIPPED_CREAM)
+                .addCustomIngredient(Ingredient.HAZELNUT)
+                .build();
+        order = new Order(1, 1);
+        for (int i = 0; i < 32; i++) {
+            order.addPancake(i % 2 == 0 ? loaded : vegan);
+        }
+    }
+
+    @Benchmark
+    public double standardPrice() {
+        return standard.getPrice();
+    }
+
+    @Benchmark
+    public double veganPrice() {
+        return vegan.getPrice();
+    }
+
+    @Benchmark
+    public double loadedPrice() {
+        return loaded.getPrice();
+    }
+
+    @Benchmark
+    public long loadedPriceCents() {
+        return loaded.getPriceCents();
+    }
+
+    @Benchmark
+    public long orderRunningTotal() {
+        return order.getTotalCents();
+    }
+
+    @Benchmark
+    public long orderRepricedTotal() {
+        long cents = 0;
+        for (Pancake pancake : order.getPancakes()) {
+            cents += pancake.getPriceCents();
+        }
+        return cents;
+    }
+}
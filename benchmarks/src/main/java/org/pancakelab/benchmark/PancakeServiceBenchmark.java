@@ -0,0 +1,136 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.Pancake;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Covers every step of the order lifecycle on a single shared {@link PancakeService}.
+ * Operations that need an order in a given state get it from a per-invocation fixture,
+ * so only the call under test is timed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PancakeServiceBenchmark {
+    static final Pancake PANCAKE = Pancake.Builder.standard()
+            .addCustomIngredient(Ingredient.DARK_CHOCOLATE)
+            .build();
+    private static final int PANCAKES_PER_ORDER = 32;
+
+    PancakeService service;
+
+    @Setup(Level.Iteration)
+    public void resetService() {
+        service = new PancakeService();
+        OrderLog.clearLog();
+    }
+
+    static int building() {
+        return ThreadLocalRandom.current().nextInt(1, 100);
+    }
+
+    static int room() {
+        return ThreadLocalRandom.current().nextInt(1, 500);
+    }
+
+    // Keeps one pending order per thread and starts a new one once it holds enough pancakes
+    @State(Scope.Thread)
+    public static class PendingOrder {
+        UUID orderId;
+        int pancakes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            orderId = null;
+        }
+
+        UUID next(PancakeService service) {
+            if (orderId == null || pancakes == PANCAKES_PER_ORDER) {
+                orderId = service.createOrder(building(), room()).getId();
+                pancakes = 0;
+            }
+            pancakes++;
+            return orderId;
+        }
+    }
+
+    // An order holding one pancake, ready to be placed
+    @State(Scope.Thread)
+    public static class ReadyOrder {
+        UUID orderId;
+
+        @Setup(Level.Invocation)
+        public void create(PancakeServiceBenchmark benchmark) {
+            Order order = benchmark.service.createOrder(building(), room());
+            benchmark.service.addPancakeToOrder(order.getId(), PANCAKE);
+            orderId = order.getId();
+        }
+    }
+
+    // An order sitting in the kitchen backlog
+    @State(Scope.Thread)
+    public static class PlacedOrder {
+        UUID orderId;
+
+        @Setup(Level.Invocation)
+        public void place(PancakeServiceBenchmark benchmark) {
+            Order order = benchmark.service.createOrder(building(), room());
+            benchmark.service.addPancakeToOrder(order.getId(), PANCAKE);
+            benchmark.service.placeOrder(order.getId());
+            orderId = order.getId();
+        }
+    }
+
+    // An order waiting for a courier
+    @State(Scope.Thread)
+    public static class PreparedOrder {
+        @Setup(Level.Invocation)
+        public void prepare(PancakeServiceBenchmark benchmark) {
+            Order order = benchmark.service.createOrder(building(), room());
+            benchmark.service.addPancakeToOrder(order.getId(), PANCAKE);
+            benchmark.service.placeOrder(order.getId());
+            benchmark.service.prepareOrder();
+        }
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        return service.createOrder(building(), room());
+    }
+
+    @Benchmark
+    public void addPancakeToOrder(PendingOrder pending) {
+        service.addPancakeToOrder(pending.next(service), PANCAKE);
+    }
+
+    @Benchmark
+    public void placeOrder(ReadyOrder ready) {
+        service.placeOrder(ready.orderId);
+    }
+
+    @Benchmark
+    public void prepareOrder(PlacedOrder placed) {
+        service.prepareOrder();
+    }
+
+    @Benchmark
+    public void deliverOrder(PreparedOrder prepared) {
+        service.deliverOrder();
+    }
+
+    @Benchmark
+    public void cancelOrder(PlacedOrder placed) {
+        service.cancelOrder(placed.orderId);
+    }
+}
@@ -0,0 +1,49 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.building;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.room;
+
+/**
+ * Creates orders that are never placed, the abandoned cart case. With {@code ttlMillis} 0 expiry is off and
+ * pendingOrders grows for the whole iteration; otherwise createOrder also feeds the timer wheel and sweeps it once
+ * per tick, which keeps pendingOrders at roughly one TTL's worth of orders. The cost per create should stay flat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PendingExpiryBenchmark {
+    @Param({"0", "10", "1000"})
+    int ttlMillis;
+
+    PancakeService service;
+
+    @Setup(Level.Iteration)
+    public void resetService() {
+        OrderLog.clearLog();
+        PancakeService.Builder builder = new PancakeService.Builder();
+        if (ttlMillis > 0) {
+            builder.expirePendingOrders(Duration.ofMillis(ttlMillis));
+        }
+        service = builder.build();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportPending() {
+        System.out.printf("%n  pending=%d %s%n", service.getPendingOrders().size(), service.expiryStats());
+    }
+
+    @Benchmark
+    public Object createAbandonedOrder() {
+        return service.createOrder(building(), room());
+    }
+}
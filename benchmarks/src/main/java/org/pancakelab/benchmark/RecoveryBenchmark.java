@@ -0,0 +1,80 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.journal.FlushPolicy;
+import org.pancakelab.journal.OrderJournal;
+import org.pancakelab.model.Order;
+import org.pancakelab.service.PancakeService;
+import org.pancakelab.service.SnapshotManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to rebuild a service holding {@code orders} placed orders. 90% of them are covered by the snapshot and the
+ * rest, plus the kitchen progress made after it, is replayed from the journal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class RecoveryBenchmark {
+    @Param({"1000000", "5000000"})
+    int orders;
+
+    private Path directory;
+    private Path journalDirectory;
+    private Path snapshotDirectory;
+
+    @Setup(Level.Trial)
+    public void writeSnapshotAndJournal() throws IOException {
+        directory = Files.createTempDirectory("recovery");
+        journalDirectory = directory.resolve("journal");
+        snapshotDirectory = directory.resolve("snapshots");
+        try (OrderJournal journal = new OrderJournal.Builder(journalDirectory)
+                .retainedSegments(Integer.MAX_VALUE)
+                .flushPolicy(FlushPolicy.onSegmentRoll())
+                .open()) {
+            PancakeService service = new PancakeService.Builder().addListener(journal).build();
+            try (SnapshotManager snapshots = new SnapshotManager(service, journal, snapshotDirectory, 1)) {
+                int snapshotAt = orders / 10 * 9;
+                for (int i = 0; i < orders; i++) {
+                    if (i == snapshotAt) {
+                        snapshots.takeSnapshot();
+                    }
+                    Order order = service.createOrder(i % 50 + 1, i % 400 + 1);
+                    service.addPancakeToOrder(order.getId(), PancakeServiceBenchmark.PANCAKE);
+                    service.placeOrder(order.getId());
+                    if (i % 2 == 0) {
+                        service.prepareOrder();
+                    }
+                    if (i % 4 == 0) {
+                        service.deliverOrder();
+                    }
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public PancakeService recover() {
+        return new PancakeService.Builder()
+                .recoverFrom(snapshotDirectory, journalDirectory)
+                .build();
+    }
+}
@@ -0,0 +1,92 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.Pancake;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.PANCAKE;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.room;
+
+/**
+ * Simulates a kitchen that prepares {@link #ARRIVALS} orders for random buildings between courier trips, then
+ * sends one courier out. The FIFO courier carries up to {@link #ARRIVALS} orders in arrival order and visits every
+ * building change as a separate stop; the route courier takes {@code deliverNextRoute()}, a single building.
+ * Compare the {@code deliveries} and {@code stops} counters: deliveries per stop is what a courier trip yields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class RouteDeliveryBenchmark {
+    static final int ARRIVALS = 16;
+    private static final List<Pancake> PANCAKES = List.of(PANCAKE);
+
+    @Param({"20"})
+    int buildings;
+
+    PancakeService service;
+
+    @Setup(Level.Iteration)
+    public void resetService() {
+        service = new PancakeService();
+        OrderLog.clearLog();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Trips {
+        public long deliveries;
+        public long stops;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            deliveries = 0;
+            stops = 0;
+        }
+    }
+
+    @Benchmark
+    public void fifoCourier(Trips trips) throws InterruptedException {
+        kitchenCycle();
+        int lastBuilding = 0;
+        for (int i = 0; i < ARRIVALS; i++) {
+            Optional<Order> order = service.takeNextOrderToDeliver(0, TimeUnit.NANOSECONDS);
+            if (order.isEmpty()) {
+                break;
+            }
+            if (order.get().getBuilding() != lastBuilding) {
+                lastBuilding = order.get().getBuilding();
+                trips.stops++;
+            }
+            trips.deliveries++;
+        }
+    }
+
+    @Benchmark
+    public void routeCourier(Trips trips) {
+        kitchenCycle();
+        List<Order> route = service.deliverNextRoute();
+        if (!route.isEmpty()) {
+            trips.stops++;
+            trips.deliveries += route.size();
+        }
+    }
+
+    // Helper: Place and prepare one wave of orders spread over the buildings
+    private void kitchenCycle() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < ARRIVALS; i++) {
+            service.createAndPlaceOrder(random.nextInt(1, buildings + 1), room(), PANCAKES);
+        }
+        service.prepareOrders(ARRIVALS);
+    }
+}
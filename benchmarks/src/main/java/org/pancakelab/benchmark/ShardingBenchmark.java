@@ -0,0 +1,56 @@
+package org.pancakelab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.pancakelab.model.Order;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+import org.pancakelab.service.ShardedPancakeService;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.PANCAKE;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.building;
+import static org.pancakelab.benchmark.PancakeServiceBenchmark.room;
+
+/**
+ * One full order lifecycle per operation (create, add a pancake, place, prepare, deliver) on a single
+ * {@link PancakeService} versus a {@link ShardedPancakeService}. Run it over a thread sweep for the scaling curve:
+ * {@code java -jar benchmarks.jar ShardingBenchmark --threads 1,2,4,8,16,32}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ShardingBenchmark {
+    @Param({"1", "16"})
+    int shards;
+
+    PancakeService single;
+    ShardedPancakeService sharded;
+
+    @Setup(Level.Iteration)
+    public void resetService() {
+        OrderLog.clearLog();
+        single = shards == 1 ? new PancakeService() : null;
+        sharded = shards == 1 ? null : new ShardedPancakeService(shards);
+    }
+
+    @Benchmark
+    public int orderLifecycle() {
+        if (single != null) {
+            Order order = single.createOrder(building(), room());
+            UUID orderId = order.getId();
+            single.addPancakeToOrder(orderId, PANCAKE);
+            single.placeOrder(orderId);
+            return single.prepareOrders(1) + single.deliverOrders(1);
+        }
+        Order order = sharded.createOrder(building(), room());
+        UUID orderId = order.getId();
+        sharded.addPancakeToOrder(orderId, PANCAKE);
+        sharded.placeOrder(orderId);
+        return sharded.prepareOrders(1) + sharded.deliverOrders(1);
+    }
+}
@@ -1,13 +1,20 @@
 package org.pancakelab;
 
+import org.pancakelab.http.OrderHttpServer;
 import org.pancakelab.model.Ingredient;
 import org.pancakelab.model.Pancake;
 import org.pancakelab.service.PancakeService;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.UUID;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("serve")) {
+            serve(args.length > 1 ? Integer.parseInt(args[1]) : 8080);
+            return;
+        }
         PancakeService service = new PancakeService();
 
         // Step 1: Create an order
@@ -32,6 +39,19 @@ public class Main {
         printOrderDetails(service, orderId1);
     }
 
+    // Serve the order API until the JVM is stopped; the server's dispatcher thread keeps it running
+    private static void serve(int port) throws IOException {
+        // Send response bodies on reused connections without waiting for a delayed ACK, unless set on the command
+        // line. Only takes effect because no HttpServer has been created in this JVM yet.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        OrderHttpServer server = new OrderHttpServer(new PancakeService(), new InetSocketAddress(port));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        System.out.println("Serving orders on port " + server.address().getPort());
+    }
+
     private static void printOrderDetails(PancakeService service, UUID orderId) {
         System.out.println("\nFinal Order Details:");
         service.getOrders().forEach((id, order) -> {
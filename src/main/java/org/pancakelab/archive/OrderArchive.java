@@ -0,0 +1,256 @@
+package org.pancakelab.archive;
+
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+import org.pancakelab.model.Pancake;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * File-backed store for orders that left the live service. Records are appended to {@code orders.dat} and found
+ * through an open-addressing hash index kept in the memory-mapped {@code orders.idx}, so neither the records nor
+ * the index live on the Java heap. Archived orders are materialized again only when they are looked up.
+ * <pre>
+ * record: length(int) idMsb(long) idLsb(long) building(int) room(int) status(byte) pancakeCount(int)
+ *         (baseCount(byte) ordinals(byte*) customCount(byte) ordinals(byte*))*
+ * index:  magic(int) count(int) capacity(int) reserved(int), then capacity slots of idMsb(long) idLsb(long) offset(long)
+ * </pre>
+ */
+public class OrderArchive implements AutoCloseable {
+    private static final int INDEX_MAGIC = 0x504B4158; // "PKAX"
+    private static final int INDEX_HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 24;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final int RECORD_HEADER_SIZE = 33;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final Ingredient[] INGREDIENTS = Ingredient.values();
+
+    private final Path directory;
+    private final FileChannel data;
+    private long dataSize;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int count;
+    private ByteBuffer scratch = ByteBuffer.allocate(256);
+
+    private OrderArchive(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        this.data = FileChannel.open(directory.resolve("orders.dat"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.dataSize = data.size();
+
+        Path indexPath = directory.resolve("orders.idx");
+        if (Files.exists(indexPath)) {
+            index = map(indexPath, Files.size(indexPath));
+            if (index.getInt(0) != INDEX_MAGIC) {
+                throw new IOException("Not an order archive index: " + indexPath);
+            }
+            count = index.getInt(4);
+            capacity = index.getInt(8);
+        } else {
+            capacity = INITIAL_CAPACITY;
+            index = createIndex(indexPath, capacity);
+        }
+    }
+
+    public static OrderArchive open(Path directory) throws IOException {
+        return new OrderArchive(directory);
+    }
+
+    // Append an order; archiving the same id again replaces the earlier record
+    public synchronized void archive(Order order) throws IOException {
+        Order.Snapshot state = order.snapshot();
+        List<Pancake> pancakes = state.pancakes();
+        OrderStatus status = state.status();
+        int length = RECORD_HEADER_SIZE;
+        for (Pancake pancake : pancakes) {
+            length += 2 + pancake.baseIngredients().size() + pancake.customIngredients().size();
+        }
+        if (scratch.capacity() < length) {
+            scratch = ByteBuffer.allocate(Integer.highestOneBit(length) << 1);
+        }
+        ByteBuffer record = scratch.clear();
+        record.putInt(length);
+        record.putLong(order.getId().getMostSignificantBits());
+        record.putLong(order.getId().getLeastSignificantBits());
+        record.putInt(order.getBuilding());
+        record.putInt(order.getRoom());
+        record.put((byte) status.ordinal());
+        record.putInt(pancakes.size());
+        for (Pancake pancake : pancakes) {
+            putIngredients(record, pancake.baseIngredients());
+            putIngredients(record, pancake.customIngredients());
+        }
+        record.flip();
+
+        long offset = dataSize;
+        while (record.hasRemaining()) {
+            data.write(record, offset + record.position());
+        }
+        dataSize += length;
+        if ((count + 1) * 2L > capacity) {
+            grow();
+        }
+        if (put(index, capacity, order.getId().getMostSignificantBits(), order.getId().getLeastSignificantBits(), offset)) {
+            count++;
+            index.putInt(4, count);
+        }
+    }
+
+    private static void putIngredients(ByteBuffer record, List<Ingredient> ingredients) {
+        record.put((byte) ingredients.size());
+        for (Ingredient ingredient : ingredients) {
+            record.put((byte) ingredient.ordinal());
+        }
+    }
+
+    public synchronized Optional<Order> find(UUID id) throws IOException {
+        long offset = offsetOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        return offset < 0 ? Optional.empty() : Optional.of(read(offset));
+    }
+
+    public synchronized boolean contains(UUID id) {
+        return offsetOf(id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0;
+    }
+
+    // Number of distinct archived orders
+    public synchronized int size() {
+        return count;
+    }
+
+    // Materialize every archived order, in index order
+    public synchronized void forEach(Consumer<Order> action) throws IOException {
+        for (int slot = 0; slot < capacity; slot++) {
+            int position = INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+            if (index.getLong(position) != 0 || index.getLong(position + 8) != 0) {
+                action.accept(read(index.getLong(position + 16)));
+            }
+        }
+    }
+
+    private long offsetOf(long msb, long lsb) {
+        int mask = capacity - 1;
+        for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+            int position = INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+            long slotMsb = index.getLong(position);
+            long slotLsb = index.getLong(position + 8);
+            if (slotMsb == msb && slotLsb == lsb) {
+                return index.getLong(position + 16);
+            }
+            if (slotMsb == 0 && slotLsb == 0) {
+                return -1;
+            }
+        }
+    }
+
+    // Insert or update a slot, true when a new key was added
+    private static boolean put(MappedByteBuffer index, int capacity, long msb, long lsb, long offset) {
+        int mask = capacity - 1;
+        for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+            int position = INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+            long slotMsb = index.getLong(position);
+            long slotLsb = index.getLong(position + 8);
+            boolean empty = slotMsb == 0 && slotLsb == 0;
+            if (empty || (slotMsb == msb && slotLsb == lsb)) {
+                index.putLong(position, msb);
+                index.putLong(position + 8, lsb);
+                index.putLong(position + 16, offset);
+                return empty;
+            }
+        }
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void grow() throws IOException {
+        int newCapacity = capacity << 1;
+        Path grown = directory.resolve("orders.idx.tmp");
+        Files.deleteIfExists(grown);
+        MappedByteBuffer newIndex = createIndex(grown, newCapacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            int position = INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+            long msb = index.getLong(position);
+            long lsb = index.getLong(position + 8);
+            if (msb != 0 || lsb != 0) {
+                put(newIndex, newCapacity, msb, lsb, index.getLong(position + 16));
+            }
+        }
+        newIndex.putInt(4, count);
+        newIndex.force();
+        Files.move(grown, directory.resolve("orders.idx"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index = newIndex;
+        capacity = newCapacity;
+    }
+
+    private static MappedByteBuffer createIndex(Path path, int capacity) throws IOException {
+        MappedByteBuffer index = map(path, INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE);
+        index.putInt(0, INDEX_MAGIC);
+        index.putInt(4, 0);
+        index.putInt(8, capacity);
+        return index;
+    }
+
+    private static MappedByteBuffer map(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private Order read(long offset) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        readFully(length, offset);
+        ByteBuffer record = ByteBuffer.allocate(length.flip().getInt());
+        readFully(record, offset);
+        record.flip().position(4);
+
+        UUID id = new UUID(record.getLong(), record.getLong());
+        int building = record.getInt();
+        int room = record.getInt();
+        OrderStatus status = STATUSES[record.get()];
+        int pancakeCount = record.getInt();
+        List<Pancake> pancakes = new ArrayList<>(pancakeCount);
+        for (int i = 0; i < pancakeCount; i++) {
+            long recipe = 0; // Not checked against the menu, archived pancakes outlive it
+            for (int base = record.get(); base > 0; base--) {
+                recipe = Pancake.addPortion(recipe, INGREDIENTS[record.get()], false);
+            }
+            for (int custom = record.get(); custom > 0; custom--) {
+                recipe = Pancake.addPortion(recipe, INGREDIENTS[record.get()], true);
+            }
+            pancakes.add(Pancake.of(recipe));
+        }
+        return Order.restore(id, building, room, status, pancakes);
+    }
+
+    private void readFully(ByteBuffer target, long offset) throws IOException {
+        while (target.hasRemaining()) {
+            if (data.read(target, offset + target.position()) < 0) {
+                throw new EOFException("Truncated archive record at " + offset);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        index.force();
+        data.close();
+    }
+}
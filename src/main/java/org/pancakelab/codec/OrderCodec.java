@@ -0,0 +1,195 @@
+package org.pancakelab.codec;
+
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+import org.pancakelab.model.Pancake;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of orders and pancakes over a {@link ByteBuffer}, heap or direct. Writes and reads are
+ * relative and advance the buffer's position; both sides must use the same byte order. Writing copies straight from
+ * the order's snapshot and allocates nothing. Reading a pancake allocates nothing either, recipes are interned.
+ * Use {@link OrderView} to read single fields of an encoded order without decoding all of it.
+ * <pre>
+ * order:   status(byte) idMsb(long) idLsb(long) building(varint) room(varint) totalCents(varlong)
+ *          pancakeCount(varint) pancake*
+ * pancake: baseCount(byte) ordinals(byte*) customCount(byte) ordinals(byte*)
+ * </pre>
+ * Varints are unsigned LEB128: seven bits per byte, low bits first, the high bit set on all but the last byte.
+ * Malformed input throws {@link IllegalArgumentException}, truncated input {@link java.nio.BufferUnderflowException}.
+ */
+public final class OrderCodec {
+    static final int ID_MSB = 1;
+    static final int ID_LSB = 9;
+    static final int BUILDING = 17; // First variable-length field
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final Ingredient[] INGREDIENTS = Ingredient.values();
+
+    private OrderCodec() {
+    }
+
+    // Writes the order as of one snapshot. Throws BufferOverflowException, writing nothing, when it does not fit.
+    public static void writeOrder(ByteBuffer buffer, Order order) {
+        Order.Snapshot snapshot = order.snapshot();
+        List<Pancake> pancakes = snapshot.pancakes();
+        if (buffer.remaining() < encodedLength(order, snapshot)) {
+            throw new BufferOverflowException();
+        }
+        writeStatus(buffer, snapshot.status());
+        buffer.putLong(order.getId().getMostSignificantBits());
+        buffer.putLong(order.getId().getLeastSignificantBits());
+        putVarint(buffer, order.getBuilding());
+        putVarint(buffer, order.getRoom());
+        putVarlong(buffer, snapshot.totalCents());
+        putVarint(buffer, pancakes.size());
+        for (int i = 0; i < pancakes.size(); i++) {
+            writePancake(buffer, pancakes.get(i));
+        }
+    }
+
+    // Rebuilds the order in its encoded status. Like crash recovery, pancakes are priced against the current menu.
+    public static Order readOrder(ByteBuffer buffer) {
+        OrderStatus status = readStatus(buffer);
+        UUID id = new UUID(buffer.getLong(), buffer.getLong());
+        int building = getVarint(buffer);
+        int room = getVarint(buffer);
+        getVarlong(buffer); // Total as encoded, recomputed by restore
+        int count = getVarint(buffer);
+        if (count < 0 || count > buffer.remaining() / 2) {
+            throw new IllegalArgumentException("Malformed order: " + count + " pancakes");
+        }
+        List<Pancake> pancakes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            pancakes.add(readPancake(buffer));
+        }
+        return Order.restore(id, building, room, status, pancakes);
+    }
+
+    // Bytes writeOrder needs for the order as of this snapshot
+    public static int encodedLength(Order order, Order.Snapshot snapshot) {
+        List<Pancake> pancakes = snapshot.pancakes();
+        int length = BUILDING + varintLength(order.getBuilding()) + varintLength(order.getRoom())
+                + varlongLength(snapshot.totalCents()) + varintLength(pancakes.size());
+        for (int i = 0; i < pancakes.size(); i++) {
+            length += encodedLength(pancakes.get(i));
+        }
+        return length;
+    }
+
+    public static void writePancake(ByteBuffer buffer, Pancake pancake) {
+        writeIngredients(buffer, pancake.baseIngredients());
+        writeIngredients(buffer, pancake.customIngredients());
+    }
+
+    // The shared instance for the decoded recipe
+    public static Pancake readPancake(ByteBuffer buffer) {
+        long recipe = 0;
+        try {
+            for (int base = Byte.toUnsignedInt(buffer.get()); base > 0; base--) {
+                recipe = Pancake.addPortion(recipe, readIngredient(buffer), false);
+            }
+            for (int custom = Byte.toUnsignedInt(buffer.get()); custom > 0; custom--) {
+                recipe = Pancake.addPortion(recipe, readIngredient(buffer), true);
+            }
+        } catch (IllegalStateException e) {
+            throw new IllegalArgumentException("Malformed pancake: " + e.getMessage(), e);
+        }
+        return Pancake.of(recipe);
+    }
+
+    public static int encodedLength(Pancake pancake) {
+        return 2 + pancake.baseIngredients().size() + pancake.customIngredients().size();
+    }
+
+    public static void writeIngredient(ByteBuffer buffer, Ingredient ingredient) {
+        buffer.put((byte) ingredient.ordinal());
+    }
+
+    public static Ingredient readIngredient(ByteBuffer buffer) {
+        return ingredient(buffer.get());
+    }
+
+    public static void writeStatus(ByteBuffer buffer, OrderStatus status) {
+        buffer.put((byte) status.ordinal());
+    }
+
+    public static OrderStatus readStatus(ByteBuffer buffer) {
+        return status(buffer.get());
+    }
+
+    public static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint: more than 5 bytes");
+    }
+
+    public static void putVarlong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static long getVarlong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint: more than 10 bytes");
+    }
+
+    public static int varintLength(int value) {
+        return value == 0 ? 1 : (38 - Integer.numberOfLeadingZeros(value)) / 7;
+    }
+
+    public static int varlongLength(long value) {
+        return value == 0 ? 1 : (70 - Long.numberOfLeadingZeros(value)) / 7;
+    }
+
+    static OrderStatus status(byte ordinal) {
+        if (ordinal < 0 || ordinal >= STATUSES.length) {
+            throw new IllegalArgumentException("Malformed order: unknown status " + ordinal);
+        }
+        return STATUSES[ordinal];
+    }
+
+    static Ingredient ingredient(byte ordinal) {
+        if (ordinal < 0 || ordinal >= INGREDIENTS.length) {
+            throw new IllegalArgumentException("Malformed pancake: unknown ingredient " + ordinal);
+        }
+        return INGREDIENTS[ordinal];
+    }
+
+    private static void writeIngredients(ByteBuffer buffer, List<Ingredient> ingredients) {
+        buffer.put((byte) ingredients.size());
+        for (int i = 0; i < ingredients.size(); i++) {
+            writeIngredient(buffer, ingredients.get(i));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.pancakelab.codec;
+
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Flyweight over an order encoded by {@link OrderCodec}, for reading a few fields of many orders, e.g. filtering a
+ * replication stream by building or status, without materializing an {@link Order}. Wrapping locates the
+ * variable-length fields once; reads use absolute offsets and never move the buffer's position. One view can be
+ * rewrapped for every order in a buffer:
+ * <pre>
+ * for (int offset = 0; offset &lt; buffer.limit(); offset += view.length()) {
+ *     view.wrap(buffer, offset);
+ * }
+ * </pre>
+ */
+public final class OrderView {
+    private ByteBuffer buffer;
+    private int offset;
+    private int roomAt;
+    private int totalAt;
+    private int countAt;
+    private int pancakesAt;
+    private int length = -1; // Computed on first use, it walks every pancake
+
+    public OrderView wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.roomAt = skipVarint(offset + OrderCodec.BUILDING);
+        this.totalAt = skipVarint(roomAt);
+        this.countAt = skipVarint(totalAt);
+        this.pancakesAt = skipVarint(countAt);
+        this.length = -1;
+        return this;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    public OrderStatus status() {
+        return OrderCodec.status(buffer.get(offset));
+    }
+
+    public long idMostSignificantBits() {
+        return buffer.getLong(offset + OrderCodec.ID_MSB);
+    }
+
+    public long idLeastSignificantBits() {
+        return buffer.getLong(offset + OrderCodec.ID_LSB);
+    }
+
+    // Compare without creating a UUID
+    public boolean hasId(UUID id) {
+        return idMostSignificantBits() == id.getMostSignificantBits()
+                && idLeastSignificantBits() == id.getLeastSignificantBits();
+    }
+
+    public UUID id() {
+        return new UUID(idMostSignificantBits(), idLeastSignificantBits());
+    }
+
+    public int building() {
+        return (int) varintAt(offset + OrderCodec.BUILDING);
+    }
+
+    public int room() {
+        return (int) varintAt(roomAt);
+    }
+
+    // The total when the order was encoded
+    public long totalCents() {
+        return varintAt(totalAt);
+    }
+
+    public int pancakeCount() {
+        return (int) varintAt(countAt);
+    }
+
+    // Point the given view at the pancake with this index; walks the pancakes before it
+    public PancakeView pancake(int index, PancakeView view) {
+        if (index < 0 || index >= pancakeCount()) {
+            throw new IndexOutOfBoundsException("Pancake " + index + " of " + pancakeCount());
+        }
+        view.wrap(buffer, pancakesAt);
+        for (int i = 0; i < index; i++) {
+            view.wrap(buffer, view.offset() + view.length());
+        }
+        return view;
+    }
+
+    // Encoded size in bytes, the next order starts at offset() + length()
+    public int length() {
+        if (length < 0) {
+            int end = pancakesAt;
+            for (int i = pancakeCount(); i > 0; i--) {
+                int base = Byte.toUnsignedInt(buffer.get(end));
+                end += 2 + base + Byte.toUnsignedInt(buffer.get(end + 1 + base));
+            }
+            length = end - offset;
+        }
+        return length;
+    }
+
+    // Decode the whole order, see OrderCodec.readOrder
+    public Order toOrder() {
+        return OrderCodec.readOrder(buffer.duplicate().order(buffer.order()).position(offset));
+    }
+
+    private long varintAt(int index) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = buffer.get(index++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at " + index);
+    }
+
+    private int skipVarint(int index) {
+        for (int end = index + 10; index < end; ) {
+            if (buffer.get(index++) >= 0) {
+                return index;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at " + index);
+    }
+}
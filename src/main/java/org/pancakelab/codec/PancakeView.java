@@ -0,0 +1,78 @@
+package org.pancakelab.codec;
+
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Pancake;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight over a pancake encoded by {@link OrderCodec}. Reads use absolute offsets and never move the buffer's
+ * position; rewrap the same view to move on to another pancake.
+ */
+public final class PancakeView {
+    private ByteBuffer buffer;
+    private int offset;
+
+    public PancakeView wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    // Encoded size in bytes, the next pancake starts at offset() + length()
+    public int length() {
+        return 2 + baseCount() + customCount();
+    }
+
+    public int baseCount() {
+        return Byte.toUnsignedInt(buffer.get(offset));
+    }
+
+    public Ingredient baseIngredient(int index) {
+        return OrderCodec.ingredient(buffer.get(offset + 1 + index));
+    }
+
+    public int customCount() {
+        return Byte.toUnsignedInt(buffer.get(offset + 1 + baseCount()));
+    }
+
+    public Ingredient customIngredient(int index) {
+        return OrderCodec.ingredient(buffer.get(offset + 2 + baseCount() + index));
+    }
+
+    // Whether the pancake holds the ingredient, as base or custom
+    public boolean contains(Ingredient ingredient) {
+        byte ordinal = (byte) ingredient.ordinal();
+        int end = offset + length();
+        int customCountAt = offset + 1 + baseCount();
+        for (int i = offset + 1; i < end; i++) {
+            if (i != customCountAt && buffer.get(i) == ordinal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The packed recipe, see Pancake
+    public long recipe() {
+        long recipe = 0;
+        int base = baseCount();
+        for (int i = 0; i < base; i++) {
+            recipe = Pancake.addPortion(recipe, baseIngredient(i), false);
+        }
+        int custom = customCount();
+        for (int i = 0; i < custom; i++) {
+            recipe = Pancake.addPortion(recipe, customIngredient(i), true);
+        }
+        return recipe;
+    }
+
+    // The shared instance for this recipe
+    public Pancake toPancake() {
+        return Pancake.of(recipe());
+    }
+}
@@ -0,0 +1,192 @@
+package org.pancakelab.http;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pull parser over a JSON request body, just enough for the order API: objects, arrays, integers, strings and
+ * literals. Field names and enum constants are matched against the raw bytes, so reading a request allocates
+ * nothing beyond the values the caller asks for. Malformed input throws {@link IllegalArgumentException}.
+ */
+final class JsonReader {
+    private final byte[] in;
+    private int pos;
+    private int keyStart; // Raw bytes of the last field name, between the quotes
+    private int keyEnd;
+    private boolean first; // No element read yet in the innermost object or array
+
+    JsonReader(byte[] in) {
+        this.in = in;
+    }
+
+    void beginObject() {
+        expect('{');
+        first = true;
+    }
+
+    // Move to the next field and past its colon, false at the closing brace
+    boolean nextField() {
+        if (!more('}')) {
+            return false;
+        }
+        expect('"');
+        keyStart = pos;
+        skipStringBody();
+        keyEnd = pos - 1;
+        expect(':');
+        return true;
+    }
+
+    boolean fieldIs(String name) {
+        return rawEquals(keyStart, keyEnd, name);
+    }
+
+    void beginArray() {
+        expect('[');
+        first = true;
+    }
+
+    // Move to the next element, false at the closing bracket
+    boolean nextElement() {
+        return more(']');
+    }
+
+    int readInt() {
+        long value = readLong();
+        if (value != (int) value) {
+            throw malformed("number out of range");
+        }
+        return (int) value;
+    }
+
+    long readLong() {
+        skipWhitespace();
+        boolean negative = pos < in.length && in[pos] == '-';
+        if (negative) {
+            pos++;
+        }
+        int start = pos;
+        long value = 0;
+        while (pos < in.length && in[pos] >= '0' && in[pos] <= '9') {
+            if (value > (Long.MAX_VALUE - (in[pos] - '0')) / 10) {
+                throw malformed("number out of range");
+            }
+            value = value * 10 + (in[pos++] - '0');
+        }
+        if (pos == start) {
+            throw malformed("expected a number");
+        }
+        return negative ? -value : value;
+    }
+
+    // The constant whose name is the next string value
+    <E extends Enum<E>> E readEnum(E[] constants) {
+        expect('"');
+        int start = pos;
+        skipStringBody();
+        for (E constant : constants) {
+            if (rawEquals(start, pos - 1, constant.name())) {
+                return constant;
+            }
+        }
+        throw malformed("unknown value " + new String(in, start, pos - 1 - start, StandardCharsets.UTF_8));
+    }
+
+    // Skip a value of any type, e.g. of a field the caller does not know
+    void skipValue() {
+        skipWhitespace();
+        if (pos >= in.length) {
+            throw malformed("unexpected end");
+        }
+        switch (in[pos]) {
+            case '"' -> {
+                pos++;
+                skipStringBody();
+            }
+            case '{' -> {
+                beginObject();
+                while (nextField()) {
+                    skipValue();
+                }
+            }
+            case '[' -> {
+                beginArray();
+                while (nextElement()) {
+                    skipValue();
+                }
+            }
+            case 't', 'f', 'n' -> {
+                while (pos < in.length && in[pos] >= 'a' && in[pos] <= 'z') {
+                    pos++;
+                }
+            }
+            default -> readLong();
+        }
+    }
+
+    // Only whitespace may follow the top-level value
+    void end() {
+        skipWhitespace();
+        if (pos != in.length) {
+            throw malformed("trailing characters");
+        }
+    }
+
+    // Helper: Before the next field or element, consume the separating comma or detect the closing character
+    private boolean more(char close) {
+        skipWhitespace();
+        if (pos < in.length && in[pos] == close) {
+            pos++;
+            first = false;
+            return false;
+        }
+        if (!first) {
+            expect(',');
+        }
+        first = false;
+        return true;
+    }
+
+    // Helper: Advance past the closing quote. Escapes are skipped over, the API's strings never need them decoded.
+    private void skipStringBody() {
+        while (pos < in.length) {
+            byte b = in[pos++];
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                pos++;
+            }
+        }
+        throw malformed("unterminated string");
+    }
+
+    private boolean rawEquals(int start, int end, String name) {
+        if (end - start != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (in[start + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void expect(char c) {
+        skipWhitespace();
+        if (pos >= in.length || in[pos] != c) {
+            throw malformed("expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    private void skipWhitespace() {
+        while (pos < in.length && (in[pos] == ' ' || in[pos] == '\n' || in[pos] == '\r' || in[pos] == '\t')) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException malformed(String reason) {
+        return new IllegalArgumentException("Malformed JSON at offset " + pos + ": " + reason);
+    }
+}
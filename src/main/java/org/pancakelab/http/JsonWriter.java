@@ -0,0 +1,141 @@
+package org.pancakelab.http;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Writes JSON straight into one growable byte array. Numbers, UUIDs and enum names are encoded digit by digit, so
+ * a response costs the buffer and nothing else. Callers place the punctuation themselves; {@link #string} escapes
+ * quotes, backslashes and control characters and encodes the rest as UTF-8.
+ */
+final class JsonWriter {
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private byte[] out;
+    private int size;
+
+    JsonWriter(int initialCapacity) {
+        this.out = new byte[initialCapacity];
+    }
+
+    // Punctuation and field names, which are plain ASCII
+    JsonWriter raw(String ascii) {
+        ensure(ascii.length());
+        for (int i = 0; i < ascii.length(); i++) {
+            out[size++] = (byte) ascii.charAt(i);
+        }
+        return this;
+    }
+
+    JsonWriter raw(char c) {
+        ensure(1);
+        out[size++] = (byte) c;
+        return this;
+    }
+
+    JsonWriter number(long value) {
+        if (value == Long.MIN_VALUE) {
+            return raw(Long.toString(value));
+        }
+        ensure(20);
+        if (value < 0) {
+            out[size++] = '-';
+            value = -value;
+        }
+        int end = size + digits(value);
+        for (int i = end - 1; i >= size; i--) {
+            out[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size = end;
+        return this;
+    }
+
+    // Quoted in the canonical 8-4-4-4-12 form
+    JsonWriter uuid(UUID id) {
+        ensure(38);
+        out[size++] = '"';
+        hex(id.getMostSignificantBits() >>> 32, 8);
+        out[size++] = '-';
+        hex(id.getMostSignificantBits() >>> 16, 4);
+        out[size++] = '-';
+        hex(id.getMostSignificantBits(), 4);
+        out[size++] = '-';
+        hex(id.getLeastSignificantBits() >>> 48, 4);
+        out[size++] = '-';
+        hex(id.getLeastSignificantBits(), 12);
+        out[size++] = '"';
+        return this;
+    }
+
+    JsonWriter name(Enum<?> constant) {
+        return raw('"').raw(constant.name()).raw('"');
+    }
+
+    JsonWriter string(String value) {
+        raw('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                raw('\\').raw(c);
+            } else if (c < 0x20) {
+                raw("\\u00").raw((char) HEX[c >> 4]).raw((char) HEX[c & 0xF]);
+            } else if (c < 0x80) {
+                raw(c);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensure(4);
+                out[size++] = (byte) (0xF0 | (codePoint >> 18));
+                out[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                out[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                out[size++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                ensure(3);
+                if (c < 0x800) {
+                    out[size++] = (byte) (0xC0 | (c >> 6));
+                } else {
+                    out[size++] = (byte) (0xE0 | (c >> 12));
+                    out[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                }
+                out[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return raw('"');
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    byte[] array() {
+        return out;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void hex(long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            out[size + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        size += digits;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > out.length) {
+            out = Arrays.copyOf(out, Math.max(out.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package org.pancakelab.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+import org.pancakelab.model.Pancake;
+import org.pancakelab.service.OrderRejectedException;
+import org.pancakelab.service.OrderService;
+import org.pancakelab.service.WorkerThreads;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP front end for the terminals, on the JDK's built-in server. Exchanges run on a fixed pool of worker threads,
+ * virtual when the JVM has them (Java 21+); requests beyond the pool wait their turn instead of starting threads.
+ * At most half the workers wait in a kitchen long-poll at a time, further polls answer right away, so waiting
+ * terminals never starve the other requests. Responses always carry a Content-Length, so clients keep their
+ * connections alive between requests; start the JVM with {@code -Dsun.net.httpserver.nodelay=true} so that the
+ * body of a reused connection is not held back by Nagle's algorithm.
+ * <pre>
+ * POST /orders                  {"building":5,"room":101}               201 order
+ * GET  /orders/{id}                                                     200 order
+ * GET  /orders?building=5[&amp;room=101] or ?status=CREATED                 200 [order, ...]
+ * POST /orders/{id}/pancakes    {"base":[...],"custom":[...],"quantity":1}  200 order
+ * POST /orders/{id}/place                                               200 order
+ * POST /orders/{id}/cancel                                              200 order
+ * POST /kitchen/prepare[?waitMillis=n]                                  200 order, 204 when none is waiting
+ * POST /kitchen/deliver[?waitMillis=n]                                  200 order, 204 when none is waiting
+ * </pre>
+ * Errors are {@code {"error":"..."}}: 400 for invalid requests, 404 for unknown orders and paths, 409 for orders
+ * in the wrong status and 503 with a Retry-After header when the kitchen backlog is full.
+ */
+public class OrderHttpServer implements AutoCloseable {
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+    private static final long MAX_WAIT_MILLIS = 30_000;
+    private static final int DEFAULT_THREADS = 64;
+
+    private final OrderService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Semaphore longPolls;
+
+    public OrderHttpServer(OrderService service, InetSocketAddress address) throws IOException {
+        this(service, address, DEFAULT_THREADS);
+    }
+
+    public OrderHttpServer(OrderService service, InetSocketAddress address, int threads) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Threads must be positive. Provided: " + threads);
+        }
+        this.service = service;
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newFixedThreadPool(threads, WorkerThreads.factory("http"));
+        this.longPolls = new Semaphore(threads / 2);
+        server.setExecutor(executor);
+        server.createContext("/orders", this::handle);
+        server.createContext("/kitchen", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // The bound address, with the actual port when the server was created on port 0
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    // Stop accepting connections and give exchanges in progress up to a second to finish
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonWriter out = new JsonWriter(256);
+        int status;
+        try (exchange) {
+            try {
+                byte[] body = readBody(exchange.getRequestBody());
+                status = route(exchange, body, out);
+            } catch (OrderRejectedException e) {
+                long seconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+                exchange.getResponseHeaders().set("Retry-After", Long.toString(seconds));
+                status = error(out, 503, e);
+            } catch (HttpError e) {
+                status = error(out, e.status, e);
+            } catch (IllegalArgumentException e) {
+                status = error(out, 400, e);
+            } catch (IllegalStateException e) {
+                status = error(out, 409, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                status = error(out, 503, e);
+            } catch (RuntimeException e) {
+                status = error(out, 500, e);
+            }
+            send(exchange, status, out);
+        }
+    }
+
+    // Helper: Dispatch on method and path; returns the status, with the body written to out
+    private int route(HttpExchange exchange, byte[] body, JsonWriter out) throws InterruptedException {
+        String method = exchange.getRequestMethod();
+        String query = exchange.getRequestURI().getRawQuery();
+        String[] path = exchange.getRequestURI().getPath().substring(1).split("/");
+
+        if (path[0].equals("kitchen") && path.length == 2) {
+            requireMethod(method, "POST");
+            if (!path[1].equals("prepare") && !path[1].equals("deliver")) {
+                throw new HttpError(404, "Unknown path: " + exchange.getRequestURI().getPath());
+            }
+            long waitMillis = Math.min(Math.max(longParameter(query, "waitMillis", 0), 0), MAX_WAIT_MILLIS);
+            Optional<Order> order = waitMillis > 0 && longPolls.tryAcquire()
+                    ? takeWaiting(path[1], waitMillis)
+                    : take(path[1], 0);
+            if (order.isEmpty()) {
+                return 204;
+            }
+            OrderJson.writeOrder(out, order.get());
+            return 200;
+        }
+        if (!path[0].equals("orders")) {
+            throw new HttpError(404, "Unknown path: " + exchange.getRequestURI().getPath());
+        }
+
+        if (path.length == 1) {
+            if (method.equals("POST")) {
+                OrderJson.Location location = OrderJson.readLocation(body);
+                OrderJson.writeOrder(out, service.createOrder(location.building(), location.room()));
+                return 201;
+            }
+            requireMethod(method, "GET");
+            OrderJson.writeOrders(out, query(query));
+            return 200;
+        }
+
+        UUID orderId = orderId(path[1]);
+        if (path.length == 2) {
+            requireMethod(method, "GET");
+            Order order = service.findOrder(orderId)
+                    .orElseThrow(() -> new HttpError(404, "Order not found: " + orderId));
+            OrderJson.writeOrder(out, order);
+            return 200;
+        }
+        if (path.length != 3) {
+            throw new HttpError(404, "Unknown path: " + exchange.getRequestURI().getPath());
+        }
+        requireMethod(method, "POST");
+        // Looked up first: a canceled pending order leaves the service, but is still answered with its final state
+        Order order = service.findOrder(orderId)
+                .orElseThrow(() -> new HttpError(404, "Order not found: " + orderId));
+        switch (path[2]) {
+            case "pancakes" -> {
+                List<Pancake> pancakes = OrderJson.readPancakes(body);
+                if (pancakes.size() == 1) {
+                    service.addPancakeToOrder(orderId, pancakes.get(0));
+                } else {
+                    service.addPancakesToOrder(orderId, pancakes);
+                }
+            }
+            case "place" -> service.placeOrder(orderId);
+            case "cancel" -> service.cancelOrder(orderId);
+            default -> throw new HttpError(404, "Unknown path: " + exchange.getRequestURI().getPath());
+        }
+        OrderJson.writeOrder(out, order);
+        return 200;
+    }
+
+    // Helper: A long-poll holding one of the long-poll permits
+    private Optional<Order> takeWaiting(String stage, long waitMillis) throws InterruptedException {
+        try {
+            return take(stage, waitMillis);
+        } finally {
+            longPolls.release();
+        }
+    }
+
+    private Optional<Order> take(String stage, long waitMillis) throws InterruptedException {
+        return stage.equals("prepare")
+                ? service.takeNextOrderToPrepare(waitMillis, TimeUnit.MILLISECONDS)
+                : service.takeNextOrderToDeliver(waitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Helper: GET /orders filters, by building and optionally room, or by status
+    private List<Order> query(String query) {
+        String status = parameter(query, "status");
+        if (status != null) {
+            try {
+                return service.findOrdersByStatus(OrderStatus.valueOf(status));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown status: " + status);
+            }
+        }
+        if (parameter(query, "building") == null) {
+            throw new IllegalArgumentException("Query by building, building and room, or status.");
+        }
+        int building = intParameter(query, "building");
+        return parameter(query, "room") == null
+                ? service.findOrdersByBuilding(building)
+                : service.findOrdersByRoom(building, intParameter(query, "room"));
+    }
+
+    private static UUID orderId(String segment) {
+        try {
+            return UUID.fromString(segment);
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(404, "Order not found: " + segment);
+        }
+    }
+
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw new HttpError(405, "Method not allowed: " + method);
+        }
+    }
+
+    // The value of a query parameter, null when absent. Parameter values of this API never need decoding.
+    private static String parameter(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq == name.length() && pair.startsWith(name)) {
+                return pair.substring(eq + 1);
+            }
+        }
+        return null;
+    }
+
+    private static long longParameter(String query, String name, long absent) {
+        String value = parameter(query, name);
+        if (value == null) {
+            return absent;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a number: " + value);
+        }
+    }
+
+    private static int intParameter(String query, String name) {
+        String value = parameter(query, name);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a number between "
+                    + Integer.MIN_VALUE + " and " + Integer.MAX_VALUE + ": " + value);
+        }
+    }
+
+    // Helper: Read the whole body, so the connection can be reused, and refuse oversized ones
+    private static byte[] readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            throw new HttpError(413, "Request body exceeds " + MAX_BODY_BYTES + " bytes.");
+        }
+        return body;
+    }
+
+    private static int error(JsonWriter out, int status, Exception e) {
+        out.reset(); // Drop whatever part of a response was written before the failure
+        OrderJson.writeError(out, e.getMessage());
+        return status;
+    }
+
+    private static void send(HttpExchange exchange, int status, JsonWriter out) throws IOException {
+        if (status == 204) {
+            exchange.sendResponseHeaders(204, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, out.size());
+        OutputStream body = exchange.getResponseBody();
+        body.write(out.array(), 0, out.size());
+    }
+
+    // A failure with its own status code, thrown and mapped within this class
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.pancakelab.http;
+
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.Pancake;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JSON mapping of the order API, written by hand against {@link JsonReader} and {@link JsonWriter}:
+ * <pre>
+ * order:   {"id":"...","building":5,"room":101,"status":"CREATED","totalCents":375,"pancakes":[pancake, ...]}
+ * pancake: {"base":["MILK","FLOUR","EGG"],"custom":["DARK_CHOCOLATE"]}
+ * </pre>
+ * Requests use the same pancake shape plus an optional {@code "quantity"}; unknown fields are ignored.
+ */
+final class OrderJson {
+    static final int MAX_QUANTITY = 100;
+
+    private static final Ingredient[] INGREDIENTS = Ingredient.values();
+
+    private OrderJson() {
+    }
+
+    record Location(int building, int room) {
+    }
+
+    // {"building":5,"room":101}
+    static Location readLocation(byte[] body) {
+        JsonReader in = new JsonReader(body);
+        int building = 0;
+        int room = 0;
+        in.beginObject();
+        while (in.nextField()) {
+            if (in.fieldIs("building")) {
+                building = in.readInt();
+            } else if (in.fieldIs("room")) {
+                room = in.readInt();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.end();
+        return new Location(building, room);
+    }
+
+    // A pancake and how many of it to add. Ingredients are checked against the menu by Pancake.Builder.
+    static List<Pancake> readPancakes(byte[] body) {
+        JsonReader in = new JsonReader(body);
+        Pancake.Builder pancake = new Pancake.Builder();
+        int quantity = 1;
+        in.beginObject();
+        while (in.nextField()) {
+            if (in.fieldIs("base")) {
+                in.beginArray();
+                while (in.nextElement()) {
+                    pancake.addBaseIngredient(in.readEnum(INGREDIENTS));
+                }
+            } else if (in.fieldIs("custom")) {
+                in.beginArray();
+                while (in.nextElement()) {
+                    pancake.addCustomIngredient(in.readEnum(INGREDIENTS));
+                }
+            } else if (in.fieldIs("quantity")) {
+                quantity = in.readInt();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.end();
+        if (quantity < 1 || quantity > MAX_QUANTITY) {
+            throw new IllegalArgumentException("Quantity must be between 1 and " + MAX_QUANTITY + ": " + quantity);
+        }
+        return Collections.nCopies(quantity, pancake.build());
+    }
+
+    // Status, pancakes and total from one snapshot, so they always agree
+    static void writeOrder(JsonWriter out, Order order) {
+        Order.Snapshot snapshot = order.snapshot();
+        out.raw("{\"id\":").uuid(order.getId())
+                .raw(",\"building\":").number(order.getBuilding())
+                .raw(",\"room\":").number(order.getRoom())
+                .raw(",\"status\":").name(snapshot.status())
+                .raw(",\"totalCents\":").number(snapshot.totalCents())
+                .raw(",\"pancakes\":[");
+        List<Pancake> pancakes = snapshot.pancakes();
+        for (int i = 0; i < pancakes.size(); i++) {
+            if (i > 0) {
+                out.raw(',');
+            }
+            writePancake(out, pancakes.get(i));
+        }
+        out.raw("]}");
+    }
+
+    static void writeOrders(JsonWriter out, List<Order> orders) {
+        out.raw('[');
+        for (int i = 0; i < orders.size(); i++) {
+            if (i > 0) {
+                out.raw(',');
+            }
+            writeOrder(out, orders.get(i));
+        }
+        out.raw(']');
+    }
+
+    static void writePancake(JsonWriter out, Pancake pancake) {
+        out.raw("{\"base\":");
+        writeIngredients(out, pancake.baseIngredients());
+        out.raw(",\"custom\":");
+        writeIngredients(out, pancake.customIngredients());
+        out.raw('}');
+    }
+
+    static void writeError(JsonWriter out, String message) {
+        out.raw("{\"error\":").string(message == null ? "" : message).raw('}');
+    }
+
+    private static void writeIngredients(JsonWriter out, List<Ingredient> ingredients) {
+        out.raw('[');
+        for (int i = 0; i < ingredients.size(); i++) {
+            if (i > 0) {
+                out.raw(',');
+            }
+            out.name(ingredients.get(i));
+        }
+        out.raw(']');
+    }
+}
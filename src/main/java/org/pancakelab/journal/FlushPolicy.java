@@ -0,0 +1,34 @@
+package org.pancakelab.journal;
+
+/**
+ * When an {@link OrderJournal} forces mapped segment pages to disk. Segments are always forced when they are
+ * rolled over and when the journal is closed.
+ */
+public record FlushPolicy(Mode mode, long intervalMillis) {
+    public enum Mode {
+        PER_EVENT,
+        INTERVAL,
+        SEGMENT_ROLL
+    }
+
+    public FlushPolicy {
+        if (mode == Mode.INTERVAL && intervalMillis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be positive. Provided: " + intervalMillis);
+        }
+    }
+
+    // Force after every appended event: strongest durability, one msync per event
+    public static FlushPolicy perEvent() {
+        return new FlushPolicy(Mode.PER_EVENT, 0);
+    }
+
+    // Force from a background thread every intervalMillis
+    public static FlushPolicy every(long intervalMillis) {
+        return new FlushPolicy(Mode.INTERVAL, intervalMillis);
+    }
+
+    // Leave flushing to the OS until the segment is full
+    public static FlushPolicy onSegmentRoll() {
+        return new FlushPolicy(Mode.SEGMENT_ROLL, 0);
+    }
+}
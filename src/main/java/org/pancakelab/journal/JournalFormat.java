@@ -0,0 +1,51 @@
+package org.pancakelab.journal;
+
+/**
+ * Binary layout of journal segments. A segment starts with a fixed header followed by records aligned to 8 bytes.
+ * A record length of zero marks the end of the written part of a segment.
+ * <pre>
+ * segment header: magic(int) version(int) baseSequence(long), padded to 64 bytes
+ * record:         length(int) type(byte) reserved(byte) baseCount(short) customCount(short) reserved(short)
+ *                 building(int) sequence(long) timestamp(long) idMsb(long) idLsb(long) room(int) pancakeCount(int)
+ *                 revision(int) base ingredient ordinals(byte * baseCount) custom ingredient ordinals(byte * customCount)
+ * </pre>
+ * pancakeCount and revision are those of the order state the event installed, see {@link
+ * org.pancakelab.model.Order.Snapshot#revision()}.
+ */
+final class JournalFormat {
+    static final int MAGIC = 0x504B4A31; // "PKJ1"
+    static final int VERSION = 2;
+    static final int SEGMENT_HEADER_SIZE = 64;
+    static final int HEADER_BASE_SEQUENCE = 8;
+
+    static final int LENGTH = 0;
+    static final int TYPE = 4;
+    static final int BASE_COUNT = 6;
+    static final int CUSTOM_COUNT = 8;
+    static final int BUILDING = 12;
+    static final int SEQUENCE = 16;
+    static final int TIMESTAMP = 24;
+    static final int ID_MSB = 32;
+    static final int ID_LSB = 40;
+    static final int ROOM = 48;
+    static final int PANCAKE_COUNT = 52;
+    static final int REVISION = 56;
+    static final int INGREDIENTS = 60;
+
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private JournalFormat() {
+    }
+
+    static int recordLength(int baseCount, int customCount) {
+        return (INGREDIENTS + baseCount + customCount + 7) & ~7;
+    }
+
+    static String segmentName(long baseSequence) {
+        return "%020d%s".formatted(baseSequence, SEGMENT_SUFFIX);
+    }
+
+    static long baseSequence(String segmentName) {
+        return Long.parseLong(segmentName.substring(0, segmentName.length() - SEGMENT_SUFFIX.length()));
+    }
+}
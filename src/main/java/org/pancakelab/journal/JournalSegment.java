@@ -0,0 +1,119 @@
+package org.pancakelab.journal;
+
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Order;
+import org.pancakelab.service.OrderEventType;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.pancakelab.journal.JournalFormat.*;
+
+// A fixed-size, memory-mapped segment file that records are appended to
+final class JournalSegment {
+    private final Path path;
+    private final long baseSequence;
+    private final MappedByteBuffer buffer;
+    private int position;
+    private long lastSequence;
+
+    private JournalSegment(Path path, long baseSequence, MappedByteBuffer buffer, int position, long lastSequence) {
+        this.path = path;
+        this.baseSequence = baseSequence;
+        this.buffer = buffer;
+        this.position = position;
+        this.lastSequence = lastSequence;
+    }
+
+    static JournalSegment create(Path directory, long baseSequence, int size) throws IOException {
+        Path path = directory.resolve(segmentName(baseSequence));
+        MappedByteBuffer buffer = map(path, size, StandardOpenOption.CREATE_NEW);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(HEADER_BASE_SEQUENCE, baseSequence);
+        return new JournalSegment(path, baseSequence, buffer, SEGMENT_HEADER_SIZE, baseSequence - 1);
+    }
+
+    // Reopen an existing segment and position after its last complete record
+    static JournalSegment reopen(Path path) throws IOException {
+        MappedByteBuffer buffer = map(path, -1);
+        int size = buffer.capacity();
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a journal segment: " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported journal segment version " + buffer.getInt(4) + ": " + path);
+        }
+        long baseSequence = buffer.getLong(HEADER_BASE_SEQUENCE);
+        int position = SEGMENT_HEADER_SIZE;
+        long lastSequence = baseSequence - 1;
+        int length;
+        while (position + INGREDIENTS <= size && (length = buffer.getInt(position + LENGTH)) > 0) {
+            lastSequence = buffer.getLong(position + SEQUENCE);
+            position += length;
+        }
+        return new JournalSegment(path, baseSequence, buffer, position, lastSequence);
+    }
+
+    // Map the first size bytes of the file, or the whole file when size is negative
+    private static MappedByteBuffer map(Path path, int size, StandardOpenOption... extraOptions) throws IOException {
+        StandardOpenOption[] options = new StandardOpenOption[extraOptions.length + 2];
+        options[0] = StandardOpenOption.READ;
+        options[1] = StandardOpenOption.WRITE;
+        System.arraycopy(extraOptions, 0, options, 2, extraOptions.length);
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size < 0 ? channel.size() : size);
+        }
+    }
+
+    boolean hasRoom(int length) {
+        return position + length <= buffer.capacity();
+    }
+
+    void write(long sequence, long timestamp, OrderEventType type, Order order, int pancakeCount, int revision,
+               List<Ingredient> baseIngredients, List<Ingredient> customIngredients, int length) {
+        int record = position;
+        buffer.put(record + TYPE, (byte) (type.ordinal() + 1));
+        buffer.putShort(record + BASE_COUNT, (short) baseIngredients.size());
+        buffer.putShort(record + CUSTOM_COUNT, (short) customIngredients.size());
+        buffer.putInt(record + BUILDING, order.getBuilding());
+        buffer.putLong(record + SEQUENCE, sequence);
+        buffer.putLong(record + TIMESTAMP, timestamp);
+        buffer.putLong(record + ID_MSB, order.getId().getMostSignificantBits());
+        buffer.putLong(record + ID_LSB, order.getId().getLeastSignificantBits());
+        buffer.putInt(record + ROOM, order.getRoom());
+        buffer.putInt(record + PANCAKE_COUNT, pancakeCount);
+        buffer.putInt(record + REVISION, revision);
+        int offset = record + INGREDIENTS;
+        for (Ingredient ingredient : baseIngredients) {
+            buffer.put(offset++, (byte) ingredient.ordinal());
+        }
+        for (Ingredient ingredient : customIngredients) {
+            buffer.put(offset++, (byte) ingredient.ordinal());
+        }
+        // The length is written last so a torn record is never seen as complete
+        buffer.putInt(record + LENGTH, length);
+        position += length;
+        lastSequence = sequence;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long baseSequence() {
+        return baseSequence;
+    }
+
+    long lastSequence() {
+        return lastSequence;
+    }
+}
@@ -0,0 +1,243 @@
+package org.pancakelab.journal;
+
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.Pancake;
+import org.pancakelab.service.OrderEventListener;
+import org.pancakelab.service.OrderEventType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Durable journal of order lifecycle events, written into fixed-size memory-mapped segment files.
+ * Appending is a handful of stores into the mapped page cache; when pages reach the disk is decided by the
+ * {@link FlushPolicy}. Register it with {@link org.pancakelab.service.PancakeService.Builder#addListener} to journal
+ * every transition, and read it back with {@link JournalReader}.
+ * <p>
+ * Retention never deletes a segment holding records at or after {@link #retainFrom(long)}, the sequence recovery
+ * replays from. {@link org.pancakelab.service.SnapshotManager} raises it to the sequence of each snapshot it writes;
+ * until then every segment is kept.
+ */
+public class OrderJournal implements OrderEventListener, AutoCloseable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final int DEFAULT_RETAINED_SEGMENTS = 16;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int retainedSegments;
+    private final FlushPolicy flushPolicy;
+    private final ScheduledExecutorService flusher;
+    private volatile JournalSegment segment;
+    private long nextSequence;
+    private volatile long retainFrom; // Oldest sequence recovery may still replay
+    private boolean closed;
+
+    private OrderJournal(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.retainedSegments = builder.retainedSegments;
+        this.flushPolicy = builder.flushPolicy;
+
+        Files.createDirectories(directory);
+        List<Path> segments = segmentFiles(directory);
+        if (segments.isEmpty()) {
+            segment = JournalSegment.create(directory, 0, segmentSize);
+        } else {
+            segment = JournalSegment.reopen(segments.get(segments.size() - 1));
+        }
+        nextSequence = segment.lastSequence() + 1;
+
+        if (flushPolicy.mode() == FlushPolicy.Mode.INTERVAL) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "order-journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleAtFixedRate(this::flush, flushPolicy.intervalMillis(), flushPolicy.intervalMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    @Override
+    public void onEvent(OrderEventType type, Order order, Pancake pancake) {
+        append(type, order, pancake);
+    }
+
+    // Journals the pancake count and revision of the state the event installed, not of the order as it is now
+    @Override
+    public void onEvent(OrderEventType type, Order order, Order.Snapshot state, Pancake pancake) {
+        append(type, order, state, pancake);
+    }
+
+    @Override
+    public void onPancakesAdded(Order order, List<Pancake> pancakes) {
+        onPancakesAdded(order, order.snapshot(), pancakes);
+    }
+
+    // A batch is written under one lock, each pancake as its own ADD_PANCAKE record with the count and revision it
+    // brought the order to
+    @Override
+    public synchronized void onPancakesAdded(Order order, Order.Snapshot state, List<Pancake> pancakes) {
+        ensureOpen();
+        int pancakeCount = state.pancakes().size() - pancakes.size();
+        int revision = state.revision() - pancakes.size();
+        for (Pancake pancake : pancakes) {
+            write(OrderEventType.ADD_PANCAKE, order, ++pancakeCount, ++revision, pancake);
+        }
+    }
+
+    // Append one event as of the order's current state and return its journal sequence
+    public long append(OrderEventType type, Order order, Pancake pancake) {
+        return append(type, order, order.snapshot(), pancake);
+    }
+
+    // Append one event as of the state it installed and return its journal sequence
+    public synchronized long append(OrderEventType type, Order order, Order.Snapshot state, Pancake pancake) {
+        ensureOpen();
+        return write(type, order, state.pancakes().size(), state.revision(), pancake);
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed: " + directory);
+        }
+    }
+
+    private long write(OrderEventType type, Order order, int pancakeCount, int revision, Pancake pancake) {
+        List<Ingredient> baseIngredients = pancake == null ? List.of() : pancake.baseIngredients();
+        List<Ingredient> customIngredients = pancake == null ? List.of() : pancake.customIngredients();
+        int length = JournalFormat.recordLength(baseIngredients.size(), customIngredients.size());
+        if (!segment.hasRoom(length)) {
+            if (JournalFormat.SEGMENT_HEADER_SIZE + length > segmentSize) {
+                throw new IllegalArgumentException("Event does not fit in a journal segment: " + length + " bytes");
+            }
+            roll();
+        }
+
+        long sequence = nextSequence++;
+        segment.write(sequence, System.currentTimeMillis(), type, order, pancakeCount, revision, baseIngredients,
+                customIngredients, length);
+        if (flushPolicy.mode() == FlushPolicy.Mode.PER_EVENT) {
+            segment.force();
+        }
+        return sequence;
+    }
+
+    // Sequence the next appended event will get
+    public synchronized long nextSequence() {
+        return nextSequence;
+    }
+
+    // Allow retention to delete segments whose records all precede sequence, e.g. once a snapshot covers them.
+    // Never lowered.
+    public synchronized void retainFrom(long sequence) {
+        retainFrom = Math.max(retainFrom, sequence);
+    }
+
+    public long retainFrom() {
+        return retainFrom;
+    }
+
+    // Force the current segment to disk; rolled segments were already forced
+    public void flush() {
+        segment.force();
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    private void roll() {
+        segment.force();
+        try {
+            segment = JournalSegment.create(directory, nextSequence, segmentSize);
+            applyRetention();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll journal segment in " + directory, e);
+        }
+    }
+
+    // Delete the oldest segments beyond retainedSegments, but only those whose successor starts at or before
+    // retainFrom, so every record from retainFrom on stays readable
+    private void applyRetention() throws IOException {
+        List<Path> segments = segmentFiles(directory);
+        for (int i = 0; i < segments.size() - retainedSegments; i++) {
+            if (JournalFormat.baseSequence(segments.get(i + 1).getFileName().toString()) > retainFrom) {
+                return;
+            }
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    // Segment files of a journal directory, oldest first
+    static List<Path> segmentFiles(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(JournalFormat.SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        segment.force();
+    }
+
+    public static class Builder {
+        private final Path directory;
+        private int segmentSize = DEFAULT_SEGMENT_SIZE;
+        private int retainedSegments = DEFAULT_RETAINED_SEGMENTS;
+        private FlushPolicy flushPolicy = FlushPolicy.every(100);
+
+        public Builder(Path directory) {
+            this.directory = Objects.requireNonNull(directory, "directory");
+        }
+
+        public Builder segmentSize(int segmentSize) {
+            if (segmentSize <= JournalFormat.SEGMENT_HEADER_SIZE + JournalFormat.INGREDIENTS) {
+                throw new IllegalArgumentException("Segment size is too small. Provided: " + segmentSize);
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        // Number of most recent segment files kept on disk. Older ones are deleted on roll once no longer needed from
+        // retainFrom on.
+        public Builder retainedSegments(int retainedSegments) {
+            if (retainedSegments <= 0) {
+                throw new IllegalArgumentException("At least one segment must be retained. Provided: " + retainedSegments);
+            }
+            this.retainedSegments = retainedSegments;
+            return this;
+        }
+
+        public Builder flushPolicy(FlushPolicy flushPolicy) {
+            this.flushPolicy = Objects.requireNonNull(flushPolicy, "flushPolicy");
+            return this;
+        }
+
+        public OrderJournal open() throws IOException {
+            return new OrderJournal(this);
+        }
+    }
+}
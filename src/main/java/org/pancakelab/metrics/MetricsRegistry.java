@@ -0,0 +1,90 @@
+package org.pancakelab.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Named counters, gauges and histograms, and a text dump of all of them. Counters and histograms are created on first
+ * use and shared by name, so several services recording into the same names, e.g. the shards of a
+ * {@link org.pancakelab.service.ShardedPancakeService}, report combined figures. A gauge registered under a name
+ * already in use replaces the earlier one, so the registry never holds on to a discarded service; services that
+ * want a combined gauge register one that reads them all.
+ * <p>
+ * The text format follows the Prometheus exposition format; histograms are written as summaries with quantiles
+ * 0.5, 0.9, 0.99 and 0.999, plus their count, sum and max.
+ */
+public final class MetricsRegistry {
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(checkName(name), key -> new Counter());
+    }
+
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(checkName(name), key -> new Histogram());
+    }
+
+    // Read only when the registry is dumped, so the supplier may be as costly as a queue size. Replaces any gauge
+    // registered under the name before.
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(checkName(name), Objects.requireNonNull(value, "value"));
+    }
+
+    // 0 when no gauge has the name
+    public long gaugeValue(String name) {
+        LongSupplier value = gauges.get(name);
+        return value == null ? 0 : value.getAsLong();
+    }
+
+    // Every metric in the text format, sorted by name within counters, gauges and histograms
+    public void writeText(Appendable out) throws IOException {
+        for (Map.Entry<String, Counter> counter : new TreeMap<>(counters).entrySet()) {
+            out.append("# TYPE ").append(counter.getKey()).append(" counter\n");
+            out.append(counter.getKey()).append(' ').append(Long.toString(counter.getValue().sum())).append('\n');
+        }
+        for (String gauge : new TreeMap<>(gauges).keySet()) {
+            out.append("# TYPE ").append(gauge).append(" gauge\n");
+            out.append(gauge).append(' ').append(Long.toString(gaugeValue(gauge))).append('\n');
+        }
+        for (Map.Entry<String, Histogram> histogram : new TreeMap<>(histograms).entrySet()) {
+            String name = histogram.getKey();
+            Histogram.Snapshot snapshot = histogram.getValue().snapshot();
+            out.append("# TYPE ").append(name).append(" summary\n");
+            for (double quantile : QUANTILES) {
+                out.append(name).append("{quantile=\"").append(Double.toString(quantile)).append("\"} ")
+                        .append(Long.toString(snapshot.percentile(quantile))).append('\n');
+            }
+            out.append(name).append("_sum ").append(Long.toString(snapshot.sum())).append('\n');
+            out.append(name).append("_count ").append(Long.toString(snapshot.count())).append('\n');
+            out.append(name).append("_max ").append(Long.toString(snapshot.max())).append('\n');
+        }
+    }
+
+    public String toText() {
+        StringBuilder out = new StringBuilder(4096);
+        try {
+            writeText(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        }
+        return out.toString();
+    }
+
+    private static String checkName(String name) {
+        if (!NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid metric name: " + name);
+        }
+        return name;
+    }
+}
@@ -1,32 +1,38 @@
 package org.pancakelab.model;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class IngredientMenu {
-    private static final Map<Ingredient, Double> ingredients = new HashMap<>();
-
-    static {
-        ingredients.put(Ingredient.DARK_CHOCOLATE, 1.50);
-        ingredients.put(Ingredient.MILK_CHOCOLATE, 1.00);
-        ingredients.put(Ingredient.HAZELNUT, 2.00);
-        ingredients.put(Ingredient.WHIPPED_CREAM, 0.25);
-        ingredients.put(Ingredient.MILK, 1.0);
-        ingredients.put(Ingredient.SOY_MILK, 1.0);
-        ingredients.put(Ingredient.FLOUR, 0.5);
-        ingredients.put(Ingredient.EGG, 0.75);
-    }
+    // Readers take the current table with a single volatile read; updates swap in a new version
+    private static final AtomicReference<PriceTable> prices = new AtomicReference<>(PriceTable.empty()
+            .withPrice(Ingredient.DARK_CHOCOLATE, 150)
+            .withPrice(Ingredient.MILK_CHOCOLATE, 100)
+            .withPrice(Ingredient.HAZELNUT, 200)
+            .withPrice(Ingredient.WHIPPED_CREAM, 25)
+            .withPrice(Ingredient.MILK, 100)
+            .withPrice(Ingredient.SOY_MILK, 100)
+            .withPrice(Ingredient.FLOUR, 50)
+            .withPrice(Ingredient.EGG, 75));
 
     public static double getPrice(Ingredient ingredient) {
-        return ingredients.get(ingredient);
+        return PriceTable.fromCents(getPriceCents(ingredient));
+    }
+
+    public static long getPriceCents(Ingredient ingredient) {
+        return prices.get().cents(ingredient);
+    }
+
+    public static PriceTable getPriceTable() {
+        return prices.get();
     }
 
     public static boolean isValidIngredient(Ingredient ingredient) {
-        return ingredients.containsKey(ingredient);
+        return prices.get().contains(ingredient);
     }
 
     public static void addIngredient(Ingredient ingredient, double price) {
-        ingredients.put(ingredient, price);
+        long cents = PriceTable.toCents(price);
+        prices.updateAndGet(table -> table.withPrice(ingredient, cents));
     }
 
 }
@@ -1,22 +1,60 @@
 package org.pancakelab.model;
 
-import java.util.ArrayList;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 import java.util.UUID;
 
+/**
+ * An order and its state machine. Status and pancakes live together in one immutable {@link Snapshot} that every
+ * change replaces with a compare-and-set, so transitions are linearizable and readers never block. Each transition
+ * also stamps the {@link System#nanoTime()} at which the order entered its new status.
+ */
 public class Order {
+    public static final long NOT_REACHED = Long.MIN_VALUE; // Time of a status the order never entered
+
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(Order.class, "state", Snapshot.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final UUID id;
     private final int building;
     private final int room;
-    private final List<Pancake> pancakes = new ArrayList<>();
-    private OrderStatus status;
+    private volatile Snapshot state;
 
     public Order(int building, int room) {
-        this.id = UUID.randomUUID();
+        this(TimeOrderedIds.defaultIds().nextUuid(), building, room);
+    }
+
+    public Order(UUID id, int building, int room) {
+        this(id, building, room, Snapshot.EMPTY.withStatus(OrderStatus.INIT, System.nanoTime()));
+    }
+
+    private Order(UUID id, int building, int room, Snapshot state) {
+        this.id = id;
         this.building = building;
         this.room = room;
-        this.status = OrderStatus.INIT;
+        this.state = state;
+    }
+
+    // Rebuild an order from persisted state, e.g. from an archive. Transition times are not persisted.
+    public static Order restore(UUID id, int building, int room, OrderStatus status, List<Pancake> pancakes) {
+        return new Order(id, building, room, Snapshot.EMPTY.append(pancakes, prices(pancakes)).withStatus(status, NOT_REACHED));
+    }
+
+    // Rebuild an order at a known revision, used by crash recovery to line the order up with journaled events
+    public static Order restore(UUID id, int building, int room, OrderStatus status, List<Pancake> pancakes, int revision) {
+        return new Order(id, building, room, Snapshot.EMPTY.append(pancakes, prices(pancakes))
+                .withStatus(status, NOT_REACHED).withRevision(revision));
     }
 
     public UUID getId() {
@@ -31,60 +69,265 @@ public class Order {
         return room;
     }
 
+    // Immutable, as of the moment of the call
     public List<Pancake> getPancakes() {
-        return pancakes;
+        return state.pancakes;
     }
 
     public OrderStatus getStatus() {
-        return status;
+        return state.status;
     }
 
-    public synchronized void addPancake(Pancake pancake) {
-        if (status != OrderStatus.INIT) {
-            throw new IllegalStateException("Order already created.");
-        }
-        pancakes.add(pancake);
+    // Status and pancakes read together, e.g. for persisting the order
+    public Snapshot snapshot() {
+        return state;
+    }
+
+    public long getTotalCents() {
+        return state.totalCents;
+    }
+
+    // System.nanoTime() when the order entered the status, NOT_REACHED if it never did
+    public long enteredAt(OrderStatus status) {
+        return state.enteredAt(status);
     }
 
-    public synchronized void placeOrder() {
-        if (status != OrderStatus.INIT) {
+    public double getTotal() {
+        return PriceTable.fromCents(state.totalCents);
+    }
+
+    // Returns the state this change installed, which later changes by other threads do not affect
+    public Snapshot addPancake(Pancake pancake) {
+        return addPancakes(List.of(pancake));
+    }
+
+    // Add several pancakes in one step and return the state that step installed
+    public Snapshot addPancakes(Collection<Pancake> pancakes) {
+        long[] prices = prices(pancakes);
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = state;
+            if (current.status != OrderStatus.INIT) {
+                throw new IllegalStateException("Order already created.");
+            }
+            next = current.append(pancakes, prices);
+        } while (!STATE.compareAndSet(this, current, next));
+        return next;
+    }
+
+    // Remove one pancake equal to the given one, false when the order holds none
+    public boolean removePancake(Pancake pancake) {
+        return tryRemovePancake(pancake) != null;
+    }
+
+    // Like removePancake, but returns the state the removal installed, null when the order holds no such pancake
+    public Snapshot tryRemovePancake(Pancake pancake) {
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = state;
+            if (current.status != OrderStatus.INIT) {
+                throw new IllegalStateException("Order already created.");
+            }
+            int index = current.pancakes.lastIndexOf(pancake);
+            if (index < 0) {
+                return null;
+            }
+            next = current.remove(index);
+        } while (!STATE.compareAndSet(this, current, next));
+        return next;
+    }
+
+    public void placeOrder() {
+        if (!tryPlace()) {
             throw new IllegalStateException("Order already processed.");
         }
-        if (pancakes.isEmpty()) {
-            throw new IllegalStateException("Cannot place an order without pancakes: " + id);
-        }
-        status = OrderStatus.CREATED;
     }
 
-    public synchronized void prepareOrder() {
-        if (status != OrderStatus.CREATED) {
+    // INIT to CREATED, false when the order already left INIT
+    public boolean tryPlace() {
+        return placeIfPending() != null;
+    }
+
+    // Like tryPlace, but returns the state the placement installed, null when the order already left INIT
+    public Snapshot placeIfPending() {
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = state;
+            if (current.status != OrderStatus.INIT) {
+                return null;
+            }
+            if (current.pancakes.isEmpty()) {
+                throw new IllegalStateException("Cannot place an order without pancakes: " + id);
+            }
+            next = current.withStatus(OrderStatus.CREATED, System.nanoTime());
+        } while (!STATE.compareAndSet(this, current, next));
+        return next;
+    }
+
+    public void prepareOrder() {
+        if (!tryPrepare()) {
             throw new IllegalStateException("Order can only be prepared from CREATED status.");
         }
-        status = OrderStatus.PREPARED;
     }
 
-    public synchronized void deliverOrder() {
-        if (status != OrderStatus.PREPARED) {
+    public boolean tryPrepare() {
+        return transition(OrderStatus.CREATED, OrderStatus.PREPARED);
+    }
+
+    public void deliverOrder() {
+        if (!tryDeliver()) {
             throw new IllegalStateException("Order can only be delivered from PREPARED status.");
         }
-        status = OrderStatus.DELIVERED;
     }
 
-    public synchronized void cancelOrder() {
-        if (status == OrderStatus.DELIVERED || status == OrderStatus.PREPARED) {
-            throw new IllegalStateException("Cannot cancel an order that is already delivered or prepared.");
+    public boolean tryDeliver() {
+        return transition(OrderStatus.PREPARED, OrderStatus.DELIVERED);
+    }
+
+    public void cancelOrder() {
+        Snapshot current;
+        do {
+            current = state;
+            if (current.status == OrderStatus.DELIVERED || current.status == OrderStatus.PREPARED) {
+                throw new IllegalStateException("Cannot cancel an order that is already delivered or prepared.");
+            }
+        } while (!STATE.compareAndSet(this, current, current.withStatus(OrderStatus.CANCELED, System.nanoTime())));
+    }
+
+    // INIT to CANCELED, false when the order was placed or canceled first
+    public boolean tryCancelPending() {
+        return transition(OrderStatus.INIT, OrderStatus.CANCELED);
+    }
+
+    // CREATED to CANCELED, false when the order is no longer waiting to be prepared
+    public boolean tryCancelPlaced() {
+        return transition(OrderStatus.CREATED, OrderStatus.CANCELED);
+    }
+
+    // Helper: Move from expected to next, false when the order is in another status
+    private boolean transition(OrderStatus expected, OrderStatus next) {
+        Snapshot current;
+        do {
+            current = state;
+            if (current.status != expected) {
+                return false;
+            }
+        } while (!STATE.compareAndSet(this, current, current.withStatus(next, System.nanoTime())));
+        return true;
+    }
+
+    // Helper: Price the pancakes against the current menu, once, before any compare-and-set attempt
+    private static long[] prices(Collection<Pancake> pancakes) {
+        long[] prices = new long[pancakes.size()];
+        int i = 0;
+        for (Pancake pancake : pancakes) {
+            prices[i++] = pancake.getPriceCents();
         }
-        this.status = OrderStatus.CANCELED;
+        return prices;
     }
 
     @Override
     public String toString() {
+        Snapshot current = state;
         return "Order{" +
                 "id=" + id +
                 ", building=" + building +
                 ", room=" + room +
-                ", pancakes=" + pancakes +
-                ", status=" + status +
+                ", pancakes=" + current.pancakes +
+                ", status=" + current.status +
                 '}';
     }
+
+    /**
+     * Immutable state of an order: its status, its pancakes, the price each pancake had when it was added and the
+     * time the order entered each status. The revision counts the changes that led to it, creation included, with
+     * each pancake of a batch counted on its own, so every journaled event of an order has its own revision.
+     */
+    public static final class Snapshot {
+        private static final long[] NO_TIMES = new long[OrderStatus.values().length];
+        private static final Snapshot EMPTY;
+
+        static {
+            Arrays.fill(NO_TIMES, NOT_REACHED);
+            EMPTY = new Snapshot(OrderStatus.INIT, new Pancake[0], new long[0], 0, NO_TIMES, 0);
+        }
+
+        private final OrderStatus status;
+        private final Pancake[] pancakeArray;
+        private final List<Pancake> pancakes;
+        private final long[] pancakeCents; // Aligned with pancakes, never modified
+        private final long totalCents;
+        private final long[] enteredNanos; // By status ordinal, never modified
+        private final int revision;
+
+        private Snapshot(OrderStatus status, Pancake[] pancakeArray, long[] pancakeCents, long totalCents,
+                         long[] enteredNanos, int revision) {
+            this.status = status;
+            this.pancakeArray = pancakeArray;
+            this.pancakes = Collections.unmodifiableList(Arrays.asList(pancakeArray));
+            this.pancakeCents = pancakeCents;
+            this.totalCents = totalCents;
+            this.enteredNanos = enteredNanos;
+            this.revision = revision;
+        }
+
+        public OrderStatus status() {
+            return status;
+        }
+
+        public List<Pancake> pancakes() {
+            return pancakes;
+        }
+
+        public long totalCents() {
+            return totalCents;
+        }
+
+        public long enteredAt(OrderStatus status) {
+            return enteredNanos[status.ordinal()];
+        }
+
+        // 1 for a new order, one more for every change since
+        public int revision() {
+            return revision;
+        }
+
+        private Snapshot withStatus(OrderStatus next, long nanos) {
+            long[] nextTimes = enteredNanos.clone();
+            nextTimes[next.ordinal()] = nanos;
+            return new Snapshot(next, pancakeArray, pancakeCents, totalCents, nextTimes, revision + 1);
+        }
+
+        private Snapshot withRevision(int revision) {
+            return new Snapshot(status, pancakeArray, pancakeCents, totalCents, enteredNanos, revision);
+        }
+
+        private Snapshot append(Collection<Pancake> added, long[] prices) {
+            int size = pancakeArray.length;
+            Pancake[] nextPancakes = Arrays.copyOf(pancakeArray, size + prices.length);
+            long[] nextCents = Arrays.copyOf(pancakeCents, size + prices.length);
+            long nextTotal = totalCents;
+            int i = 0;
+            for (Pancake pancake : added) {
+                nextPancakes[size + i] = pancake;
+                nextCents[size + i] = prices[i];
+                nextTotal += prices[i++];
+            }
+            return new Snapshot(status, nextPancakes, nextCents, nextTotal, enteredNanos, revision + prices.length);
+        }
+
+        private Snapshot remove(int index) {
+            int size = pancakeArray.length;
+            Pancake[] nextPancakes = new Pancake[size - 1];
+            long[] nextCents = new long[size - 1];
+            System.arraycopy(pancakeArray, 0, nextPancakes, 0, index);
+            System.arraycopy(pancakeArray, index + 1, nextPancakes, index, size - index - 1);
+            System.arraycopy(pancakeCents, 0, nextCents, 0, index);
+            System.arraycopy(pancakeCents, index + 1, nextCents, index, size - index - 1);
+            return new Snapshot(status, nextPancakes, nextCents, totalCents - pancakeCents[index], enteredNanos, revision + 1);
+        }
+    }
 }
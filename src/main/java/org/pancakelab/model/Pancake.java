@@ -3,31 +3,193 @@ package org.pancakelab.model;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A pancake recipe packed into a single {@code long}: one 4-bit portion count per {@link Ingredient} ordinal,
+ * base ingredients in the low 32 bits and custom ingredients in the high 32 bits. Recipes built through
+ * {@link Builder} are interned, so every order holding a standard pancake shares one instance.
+ * <p>
+ * The recipe keeps portion counts, not the order ingredients were added in. {@link #baseIngredients()} and
+ * {@link #customIngredients()} list them in {@link Ingredient} declaration order, so a standard pancake built as
+ * flour, egg, milk reports {@code [MILK, FLOUR, EGG]}, and pancakes added in a different order are equal.
+ */
+public final class Pancake {
+    public static final int MAX_PORTIONS = 15;
+    private static final int BITS_PER_PORTION = 4;
+    private static final int CUSTOM_SHIFT = 32;
+    private static final int SLOTS_PER_HALF = CUSTOM_SHIFT / BITS_PER_PORTION;
+    private static final long BASE_MASK = 0xFFFF_FFFFL;
+    private static final Ingredient[] INGREDIENTS = Ingredient.values();
+
+    static {
+        if (INGREDIENTS.length > SLOTS_PER_HALF) {
+            throw new IllegalStateException("Recipe encoding supports at most 8 ingredients.");
+        }
+    }
+
+    private final long recipe;
+    private final List<Ingredient> baseIngredients;
+    private final List<Ingredient> customIngredients;
+    private volatile CachedPrice cachedPrice; // Last price computed, valid while its table is the one asked for
 
-public record Pancake(List<Ingredient> baseIngredients, List<Ingredient> customIngredients) {
     public Pancake(List<Ingredient> baseIngredients, List<Ingredient> customIngredients) {
-        this.baseIngredients = Collections.unmodifiableList(baseIngredients);
-        this.customIngredients = Collections.unmodifiableList(customIngredients);
+        this(encode(baseIngredients, customIngredients));
+    }
+
+    private Pancake(long recipe) {
+        this.recipe = recipe;
+        this.baseIngredients = decode(recipe & BASE_MASK);
+        this.customIngredients = decode(recipe >>> CUSTOM_SHIFT);
+    }
+
+    // The shared instance for a packed recipe
+    public static Pancake of(long recipe) {
+        return Interner.intern(recipe);
+    }
+
+    private static long encode(List<Ingredient> baseIngredients, List<Ingredient> customIngredients) {
+        long recipe = 0;
+        for (Ingredient ingredient : baseIngredients) {
+            recipe = addPortion(recipe, ingredient, 0);
+        }
+        for (Ingredient ingredient : customIngredients) {
+            recipe = addPortion(recipe, ingredient, CUSTOM_SHIFT);
+        }
+        return recipe;
+    }
+
+    // One more portion of the ingredient in a packed recipe, e.g. for decoders that read one ingredient at a time.
+    // Unlike the builder this does not check the menu, so recipes with ingredients since taken off it still decode.
+    public static long addPortion(long recipe, Ingredient ingredient, boolean custom) {
+        return addPortion(recipe, ingredient, custom ? CUSTOM_SHIFT : 0);
+    }
+
+    private static long addPortion(long recipe, Ingredient ingredient, int shift) {
+        int position = shift + ingredient.ordinal() * BITS_PER_PORTION;
+        if (((recipe >>> position) & MAX_PORTIONS) == MAX_PORTIONS) {
+            throw new IllegalStateException("A pancake can hold at most " + MAX_PORTIONS + " portions of " + ingredient);
+        }
+        return recipe + (1L << position);
+    }
+
+    // Ingredients of one half of a recipe in ordinal order, each repeated by its portion count
+    private static List<Ingredient> decode(long counts) {
+        List<Ingredient> ingredients = new ArrayList<>();
+        for (int ordinal = 0; counts != 0; ordinal++, counts >>>= BITS_PER_PORTION) {
+            for (int portion = (int) (counts & MAX_PORTIONS); portion > 0; portion--) {
+                ingredients.add(INGREDIENTS[ordinal]);
+            }
+        }
+        return Collections.unmodifiableList(ingredients);
+    }
+
+    public long recipe() {
+        return recipe;
+    }
+
+    // In Ingredient declaration order, each repeated by its portion count; not the order they were added in
+    public List<Ingredient> baseIngredients() {
+        return baseIngredients;
+    }
+
+    // In Ingredient declaration order, like baseIngredients()
+    public List<Ingredient> customIngredients() {
+        return customIngredients;
+    }
+
+    public int basePortions(Ingredient ingredient) {
+        return (int) (recipe >>> (ingredient.ordinal() * BITS_PER_PORTION)) & MAX_PORTIONS;
+    }
+
+    public int customPortions(Ingredient ingredient) {
+        return (int) (recipe >>> (CUSTOM_SHIFT + ingredient.ordinal() * BITS_PER_PORTION)) & MAX_PORTIONS;
     }
 
     public double getPrice() {
-        double baseCost = baseIngredients.stream()
-                .mapToDouble(IngredientMenu::getPrice)
-                .sum();
-        double customCost = customIngredients.stream()
-                .mapToDouble(IngredientMenu::getPrice)
-                .sum();
-        return baseCost + customCost;
+        return PriceTable.fromCents(getPriceCents());
+    }
+
+    public long getPriceCents() {
+        return getPriceCents(IngredientMenu.getPriceTable());
+    }
+
+    // Price against one table, so a concurrent menu update never mixes two versions
+    public long getPriceCents(PriceTable prices) {
+        CachedPrice cached = cachedPrice;
+        if (cached != null && cached.prices == prices) {
+            return cached.cents;
+        }
+        long cents = price(prices);
+        cachedPrice = new CachedPrice(prices, cents);
+        return cents;
+    }
+
+    // Helper: sum the portions of the recipe against the table
+    private long price(PriceTable prices) {
+        long cents = 0;
+        long counts = recipe;
+        for (int slot = 0; counts != 0; slot++, counts >>>= BITS_PER_PORTION) {
+            int portions = (int) (counts & MAX_PORTIONS);
+            if (portions != 0) {
+                cents += portions * prices.cents(INGREDIENTS[slot % SLOTS_PER_HALF]);
+            }
+        }
+        return cents;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof Pancake pancake && pancake.recipe == recipe);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(recipe);
+    }
+
+    @Override
+    public String toString() {
+        return "Pancake[baseIngredients=" + baseIngredients + ", customIngredients=" + customIngredients + "]";
+    }
+
+    private record CachedPrice(PriceTable prices, long cents) {
+    }
+
+    // Lock-free open-addressing table of shared recipes. When it is full, recipes are no longer shared.
+    private static final class Interner {
+        private static final int CAPACITY = 1 << 12;
+        private static final int MAX_PROBES = 16;
+        private static final AtomicReferenceArray<Pancake> PANCAKES = new AtomicReferenceArray<>(CAPACITY);
+
+        static Pancake intern(long recipe) {
+            long hash = recipe * 0x9E3779B97F4A7C15L;
+            int slot = (int) (hash ^ (hash >>> 32));
+            for (int probe = 0; probe < MAX_PROBES; probe++, slot++) {
+                int index = slot & (CAPACITY - 1);
+                Pancake pancake = PANCAKES.get(index);
+                if (pancake == null) {
+                    Pancake created = new Pancake(recipe);
+                    if (PANCAKES.compareAndSet(index, null, created)) {
+                        return created;
+                    }
+                    pancake = PANCAKES.get(index);
+                }
+                if (pancake.recipe == recipe) {
+                    return pancake;
+                }
+            }
+            return new Pancake(recipe);
+        }
     }
 
     public static class Builder {
-        private final List<Ingredient> baseIngredients = new ArrayList<>();
-        private final List<Ingredient> customIngredients = new ArrayList<>();
+        private long recipe;
 
         // Add a base ingredient
         public Builder addBaseIngredient(Ingredient ingredient) {
             if (ingredient.isBaseIngredient() && IngredientMenu.isValidIngredient(ingredient)) {
-                baseIngredients.add(ingredient);
+                recipe = addPortion(recipe, ingredient, 0);
                 return this;
             }
             throw new IllegalArgumentException("Only base ingredients can be added here: " + ingredient);
@@ -37,7 +199,7 @@ public record Pancake(List<Ingredient> baseIngredients, List<Ingredient> customI
         // Add a custom ingredient
         public Builder addCustomIngredient(Ingredient ingredient) {
             if (IngredientMenu.isValidIngredient(ingredient)) {
-                customIngredients.add(ingredient);
+                recipe = addPortion(recipe, ingredient, CUSTOM_SHIFT);
                 return this;
             }
             throw new IllegalArgumentException("Invalid ingredient" + ingredient);
@@ -62,10 +224,10 @@ public record Pancake(List<Ingredient> baseIngredients, List<Ingredient> customI
 
         // Build the pancake
         public Pancake build() {
-            if (baseIngredients.isEmpty()) {
+            if ((recipe & BASE_MASK) == 0) {
                 throw new IllegalStateException("A pancake must have at least one base ingredient.");
             }
-            return new Pancake(new ArrayList<>(baseIngredients), new ArrayList<>(customIngredients));
+            return Pancake.of(recipe);
         }
     }
 }
@@ -0,0 +1,72 @@
+package org.pancakelab.model;
+
+import java.util.Arrays;
+
+/**
+ * Immutable ingredient prices in cents, indexed by {@link Ingredient#ordinal()}. A price change produces a new
+ * table with the next version, so readers holding a table always see one consistent menu.
+ */
+public final class PriceTable {
+    private static final long NOT_ON_MENU = -1;
+    private static final Ingredient[] INGREDIENTS = Ingredient.values();
+
+    private final long[] cents;
+    private final long version;
+
+    private PriceTable(long[] cents, long version) {
+        this.cents = cents;
+        this.version = version;
+    }
+
+    public static PriceTable empty() {
+        long[] cents = new long[INGREDIENTS.length];
+        Arrays.fill(cents, NOT_ON_MENU);
+        return new PriceTable(cents, 0);
+    }
+
+    // Copy of this table with one price set, as the next version
+    public PriceTable withPrice(Ingredient ingredient, long priceCents) {
+        if (priceCents < 0) {
+            throw new IllegalArgumentException("Price must not be negative. Provided: " + priceCents);
+        }
+        long[] updated = cents.clone();
+        updated[ingredient.ordinal()] = priceCents;
+        return new PriceTable(updated, version + 1);
+    }
+
+    public long cents(Ingredient ingredient) {
+        long price = cents[ingredient.ordinal()];
+        if (price == NOT_ON_MENU) {
+            throw new IllegalArgumentException("Ingredient is not on the menu: " + ingredient);
+        }
+        return price;
+    }
+
+    public boolean contains(Ingredient ingredient) {
+        return cents[ingredient.ordinal()] != NOT_ON_MENU;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    // Convert a price in currency units to cents, rounding to the nearest cent
+    public static long toCents(double price) {
+        return Math.round(price * 100);
+    }
+
+    public static double fromCents(long cents) {
+        return cents / 100.0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("PriceTable{version=").append(version);
+        for (Ingredient ingredient : INGREDIENTS) {
+            if (contains(ingredient)) {
+                out.append(", ").append(ingredient).append('=').append(cents(ingredient));
+            }
+        }
+        return out.append('}').toString();
+    }
+}
@@ -0,0 +1,333 @@
+package org.pancakelab.service;
+
+import org.pancakelab.model.Order;
+import org.pancakelab.model.Pancake;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Non-blocking facade over an {@link OrderService}: every order change returns a {@link CompletionStage} instead of
+ * blocking or throwing. Callers only enqueue a command; a single pipeline thread drains the queue in batches and
+ * applies the commands in arrival order, so commands from one caller take effect in the order they were issued.
+ * Consecutive placements in a batch reach the kitchen together, as with {@link PancakeService#placeOrders}.
+ * Failures complete the stage exceptionally with the exception the service would have thrown. An {@link Error} fails
+ * its own stage too, but then stops the pipeline: the service may be left half way through a change, so every
+ * pending and later command fails with {@link RejectedExecutionException} instead of being applied on top of it.
+ * <p>
+ * Stages complete on the pipeline thread. Chain slow work with the {@code *Async} stage methods, otherwise it holds
+ * up every other caller. Likewise a {@link OverloadPolicy#block} policy on the service stalls the whole pipeline
+ * while the kitchen is full.
+ */
+@SuppressWarnings("try") // close() waits for the pipeline thread and so may be interrupted
+public class AsyncPancakeService implements AutoCloseable {
+    private static final long IDLE_WAIT_MILLIS = 100; // Upper bound on noticing a shutdown that raced with parking
+
+    private enum State { NEW, RUNNING, CLOSING, STOPPED }
+
+    private final OrderService service;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final ThreadFactory threadFactory;
+    private final Queue<Command<?>> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final WorkSignal commandSignal = new WorkSignal();
+    private volatile State state = State.NEW;
+    private Thread pipeline;
+
+    private AsyncPancakeService(Builder builder) {
+        this.service = builder.service;
+        this.batchSize = builder.batchSize;
+        this.queueCapacity = builder.queueCapacity;
+        this.threadFactory = builder.threadFactory != null ? builder.threadFactory : WorkerThreads.factory("order-pipeline");
+    }
+
+    public synchronized void start() {
+        if (state != State.NEW) {
+            throw new IllegalStateException("Order pipeline already started.");
+        }
+        state = State.RUNNING;
+        pipeline = threadFactory.newThread(this::applyLoop);
+        pipeline.start();
+    }
+
+    // Apply the commands accepted so far, then stop. Commands submitted afterwards fail with RejectedExecutionException.
+    @Override
+    public void close() throws InterruptedException {
+        Thread running;
+        synchronized (this) {
+            if (state == State.STOPPED) {
+                return;
+            }
+            running = pipeline; // Also joined by a second close, so neither returns before the pipeline stops
+            state = State.CLOSING;
+        }
+        commandSignal.wakeAll();
+        if (running != null) {
+            running.join();
+        }
+        state = State.STOPPED;
+        // Never started, or accepted while the pipeline was finishing: nobody will apply these any more
+        Command<?> command;
+        while ((command = commands.poll()) != null) {
+            queued.decrementAndGet();
+            command.reject();
+        }
+    }
+
+    public OrderService service() {
+        return service;
+    }
+
+    // Commands accepted but not applied yet
+    public int queuedCommands() {
+        return Math.max(queued.get(), 0);
+    }
+
+    public CompletionStage<Order> createOrder(int building, int room) {
+        return submit(null, service -> service.createOrder(building, room));
+    }
+
+    public CompletionStage<Void> addPancakeToOrder(UUID orderId, Pancake pancake) {
+        return submit(null, service -> {
+            service.addPancakeToOrder(orderId, pancake);
+            return null;
+        });
+    }
+
+    public CompletionStage<Void> addPancakesToOrder(UUID orderId, Collection<Pancake> pancakes) {
+        List<Pancake> batch = List.copyOf(pancakes); // Copied now, the caller may reuse the collection
+        return submit(null, service -> {
+            service.addPancakesToOrder(orderId, batch);
+            return null;
+        });
+    }
+
+    public CompletionStage<Void> removePancakeFromOrder(UUID orderId, Pancake pancake) {
+        return submit(null, service -> {
+            service.removePancakeFromOrder(orderId, pancake);
+            return null;
+        });
+    }
+
+    public CompletionStage<Void> placeOrder(UUID orderId) {
+        return submit(Objects.requireNonNull(orderId, "orderId"), null);
+    }
+
+    public CompletionStage<Order> createAndPlaceOrder(int building, int room, Collection<Pancake> pancakes) {
+        List<Pancake> batch = List.copyOf(pancakes);
+        return submit(null, service -> service.createAndPlaceOrder(building, room, batch));
+    }
+
+    public CompletionStage<Void> cancelOrder(UUID orderId) {
+        return submit(null, service -> {
+            service.cancelOrder(orderId);
+            return null;
+        });
+    }
+
+    // Reads need no ordering against other callers and are answered right away from the calling thread
+    public CompletionStage<Optional<Order>> findOrder(UUID orderId) {
+        return CompletableFuture.completedFuture(service.findOrder(orderId));
+    }
+
+    // Helper: Enqueue a command, a placement when placeOrderId is set and an action otherwise
+    private <T> CompletionStage<T> submit(UUID placeOrderId, Function<OrderService, T> action) {
+        Command<T> command = new Command<>(placeOrderId, action);
+        if (state.compareTo(State.CLOSING) >= 0) {
+            command.reject();
+            return command.result;
+        }
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            command.result.completeExceptionally(
+                    new RejectedExecutionException("Order pipeline is full: " + queueCapacity + " commands queued."));
+            return command.result;
+        }
+        commands.add(command);
+        // close() sets STOPPED before failing what is left, so a command added after that is failed here instead
+        if (state == State.STOPPED && commands.remove(command)) {
+            queued.decrementAndGet();
+            command.reject();
+            return command.result;
+        }
+        commandSignal.signal(1);
+        return command.result;
+    }
+
+    private void applyLoop() {
+        List<Command<?>> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                // Step 1: Take up to batchSize commands in arrival order
+                Command<?> command;
+                while (batch.size() < batchSize && (command = commands.poll()) != null) {
+                    batch.add(command);
+                }
+                if (!batch.isEmpty()) {
+                    queued.addAndGet(-batch.size());
+                    // Step 2: Apply them, and complete each caller's stage
+                    apply(batch);
+                    batch.clear();
+                } else if (state != State.RUNNING) {
+                    return; // Closing and nothing left to apply
+                } else {
+                    commandSignal.await(() -> !commands.isEmpty(), IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            stop(e, batch);
+            throw e; // Still reaches the thread's uncaught exception handler
+        }
+    }
+
+    // Helper: Fail the rest of the batch and everything queued, and reject what is submitted from now on
+    private void stop(Throwable cause, List<Command<?>> batch) {
+        synchronized (this) {
+            state = State.STOPPED; // submit() fails a command it added after this, like after close()
+        }
+        RejectedExecutionException stopped = new RejectedExecutionException("Order pipeline stopped after an error.", cause);
+        for (Command<?> command : batch) {
+            command.result.completeExceptionally(stopped); // No effect on stages already completed
+        }
+        Command<?> command;
+        while ((command = commands.poll()) != null) {
+            queued.decrementAndGet();
+            command.result.completeExceptionally(stopped);
+        }
+    }
+
+    // Helper: Apply a batch, grouping each run of consecutive placements into one hand-off to the kitchen
+    private void apply(List<Command<?>> batch) {
+        int i = 0;
+        while (i < batch.size()) {
+            Command<?> command = batch.get(i);
+            if (command.placeOrderId == null) {
+                command.run(service);
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            while (end < batch.size() && batch.get(end).placeOrderId != null) {
+                end++;
+            }
+            place(batch.subList(i, end));
+            i = end;
+        }
+    }
+
+    private void place(List<Command<?>> placements) {
+        if (placements.size() == 1) {
+            placements.get(0).run(service);
+            return;
+        }
+        List<UUID> orderIds = new ArrayList<>(placements.size());
+        for (Command<?> placement : placements) {
+            orderIds.add(placement.placeOrderId);
+        }
+        RuntimeException[] failures;
+        try {
+            failures = service.placeOrdersEach(orderIds);
+        } catch (RuntimeException e) {
+            placements.forEach(placement -> placement.result.completeExceptionally(e));
+            return;
+        } catch (Error e) {
+            placements.forEach(placement -> placement.result.completeExceptionally(e));
+            throw e;
+        }
+        for (int i = 0; i < failures.length; i++) {
+            CompletableFuture<?> result = placements.get(i).result;
+            if (failures[i] == null) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(failures[i]);
+            }
+        }
+    }
+
+    private static final class Command<T> {
+        final UUID placeOrderId; // Set for placements, which a batch applies together
+        final Function<OrderService, T> action;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Command(UUID placeOrderId, Function<OrderService, T> action) {
+            this.placeOrderId = placeOrderId;
+            this.action = action;
+        }
+
+        void run(OrderService service) {
+            try {
+                result.complete(placeOrderId != null ? placeOne(service) : action.apply(service));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } catch (Error e) {
+                result.completeExceptionally(e);
+                throw e; // Stops the pipeline, see applyLoop()
+            }
+        }
+
+        void reject() {
+            result.completeExceptionally(new RejectedExecutionException("Order pipeline is closed."));
+        }
+
+        private T placeOne(OrderService service) {
+            service.placeOrder(placeOrderId);
+            return null;
+        }
+    }
+
+    public static class Builder {
+        private final OrderService service;
+        private int batchSize = 64;
+        private int queueCapacity = 1 << 16;
+        private ThreadFactory threadFactory;
+
+        public Builder(OrderService service) {
+            this.service = Objects.requireNonNull(service, "service");
+        }
+
+        // Most commands applied before the pipeline checks the queue again
+        public Builder batchSize(int batchSize) {
+            this.batchSize = requirePositive(batchSize, "Batch size");
+            return this;
+        }
+
+        // Most commands waiting to be applied; further ones fail right away with RejectedExecutionException
+        public Builder queueCapacity(int queueCapacity) {
+            this.queueCapacity = requirePositive(queueCapacity, "Queue capacity");
+            return this;
+        }
+
+        // Defaults to a virtual thread when available, a daemon platform thread otherwise
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        public AsyncPancakeService build() {
+            return new AsyncPancakeService(this);
+        }
+
+        private static int requirePositive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive: " + value);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.pancakelab.service;
+
+/**
+ * Pending order expiry counters of a {@link PancakeService}.
+ *
+ * @param expiredOrders  pending orders canceled because they outlived the TTL
+ * @param trackedOrders  orders still on the timer wheel, including ones placed or canceled since they were created
+ */
+public record ExpiryStats(long expiredOrders, int trackedOrders) {
+    static final ExpiryStats DISABLED = new ExpiryStats(0, 0);
+
+    public ExpiryStats plus(ExpiryStats other) {
+        return new ExpiryStats(expiredOrders + other.expiredOrders, trackedOrders + other.trackedOrders);
+    }
+}
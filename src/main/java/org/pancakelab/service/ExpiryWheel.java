@@ -0,0 +1,114 @@
+package org.pancakelab.service;
+
+import org.pancakelab.model.Order;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Hashed timer wheel for pending order expiry. Scheduling appends to the slot of the order's deadline tick, and a
+ * sweep only visits the slots of the ticks that passed since the previous one, so neither scans all pending orders.
+ * Orders placed or canceled in the meantime are not unlinked; the sweep drops them when their slot comes up.
+ */
+final class ExpiryWheel {
+    static final int SLOTS = 512;
+
+    private final Queue<Entry>[] slots;
+    private final long ttlNanos;
+    private final long tickNanos;
+    private final long startNanos;
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private final AtomicInteger scheduled = new AtomicInteger();
+    private final AtomicLong expired = new AtomicLong();
+    private volatile long nextSweepNanos;
+    private long sweptTick; // Last tick swept, guarded by sweepLock
+
+    @SuppressWarnings("unchecked")
+    ExpiryWheel(Duration ttl, long nowNanos) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Pending order TTL must be positive. Provided: " + ttl);
+        }
+        this.ttlNanos = ttl.toNanos();
+        // Half a revolution covers the TTL, so a deadline is swept at most one tick late and never laps the wheel
+        this.tickNanos = Math.max(1, ttlNanos / (SLOTS / 2));
+        this.startNanos = nowNanos;
+        this.nextSweepNanos = nowNanos + tickNanos;
+        this.slots = (Queue<Entry>[]) new Queue<?>[SLOTS];
+        for (int i = 0; i < SLOTS; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    void schedule(Order order, long nowNanos) {
+        long deadlineTick = tick(nowNanos + ttlNanos) + 1; // Round up, never expire early
+        slots[(int) (deadlineTick & (SLOTS - 1))].add(new Entry(order, deadlineTick));
+        scheduled.incrementAndGet();
+    }
+
+    // Cheap enough to call on every create: a single volatile read until the next tick is due
+    boolean due(long nowNanos) {
+        return nowNanos - nextSweepNanos >= 0;
+    }
+
+    // Offer every order whose deadline passed to expire, which returns true when it actually expired the order.
+    // Returns the number expired; 0 right away when another thread is already sweeping.
+    int advance(long nowNanos, Predicate<Order> expire) {
+        if (!sweepLock.tryLock()) {
+            return 0;
+        }
+        try {
+            long nowTick = tick(nowNanos);
+            // Step 1: Visit each passed slot once, even when sweeps lagged by more than a revolution
+            long from = Math.max(sweptTick + 1, nowTick - SLOTS + 1);
+            int count = 0;
+            for (long t = from; t <= nowTick; t++) {
+                count += sweep(slots[(int) (t & (SLOTS - 1))], nowTick, expire);
+            }
+            // Step 2: Remember where to resume
+            sweptTick = Math.max(sweptTick, nowTick);
+            nextSweepNanos = startNanos + (sweptTick + 1) * tickNanos;
+            expired.addAndGet(count);
+            return count;
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    long expiredCount() {
+        return expired.get();
+    }
+
+    int scheduledCount() {
+        return Math.max(scheduled.get(), 0);
+    }
+
+    // Helper: Expire due entries of one slot, entries due in a later revolution stay
+    private int sweep(Queue<Entry> slot, long nowTick, Predicate<Order> expire) {
+        int count = 0;
+        for (Iterator<Entry> it = slot.iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.deadlineTick() > nowTick) {
+                continue;
+            }
+            it.remove();
+            scheduled.decrementAndGet();
+            if (expire.test(entry.order())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long tick(long nanos) {
+        return (nanos - startNanos) / tickNanos;
+    }
+
+    private record Entry(Order order, long deadlineTick) {
+    }
+}
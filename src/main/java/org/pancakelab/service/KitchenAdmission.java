@@ -0,0 +1,153 @@
+package org.pancakelab.service;
+
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Counts the kitchen backlog, placed orders not yet prepared or canceled, and admits new ones while it is below
+ * capacity. A slot is reserved before an order is placed and released once it is prepared or canceled, so the
+ * backlog never exceeds capacity. Without a capacity every order is admitted and the count is only reported.
+ */
+final class KitchenAdmission {
+    private static final long UNKNOWN_DRAIN_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MIN_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final Comparator<Ranked> LOWEST_FIRST = Comparator.comparingInt(Ranked::priority)
+            .thenComparing(Comparator.comparingLong(Ranked::sequence).reversed());
+
+    private final int capacity;
+    private final OverloadPolicy policy;
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final WorkSignal freed = new WorkSignal();
+    private final NavigableSet<Ranked> byPriority; // Only when shedding; may hold orders already gone, see track
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile long lastPreparedNanos;
+    private volatile long drainNanos; // Moving average time between preparations, a hint only
+
+    KitchenAdmission(int capacity, OverloadPolicy policy) {
+        this.capacity = capacity;
+        this.policy = policy;
+        this.byPriority = policy.mode() == OverloadPolicy.Mode.SHED_LOWEST_PRIORITY
+                ? new ConcurrentSkipListSet<>(LOWEST_FIRST)
+                : null;
+    }
+
+    static KitchenAdmission unbounded() {
+        return new KitchenAdmission(Integer.MAX_VALUE, OverloadPolicy.reject());
+    }
+
+    // Reserve a slot for order or throw OrderRejectedException. shed cancels a waiting order, false if it was gone.
+    void admit(Order order, Predicate<Order> shed) {
+        long deadline = 0;
+        while (true) {
+            int current = backlog.get();
+            if (current < capacity) {
+                if (backlog.compareAndSet(current, current + 1)) {
+                    return;
+                }
+                continue;
+            }
+            switch (policy.mode()) {
+                case REJECT -> throw rejected(order);
+                case BLOCK -> {
+                    if (deadline == 0) {
+                        deadline = System.nanoTime() + policy.timeout().toNanos();
+                    }
+                    if (!awaitRoom(deadline - System.nanoTime())) {
+                        throw rejected(order);
+                    }
+                }
+                case SHED_LOWEST_PRIORITY -> {
+                    if (!shedFor(order, shed)) {
+                        throw rejected(order);
+                    }
+                }
+            }
+        }
+    }
+
+    // Make an admitted order a candidate for shedding, once it is placed
+    void track(Order order) {
+        if (byPriority == null) {
+            return;
+        }
+        byPriority.add(new Ranked(policy.priority().applyAsInt(order), sequence.incrementAndGet(), order));
+        // Prepared and canceled orders are not unlinked one by one; purge them once per capacity placements
+        if (sequence.get() % capacity == 0) {
+            byPriority.removeIf(ranked -> ranked.order().getStatus() != OrderStatus.CREATED);
+        }
+    }
+
+    // Count orders placed before a restart, which may exceed capacity until the kitchen catches up
+    void restore(Order order) {
+        backlog.incrementAndGet();
+        track(order);
+    }
+
+    void release(boolean prepared) {
+        backlog.decrementAndGet();
+        if (prepared) {
+            long now = System.nanoTime();
+            long last = lastPreparedNanos;
+            lastPreparedNanos = now;
+            if (last != 0) {
+                long average = drainNanos;
+                drainNanos = average == 0 ? now - last : average + (now - last - average) / 8;
+            }
+        }
+        freed.signal(1);
+    }
+
+    int backlog() {
+        return Math.max(backlog.get(), 0);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    private boolean awaitRoom(long nanos) {
+        try {
+            return nanos > 0 && freed.await(() -> backlog.get() < capacity, nanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Helper: Cancel the lowest-ranked waiting order if the new one outranks it
+    private boolean shedFor(Order order, Predicate<Order> shed) {
+        int priority = policy.priority().applyAsInt(order);
+        Ranked lowest;
+        while ((lowest = byPriority.pollFirst()) != null) {
+            if (lowest.priority() >= priority) {
+                byPriority.add(lowest);
+                return false;
+            }
+            if (shed.test(lowest.order())) {
+                return true; // Its slot was released, the caller retries the reservation
+            }
+            // Already prepared or canceled, drop the stale entry and look again
+        }
+        return false;
+    }
+
+    private OrderRejectedException rejected(Order order) {
+        long average = drainNanos;
+        long perSlot = average == 0 ? UNKNOWN_DRAIN_NANOS : average;
+        long excess = Math.max(1, backlog.get() - capacity + 1);
+        Duration retryAfter = Duration.ofNanos(Math.max(MIN_RETRY_NANOS, perSlot * excess));
+        return new OrderRejectedException(order.getId(), capacity, retryAfter);
+    }
+
+    private record Ranked(int priority, long sequence, Order order) {
+    }
+}
@@ -0,0 +1,199 @@
+package org.pancakelab.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Background kitchen that moves placed orders through preparation and delivery without anyone calling
+ * {@link PancakeService#prepareOrder()} or {@link PancakeService#deliverOrder()}. Idle workers park until
+ * new work is enqueued and then drain it in batches.
+ */
+@SuppressWarnings("try") // close() waits for the worker threads and so may be interrupted
+public class KitchenEngine implements AutoCloseable {
+    private static final long IDLE_WAIT_MILLIS = 100; // Upper bound on noticing a shutdown that raced with parking
+
+    private enum State { NEW, RUNNING, DRAINING, STOPPED }
+
+    private final OrderService service;
+    private final int preparationWorkers;
+    private final int deliveryWorkers;
+    private final int batchSize;
+    private final ThreadFactory threadFactory;
+    private final List<Thread> workers = new ArrayList<>();
+    private final LongAdder prepared = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final CountDownLatch preparersActive;
+    private volatile State state = State.NEW;
+
+    private KitchenEngine(Builder builder) {
+        this.service = builder.service;
+        this.preparationWorkers = builder.preparationWorkers;
+        this.deliveryWorkers = builder.deliveryWorkers;
+        this.batchSize = builder.batchSize;
+        this.threadFactory = builder.threadFactory != null ? builder.threadFactory : WorkerThreads.factory("kitchen");
+        this.preparersActive = new CountDownLatch(preparationWorkers);
+    }
+
+    public synchronized void start() {
+        if (state != State.NEW) {
+            throw new IllegalStateException("Kitchen engine already started.");
+        }
+        state = State.RUNNING;
+        for (int i = 0; i < preparationWorkers; i++) {
+            workers.add(threadFactory.newThread(this::prepareLoop));
+        }
+        for (int i = 0; i < deliveryWorkers; i++) {
+            workers.add(threadFactory.newThread(this::deliverLoop));
+        }
+        workers.forEach(Thread::start);
+    }
+
+    // Stop after the batches in progress; orders still queued stay in the service
+    public void stop() throws InterruptedException {
+        shutdown(State.STOPPED);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    // Finish every order placed so far, then stop. Returns false when the timeout passed first, the engine is
+    // stopped either way.
+    public boolean drainAndShutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        shutdown(State.DRAINING);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread worker : workers) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0 || !joined(worker, remaining)) {
+                stop();
+                return false;
+            }
+        }
+        state = State.STOPPED;
+        return true;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        stop();
+    }
+
+    public boolean isRunning() {
+        return state == State.RUNNING;
+    }
+
+    public long preparedCount() {
+        return prepared.sum();
+    }
+
+    public long deliveredCount() {
+        return delivered.sum();
+    }
+
+    private synchronized void shutdown(State target) {
+        if (state == State.NEW) {
+            state = State.STOPPED; // Never started, nothing to drain
+            return;
+        }
+        if (state != State.STOPPED) {
+            state = target;
+        }
+        service.wakeWorkers();
+    }
+
+    private static boolean joined(Thread worker, long millis) throws InterruptedException {
+        worker.join(millis);
+        return !worker.isAlive();
+    }
+
+    private boolean active() {
+        State current = state;
+        return current == State.RUNNING || current == State.DRAINING;
+    }
+
+    private void prepareLoop() {
+        try {
+            while (active()) {
+                int count = service.prepareOrders(batchSize);
+                if (count > 0) {
+                    prepared.add(count);
+                } else if (state == State.DRAINING) {
+                    return;
+                } else {
+                    service.awaitPlacedOrders(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            preparersActive.countDown();
+        }
+    }
+
+    private void deliverLoop() {
+        try {
+            while (active()) {
+                // Checked before delivering: once every preparer is done, an empty queue stays empty
+                boolean preparersDone = state == State.DRAINING && preparersActive.getCount() == 0;
+                int count = service.deliverOrders(batchSize);
+                if (count > 0) {
+                    delivered.add(count);
+                } else if (preparersDone) {
+                    return;
+                } else {
+                    service.awaitPreparedOrders(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static class Builder {
+        private final OrderService service;
+        private int preparationWorkers = 1;
+        private int deliveryWorkers = 1;
+        private int batchSize = 32;
+        private ThreadFactory threadFactory;
+
+        public Builder(OrderService service) {
+            this.service = service;
+        }
+
+        public Builder preparationWorkers(int preparationWorkers) {
+            this.preparationWorkers = requirePositive(preparationWorkers, "Preparation workers");
+            return this;
+        }
+
+        public Builder deliveryWorkers(int deliveryWorkers) {
+            this.deliveryWorkers = requirePositive(deliveryWorkers, "Delivery workers");
+            return this;
+        }
+
+        // Most orders a worker moves before checking for shutdown again
+        public Builder batchSize(int batchSize) {
+            this.batchSize = requirePositive(batchSize, "Batch size");
+            return this;
+        }
+
+        // Defaults to virtual threads when available, daemon platform threads otherwise
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        public KitchenEngine build() {
+            return new KitchenEngine(this);
+        }
+
+        private static int requirePositive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive: " + value);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.pancakelab.service;
+
+import org.pancakelab.model.Order;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * What kitchen and courier workers wait on: the signals behind the await methods and the futures of the async take
+ * methods. A {@link PancakeService} has its own; the shards of a {@link ShardedPancakeService} share one, so a worker
+ * of the whole service is woken and served by work in any shard.
+ */
+record KitchenWaiters(WorkSignal placed,
+                      WorkSignal prepared,
+                      Queue<CompletableFuture<Order>> prepareWaiters,
+                      Queue<CompletableFuture<Order>> deliverWaiters) {
+
+    KitchenWaiters() {
+        this(new WorkSignal(), new WorkSignal(), new ConcurrentLinkedQueue<>(), new ConcurrentLinkedQueue<>());
+    }
+}
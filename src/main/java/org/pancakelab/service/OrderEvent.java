@@ -0,0 +1,78 @@
+package org.pancakelab.service;
+
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+import org.pancakelab.model.Pancake;
+
+import java.util.UUID;
+
+/**
+ * One structured {@link OrderLog} entry. Only the fields needed to render the log line are captured, the text
+ * itself is built on demand by {@link #appendTo(StringBuilder)}.
+ *
+ * @param sequence     position in the event log, or in a subscriber's stream for {@link OrderEventPublisher}
+ * @param pancake      the pancake added or removed, {@code null} for order level events
+ * @param timestamp    wall clock time in epoch milliseconds
+ */
+public record OrderEvent(long sequence,
+                         OrderEventType type,
+                         UUID orderId,
+                         int building,
+                         int room,
+                         int pancakeCount,
+                         Pancake pancake,
+                         long timestamp) {
+
+    static OrderEvent of(long sequence, OrderEventType type, Order order, Pancake pancake) {
+        return new OrderEvent(sequence, type, order.getId(), order.getBuilding(), order.getRoom(),
+                order.getPancakes().size(), pancake, System.currentTimeMillis());
+    }
+
+    OrderEvent withSequence(long sequence) {
+        return new OrderEvent(sequence, type, orderId, building, room, pancakeCount, pancake, timestamp);
+    }
+
+    // Status of the order once this event happened
+    public OrderStatus status() {
+        return switch (type) {
+            case PLACE -> OrderStatus.CREATED;
+            case PREPARE -> OrderStatus.PREPARED;
+            case DELIVER -> OrderStatus.DELIVERED;
+            case CANCEL, EXPIRE -> OrderStatus.CANCELED;
+            case CREATE, ADD_PANCAKE, REMOVE_PANCAKE, ADD_PANCAKES -> OrderStatus.INIT;
+        };
+    }
+
+    public StringBuilder appendTo(StringBuilder out) {
+        switch (type) {
+            case ADD_PANCAKE -> out.append("Added pancake with description '").append(pancake).append("' ")
+                    .append("to order ").append(orderId).append(" containing ").append(pancakeCount).append(" pancakes, ")
+                    .append("for building ").append(building).append(", room ").append(room).append(".\n");
+            case REMOVE_PANCAKE -> out.append("Removed pancake with description '").append(pancake).append("' ")
+                    .append("from order ").append(orderId).append(" now containing ").append(pancakeCount).append(" pancakes, ")
+                    .append("for building ").append(building).append(", room ").append(room).append(".\n");
+            case ADD_PANCAKES -> out.append("Added pancakes to order ").append(orderId).append(" now containing ")
+                    .append(pancakeCount).append(" pancakes, ")
+                    .append("for building ").append(building).append(", room ").append(room).append(".\n");
+            case CANCEL -> out.append("Cancelled order ").append(orderId).append(" with ").append(pancakeCount).append(" pancake(s) ")
+                    .append("for building ").append(building).append(", room ").append(room).append(".\n");
+            case EXPIRE -> out.append("Expired order ").append(orderId).append(" with ").append(pancakeCount).append(" pancake(s) ")
+                    .append("for building ").append(building).append(", room ").append(room).append(", never placed.\n");
+            case CREATE -> appendOrderLine(out, "has been created.\n");
+            case PLACE -> appendOrderLine(out, "has been placed.\n");
+            case PREPARE -> appendOrderLine(out, "has been prepared.\n");
+            case DELIVER -> appendOrderLine(out, "out for delivery.\n");
+        }
+        return out;
+    }
+
+    private void appendOrderLine(StringBuilder out, String suffix) {
+        out.append("Order ").append(orderId).append(" with ").append(pancakeCount).append(" pancake(s) ")
+                .append("for building ").append(building).append(", room ").append(room).append(' ').append(suffix);
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(160)).toString();
+    }
+}
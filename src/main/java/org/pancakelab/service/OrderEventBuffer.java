@@ -0,0 +1,55 @@
+package org.pancakelab.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded multi-producer ring of {@link OrderEvent}s. Producers claim a sequence with a single atomic increment and
+ * publish into its slot, so recording never blocks. Once the ring is full the oldest events are overwritten.
+ */
+public class OrderEventBuffer {
+    private final AtomicReferenceArray<OrderEvent> slots;
+    private final AtomicLong cursor = new AtomicLong();
+    private final int mask;
+
+    public OrderEventBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two. Provided: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public long nextSequence() {
+        return cursor.getAndIncrement();
+    }
+
+    public void publish(OrderEvent event) {
+        slots.lazySet((int) event.sequence() & mask, event);
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    // Total number of events ever recorded, including the ones already overwritten
+    public long recorded() {
+        return cursor.get();
+    }
+
+    // Events still held by the ring, oldest first. Slots overwritten or not yet published during the scan are skipped.
+    public List<OrderEvent> snapshot() {
+        long end = cursor.get();
+        long start = Math.max(0, end - slots.length());
+        List<OrderEvent> events = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            OrderEvent event = slots.get((int) sequence & mask);
+            if (event != null && event.sequence() == sequence) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+}
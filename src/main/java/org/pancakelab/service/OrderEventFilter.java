@@ -0,0 +1,50 @@
+package org.pancakelab.service;
+
+import org.pancakelab.model.OrderStatus;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Which events an {@link OrderEventPublisher} subscriber receives. A building or room of 0 matches any; an event
+ * matches the statuses when the order is in one of them after the event.
+ */
+public record OrderEventFilter(int building, int room, Set<OrderStatus> statuses) {
+    private static final OrderEventFilter ALL = new OrderEventFilter(0, 0, EnumSet.allOf(OrderStatus.class));
+
+    public OrderEventFilter {
+        if (room != 0 && building == 0) {
+            throw new IllegalArgumentException("A room filter needs a building. Provided room: " + room);
+        }
+        statuses = Collections.unmodifiableSet(statuses.isEmpty() ? EnumSet.noneOf(OrderStatus.class) : EnumSet.copyOf(statuses));
+    }
+
+    public static OrderEventFilter all() {
+        return ALL;
+    }
+
+    public static OrderEventFilter building(int building) {
+        return new OrderEventFilter(building, 0, ALL.statuses);
+    }
+
+    // E.g. a room terminal
+    public static OrderEventFilter room(int building, int room) {
+        return new OrderEventFilter(building, room, ALL.statuses);
+    }
+
+    // E.g. a kitchen display following OrderStatus.CREATED and OrderStatus.PREPARED
+    public static OrderEventFilter status(OrderStatus first, OrderStatus... rest) {
+        return new OrderEventFilter(0, 0, EnumSet.of(first, rest));
+    }
+
+    public OrderEventFilter withStatuses(OrderStatus first, OrderStatus... rest) {
+        return new OrderEventFilter(building, room, EnumSet.of(first, rest));
+    }
+
+    public boolean matches(OrderEvent event) {
+        return (building == 0 || building == event.building())
+                && (room == 0 || room == event.room())
+                && statuses.contains(event.status());
+    }
+}
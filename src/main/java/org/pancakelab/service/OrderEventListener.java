@@ -0,0 +1,44 @@
+package org.pancakelab.service;
+
+import org.pancakelab.model.Order;
+import org.pancakelab.model.Pancake;
+
+import java.util.List;
+
+/**
+ * Notified by {@link PancakeService} after every successful order transition.
+ * Implementations run on the caller's thread and must not block.
+ */
+@FunctionalInterface
+public interface OrderEventListener {
+    /**
+     * @param pancake the pancake added or removed, {@code null} for order level events
+     */
+    void onEvent(OrderEventType type, Order order, Pancake pancake);
+
+    /**
+     * Called instead of {@link #onEvent} for pancakes added in one batch, once they are all in the order.
+     * The default reports each of them as an {@link OrderEventType#ADD_PANCAKE} event.
+     */
+    default void onPancakesAdded(Order order, List<Pancake> pancakes) {
+        for (Pancake pancake : pancakes) {
+            onEvent(OrderEventType.ADD_PANCAKE, order, pancake);
+        }
+    }
+
+    /**
+     * What the service calls: {@link #onEvent(OrderEventType, Order, Pancake)} plus the order state the transition
+     * installed. By the time a listener runs, another thread may already have changed the order again, so listeners
+     * that persist pancake counts or revisions should read them from {@code state}. Defaults to the call without it.
+     */
+    default void onEvent(OrderEventType type, Order order, Order.Snapshot state, Pancake pancake) {
+        onEvent(type, order, pancake);
+    }
+
+    /**
+     * {@link #onPancakesAdded(Order, List)} plus the order state the batch installed, which ends with these pancakes.
+     */
+    default void onPancakesAdded(Order order, Order.Snapshot state, List<Pancake> pancakes) {
+        onPancakesAdded(order, pancakes);
+    }
+}
@@ -0,0 +1,182 @@
+package org.pancakelab.service;
+
+import org.pancakelab.model.Order;
+import org.pancakelab.model.Pancake;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Push stream of order events for displays and terminals, fed by registering it as a listener:
+ * {@code new PancakeService.Builder().addListener(publisher)}. Each subscriber has its own filter and its own
+ * bounded buffer, delivered on the executor. Events are offered without waiting: when a subscriber's buffer is full
+ * the event is dropped for that subscriber alone and counted, so a slow display never stalls the order path.
+ * Subscribers that need every event should request generously and watch {@link OrderEvent#sequence()}: it counts the
+ * events offered to that subscriber alone, in delivery order, so a gap is always a drop and never a filtered event.
+ */
+public class OrderEventPublisher implements Flow.Publisher<OrderEvent>, OrderEventListener, AutoCloseable {
+    public static final int DEFAULT_BUFFER_CAPACITY = Flow.defaultBufferSize();
+
+    private final Executor executor;
+    private final int bufferCapacity;
+    private final LongAdder dropped = new LongAdder();
+    private volatile Subscription[] subscriptions = new Subscription[0]; // Copy on write, read on every event
+    private volatile boolean closed;
+
+    public OrderEventPublisher() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BUFFER_CAPACITY);
+    }
+
+    // bufferCapacity is per subscriber, rounded up to a power of two
+    public OrderEventPublisher(Executor executor, int bufferCapacity) {
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("Buffer capacity must be positive. Provided: " + bufferCapacity);
+        }
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super OrderEvent> subscriber) {
+        subscribe(subscriber, OrderEventFilter.all());
+    }
+
+    public synchronized void subscribe(Flow.Subscriber<? super OrderEvent> subscriber, OrderEventFilter filter) {
+        Objects.requireNonNull(filter, "filter");
+        Subscription subscription = new Subscription(filter, new SubmissionPublisher<>(executor, bufferCapacity));
+        subscription.buffer.subscribe(new Subscriber(subscriber, subscription));
+        if (closed) {
+            subscription.buffer.close();
+            return;
+        }
+        List<Subscription> next = new ArrayList<>(List.of(subscriptions));
+        next.add(subscription);
+        subscriptions = next.toArray(new Subscription[0]);
+    }
+
+    @Override
+    public void onEvent(OrderEventType type, Order order, Pancake pancake) {
+        offer(type, order, pancake);
+    }
+
+    // One event for the whole batch, displays only need the new pancake count
+    @Override
+    public void onPancakesAdded(Order order, List<Pancake> pancakes) {
+        offer(OrderEventType.ADD_PANCAKES, order, null);
+    }
+
+    // Events dropped because a subscriber's buffer was full, over all subscribers
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    public int subscriberCount() {
+        return subscriptions.length;
+    }
+
+    // Complete every subscriber once it has consumed what is already buffered
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (Subscription subscription : subscriptions) {
+            subscription.buffer.close();
+        }
+        subscriptions = new Subscription[0];
+    }
+
+    private void offer(OrderEventType type, Order order, Pancake pancake) {
+        Subscription[] current = subscriptions;
+        if (current.length == 0) {
+            return; // Nothing is built until someone listens
+        }
+        OrderEvent event = OrderEvent.of(0, type, order, pancake); // Numbered per subscriber below
+        boolean canceled = false;
+        for (Subscription subscription : current) {
+            if (subscription.canceled) {
+                canceled = true;
+            } else if (subscription.filter.matches(event)) {
+                subscription.offer(event, dropped);
+            }
+        }
+        if (canceled) {
+            removeCanceled();
+        }
+    }
+
+    // Helper: Forget subscribers that canceled their subscription
+    private synchronized void removeCanceled() {
+        List<Subscription> live = new ArrayList<>();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.canceled) {
+                subscription.buffer.close();
+            } else {
+                live.add(subscription);
+            }
+        }
+        subscriptions = live.toArray(new Subscription[0]);
+    }
+
+    private static final class Subscription {
+        private final OrderEventFilter filter;
+        private final SubmissionPublisher<OrderEvent> buffer;
+        private volatile boolean canceled; // Set once the subscriber cancels or its stream ends
+        private long sequence; // Guarded by this, numbers only the events offered to this subscriber
+
+        private Subscription(OrderEventFilter filter, SubmissionPublisher<OrderEvent> buffer) {
+            this.filter = filter;
+            this.buffer = buffer;
+        }
+
+        // Numbering and buffering happen together, so numbers arrive in order. Offering never blocks, the lock is
+        // held only while the event is queued or dropped.
+        private synchronized void offer(OrderEvent event, LongAdder dropped) {
+            buffer.offer(event.withSequence(++sequence), (subscriber, item) -> {
+                dropped.increment();
+                return false; // Never retry, the order path must not wait
+            });
+        }
+    }
+
+    // Helper: Passes everything through and marks the subscription canceled as soon as the subscriber is done
+    private record Subscriber(Flow.Subscriber<? super OrderEvent> delegate, Subscription subscription)
+            implements Flow.Subscriber<OrderEvent> {
+        @Override
+        public void onSubscribe(Flow.Subscription upstream) {
+            delegate.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    upstream.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    subscription.canceled = true;
+                    upstream.cancel();
+                }
+            });
+        }
+
+        @Override
+        public void onNext(OrderEvent event) {
+            delegate.onNext(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            subscription.canceled = true;
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            subscription.canceled = true;
+            delegate.onComplete();
+        }
+    }
+}
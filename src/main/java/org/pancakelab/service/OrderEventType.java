@@ -0,0 +1,13 @@
+package org.pancakelab.service;
+
+public enum OrderEventType {
+    CREATE,
+    ADD_PANCAKE,
+    REMOVE_PANCAKE,
+    PLACE,
+    PREPARE,
+    DELIVER,
+    CANCEL,
+    ADD_PANCAKES, // A batch added in one call, OrderLog only: listeners and the journal see one ADD_PANCAKE per pancake
+    EXPIRE // A pending order canceled after its TTL, OrderLog only: listeners and the journal see CANCEL
+}
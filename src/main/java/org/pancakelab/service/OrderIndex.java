@@ -0,0 +1,93 @@
+package org.pancakelab.service;
+
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary indexes over the orders a {@link PancakeService} holds, pending and live: by building, by building and
+ * room, and by status. Orders are added before the service makes them visible and removed when it lets go of them.
+ * Status moves follow the service's transition events, which are published right after the status changed and
+ * before the order is handed to the next stage. Queries copy one set and cost time proportional to the result.
+ */
+final class OrderIndex {
+    private final Map<Integer, Set<Order>> byBuilding = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Order>> byRoom = new ConcurrentHashMap<>(); // Empty sets stay, rooms are few
+    private final Map<OrderStatus, Set<Order>> byStatus = new EnumMap<>(OrderStatus.class); // Filled once, then only read
+
+    OrderIndex() {
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    // Index an order under its current status
+    void add(Order order) {
+        byBuilding.computeIfAbsent(order.getBuilding(), key -> ConcurrentHashMap.newKeySet()).add(order);
+        byRoom.computeIfAbsent(roomKey(order.getBuilding(), order.getRoom()), key -> ConcurrentHashMap.newKeySet()).add(order);
+        byStatus.get(order.getStatus()).add(order);
+    }
+
+    // Follow a transition of an indexed order. Canceled pending orders are removed instead, the service drops them.
+    void apply(OrderEventType type, Order order) {
+        switch (type) {
+            case PLACE -> move(order, OrderStatus.INIT, OrderStatus.CREATED);
+            case PREPARE -> move(order, OrderStatus.CREATED, OrderStatus.PREPARED);
+            case DELIVER -> move(order, OrderStatus.PREPARED, OrderStatus.DELIVERED);
+            case CANCEL -> move(order, OrderStatus.CREATED, OrderStatus.CANCELED);
+            default -> {
+                // Creation is indexed with add, pancake changes do not touch any index
+            }
+        }
+    }
+
+    // Drop an order the service no longer holds, e.g. once it is archived
+    void remove(Order order) {
+        byStatus.values().forEach(orders -> orders.remove(order));
+        Set<Order> building = byBuilding.get(order.getBuilding());
+        if (building != null) {
+            building.remove(order);
+        }
+        Set<Order> room = byRoom.get(roomKey(order.getBuilding(), order.getRoom()));
+        if (room != null) {
+            room.remove(order);
+        }
+    }
+
+    List<Order> byBuilding(int building) {
+        Set<Order> orders = byBuilding.get(building);
+        return orders == null ? List.of() : List.copyOf(orders);
+    }
+
+    List<Order> byRoom(int building, int room) {
+        Set<Order> orders = byRoom.get(roomKey(building, room));
+        return orders == null ? List.of() : List.copyOf(orders);
+    }
+
+    // Orders caught between two status sets are reported under their actual status only
+    List<Order> byStatus(OrderStatus status) {
+        return byStatus.get(status).stream()
+                .filter(order -> order.getStatus() == status)
+                .toList();
+    }
+
+    // Approximate while orders are moving between statuses
+    int count(OrderStatus status) {
+        return byStatus.get(status).size();
+    }
+
+    // Helper: Add to the new status first, so a status query never misses an order in the middle of a transition
+    private void move(Order order, OrderStatus from, OrderStatus to) {
+        byStatus.get(to).add(order);
+        byStatus.get(from).remove(order);
+    }
+
+    private static long roomKey(int building, int room) {
+        return ((long) building << 32) | (room & 0xFFFFFFFFL);
+    }
+}
@@ -3,60 +3,77 @@ package org.pancakelab.service;
 import org.pancakelab.model.Order;
 import org.pancakelab.model.Pancake;
 
+import java.io.IOException;
 import java.util.List;
 
+/**
+ * Records order lifecycle events into a bounded {@link OrderEventBuffer}. Events are stored in structured form and
+ * only rendered to text by {@link #getLog()} or {@link #exportLog(Appendable)}.
+ */
 public class OrderLog {
-    private static final StringBuilder log = new StringBuilder();
+    public static final int CAPACITY = 1 << 16;
+
+    private static volatile OrderEventBuffer events = new OrderEventBuffer(CAPACITY);
 
     public static void logAddPancake(Order order, Pancake pancake) {
-        int pancakeCount = order.getPancakes().size();
+        record(OrderEventType.ADD_PANCAKE, order, pancake);
+    }
 
-        log.append("Added pancake with description '%s' ".formatted(pancake))
-                .append("to order %s containing %d pancakes, ".formatted(order.getId(), pancakeCount))
-                .append("for building %d, room %d.\n".formatted(order.getBuilding(), order.getRoom()));
+    // One entry for a whole batch, the order's pancakes describe what was added
+    public static void logAddPancakes(Order order) {
+        record(OrderEventType.ADD_PANCAKES, order, null);
     }
 
     public static void logRemovePancake(Order order, Pancake pancake) {
-        int pancakeCount = order.getPancakes().size();
-
-        log.append("Removed pancake with description '%s' ".formatted(pancake))
-                .append("from order %s now containing %d pancakes, ".formatted(order.getId(), pancakeCount))
-                .append("for building %d, room %d.\n".formatted(order.getBuilding(), order.getRoom()));
+        record(OrderEventType.REMOVE_PANCAKE, order, pancake);
     }
 
     public static void logCancelOrder(Order order) {
-        int pancakeCount = order.getPancakes().size();
+        record(OrderEventType.CANCEL, order, null);
+    }
 
-        log.append("Cancelled order %s with %d pancake(s) ".formatted(order.getId(), pancakeCount))
-                .append("for building %d, room %d.\n".formatted(order.getBuilding(), order.getRoom()));
+    public static void logExpireOrder(Order order) {
+        record(OrderEventType.EXPIRE, order, null);
     }
 
     public static void logDeliverOrder(Order order) {
-        int pancakeCount = order.getPancakes().size();
-
-        log.append("Order %s with %d pancake(s) ".formatted(order.getId(), pancakeCount))
-                .append("for building %d, room %d out for delivery.\n".formatted(order.getBuilding(), order.getRoom()));
+        record(OrderEventType.DELIVER, order, null);
     }
 
     public static void logPlaceOrder(Order order) {
-        int pancakeCount = order.getPancakes().size();
-
-        log.append("Order %s with %d pancake(s) ".formatted(order.getId(), pancakeCount))
-                .append("for building %d, room %d has been placed.\n".formatted(order.getBuilding(), order.getRoom()));
+        record(OrderEventType.PLACE, order, null);
     }
 
     public static void logPrepareOrder(Order order) {
-        int pancakeCount = order.getPancakes().size();
+        record(OrderEventType.PREPARE, order, null);
+    }
+
+    private static void record(OrderEventType type, Order order, Pancake pancake) {
+        OrderEventBuffer buffer = events;
+        buffer.publish(OrderEvent.of(buffer.nextSequence(), type, order, pancake));
+    }
 
-        log.append("Order %s with %d pancake(s) ".formatted(order.getId(), pancakeCount))
-                .append("for building %d, room %d has been prepared.\n".formatted(order.getBuilding(), order.getRoom()));
+    public static List<OrderEvent> getEvents() {
+        return events.snapshot();
     }
 
     public static String getLog() {
+        StringBuilder log = new StringBuilder();
+        for (OrderEvent event : events.snapshot()) {
+            event.appendTo(log);
+        }
         return log.toString();
     }
 
+    public static void exportLog(Appendable out) throws IOException {
+        StringBuilder line = new StringBuilder(160);
+        for (OrderEvent event : events.snapshot()) {
+            line.setLength(0);
+            out.append(event.appendTo(line));
+        }
+    }
+
     public static void clearLog() {
-        log.setLength(0);
+        events = new OrderEventBuffer(CAPACITY);
     }
 }
@@ -0,0 +1,404 @@
+package org.pancakelab.service;
+
+import org.pancakelab.journal.JournalReader;
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+import org.pancakelab.model.Pancake;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Rebuilds the state of a {@link PancakeService} from the latest snapshot written by {@link SnapshotManager} plus
+ * the journal events recorded after it. Every journaled event carries the revision of the order state it installed
+ * ({@link Order.Snapshot#revision()}), and replay applies each order's events in revision order: events the fuzzy
+ * snapshot already reflects are skipped, and an event journaled ahead of one it followed, e.g. PLACE ahead of the
+ * last ADD_PANCAKE when listeners of two threads interleave, waits until the earlier one has been applied.
+ * <p>
+ * Orders are loaded straight into the service maps. Queues are rebuilt as append-only lists and an entry whose order
+ * has moved on is dropped when the queue is handed over, so replay never searches a queue. Each entry keeps the
+ * journal sequence of the event that queued it, so an event that waited for an earlier one still takes its place.
+ * <p>
+ * The shards of a {@link ShardedPancakeService} share one snapshot and one journal; each recovers with a filter that
+ * keeps only the orders it owns.
+ */
+final class OrderRecovery {
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final Ingredient[] INGREDIENTS = Ingredient.values();
+    private static final long SNAPSHOT = Long.MIN_VALUE; // Queue position of entries read from the snapshot
+
+    private final Map<UUID, Order> pendingOrders;
+    private final Map<UUID, Order> orders;
+    private final Path snapshot;
+    private final Predicate<UUID> owns;
+    private final ReplayQueue newOrders = new ReplayQueue();
+    private final ReplayQueue preparedOrders = new ReplayQueue();
+    private final ReplayQueue deliveredOrders = new ReplayQueue();
+    private final Map<UUID, TreeMap<Integer, Replayed>> waiting = new HashMap<>(); // Events ahead of their order
+
+    OrderRecovery(Map<UUID, Order> pendingOrders, Map<UUID, Order> orders, Path snapshot, Predicate<UUID> owns) {
+        this.pendingOrders = pendingOrders;
+        this.orders = orders;
+        this.snapshot = snapshot;
+        this.owns = owns;
+    }
+
+    // The most recent snapshot in a directory, or null when there is none
+    static Path latestSnapshot(Path snapshotDirectory) throws IOException {
+        List<Path> snapshots = SnapshotManager.snapshotFiles(snapshotDirectory);
+        return snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+    }
+
+    // Pending and placed order counts recorded in a snapshot header, used to presize the service maps
+    static int[] sizeHints(Path snapshot) throws IOException {
+        if (snapshot == null) {
+            return new int[]{16, 16};
+        }
+        try (SnapshotInput in = new SnapshotInput(FileChannel.open(snapshot))) {
+            in.readLong();
+            in.readInt();
+            in.readLong();
+            return new int[]{in.readInt(), in.readInt()};
+        }
+    }
+
+    void load(Path journalDirectory) throws IOException {
+        long journalSequence = snapshot == null ? 0 : loadSnapshot(snapshot);
+        try (JournalReader reader = JournalReader.open(journalDirectory, journalSequence)) {
+            while (reader.next()) {
+                apply(reader);
+            }
+        }
+        applyWaiting();
+    }
+
+    List<Order> newOrders() {
+        return newOrders.inStatus(OrderStatus.CREATED);
+    }
+
+    List<Order> preparedOrders() {
+        return preparedOrders.inStatus(OrderStatus.PREPARED);
+    }
+
+    List<Order> deliveredOrders() {
+        return deliveredOrders.inStatus(OrderStatus.DELIVERED);
+    }
+
+    // Load a snapshot and return the journal sequence to replay from
+    private long loadSnapshot(Path snapshot) throws IOException {
+        try (SnapshotInput in = new SnapshotInput(FileChannel.open(snapshot))) {
+            if (in.readLong() != SnapshotManager.MAGIC || in.readInt() != SnapshotManager.VERSION) {
+                throw new IOException("Not a supported order snapshot: " + snapshot);
+            }
+            long journalSequence = in.readLong();
+            in.readInt();
+            in.readInt();
+            while (in.readByte() != 0) {
+                // A pending order may have been placed or canceled while the snapshot was written
+                Order order = readOrder(in);
+                if (!owns.test(order.getId())) {
+                    continue;
+                }
+                if (order.getStatus() == OrderStatus.INIT) {
+                    pendingOrders.put(order.getId(), order);
+                } else if (order.getStatus() != OrderStatus.CANCELED) {
+                    orders.put(order.getId(), order);
+                }
+            }
+            while (in.readByte() != 0) {
+                Order order = readOrder(in);
+                if (!owns.test(order.getId())) {
+                    continue;
+                }
+                pendingOrders.remove(order.getId());
+                orders.put(order.getId(), order);
+            }
+            readQueue(in, newOrders, OrderStatus.CREATED);
+            readQueue(in, preparedOrders, OrderStatus.PREPARED);
+            readQueue(in, deliveredOrders, OrderStatus.DELIVERED);
+
+            // Orders that were between two queues while the snapshot was written go to the back of their queue
+            long queueable = orders.values().stream().filter(order -> order.getStatus() != OrderStatus.CANCELED).count();
+            if (queueable != newOrders.size() + preparedOrders.size() + deliveredOrders.size()) {
+                Set<Order> queued = Collections.newSetFromMap(new IdentityHashMap<>());
+                queued.addAll(newOrders.orders);
+                queued.addAll(preparedOrders.orders);
+                queued.addAll(deliveredOrders.orders);
+                for (Order order : orders.values()) {
+                    if (!queued.contains(order)) {
+                        enqueue(order);
+                    }
+                }
+            }
+            return journalSequence;
+        }
+    }
+
+    private void enqueue(Order order) {
+        switch (order.getStatus()) {
+            case CREATED -> newOrders.add(order, SNAPSHOT);
+            case PREPARED -> preparedOrders.add(order, SNAPSHOT);
+            case DELIVERED -> deliveredOrders.add(order, SNAPSHOT);
+            default -> {
+            }
+        }
+    }
+
+    private Order readOrder(SnapshotInput in) throws IOException {
+        UUID id = new UUID(in.readLong(), in.readLong());
+        int building = in.readInt();
+        int room = in.readInt();
+        OrderStatus status = STATUSES[in.readByte()];
+        int revision = in.readInt();
+        int pancakeCount = in.readInt();
+        List<Pancake> pancakes = new ArrayList<>(pancakeCount);
+        for (int i = 0; i < pancakeCount; i++) {
+            pancakes.add(readPancake(in));
+        }
+        return Order.restore(id, building, room, status, pancakes, revision);
+    }
+
+    // Recipes are interned, so identical pancakes decode to one shared instance. Not checked against the menu, a
+    // pancake saved before an ingredient left it still recovers.
+    private Pancake readPancake(SnapshotInput in) throws IOException {
+        long recipe = 0;
+        for (int base = in.readUnsignedByte(); base > 0; base--) {
+            recipe = Pancake.addPortion(recipe, INGREDIENTS[in.readByte()], false);
+        }
+        for (int custom = in.readUnsignedByte(); custom > 0; custom--) {
+            recipe = Pancake.addPortion(recipe, INGREDIENTS[in.readByte()], true);
+        }
+        return Pancake.of(recipe);
+    }
+
+    // Keep only entries still in the queue's status; the orders section was written after the queue was read
+    private void readQueue(SnapshotInput in, ReplayQueue queue, OrderStatus status) throws IOException {
+        while (in.readByte() != 0) {
+            Order order = orders.get(new UUID(in.readLong(), in.readLong()));
+            if (order != null && order.getStatus() == status) {
+                queue.add(order, SNAPSHOT);
+            }
+        }
+    }
+
+    void apply(JournalReader event) {
+        UUID id = event.orderId();
+        if (!owns.test(id)) {
+            return;
+        }
+        int revision = event.revision();
+        int current = revision(id);
+        if (revision <= current) {
+            return; // Already in the snapshot
+        }
+        OrderEventType type = event.type();
+        Pancake pancake = type == OrderEventType.ADD_PANCAKE || type == OrderEventType.REMOVE_PANCAKE
+                ? event.pancake()
+                : null;
+        if (revision > current + 1) {
+            waiting.computeIfAbsent(id, key -> new TreeMap<>())
+                    .put(revision, new Replayed(type, event.sequence(), event.building(), event.room(), pancake));
+            return;
+        }
+        replay(id, type, event.sequence(), event.building(), event.room(), pancake);
+        TreeMap<Integer, Replayed> next = waiting.isEmpty() ? null : waiting.get(id);
+        if (next != null) {
+            applyWaiting(id, next);
+        }
+    }
+
+    // Helper: Apply the waiting events of an order that have become next in line
+    private void applyWaiting(UUID id, TreeMap<Integer, Replayed> events) {
+        while (!events.isEmpty()) {
+            int current = revision(id);
+            events.headMap(current, true).clear();
+            Map.Entry<Integer, Replayed> first = events.firstEntry();
+            if (first == null || first.getKey() != current + 1) {
+                break;
+            }
+            events.pollFirstEntry();
+            Replayed event = first.getValue();
+            replay(id, event.type(), event.sequence(), event.building(), event.room(), event.pancake());
+        }
+        if (events.isEmpty()) {
+            waiting.remove(id);
+        }
+    }
+
+    // Events still waiting once the journal ends follow a record that never made it to disk, e.g. one a crash cut
+    // off while a later record of the same order was complete. Apply what still fits, in revision order.
+    private void applyWaiting() {
+        for (Map.Entry<UUID, TreeMap<Integer, Replayed>> entry : waiting.entrySet()) {
+            for (Replayed event : entry.getValue().values()) {
+                try {
+                    replay(entry.getKey(), event.type(), event.sequence(), event.building(), event.room(),
+                            event.pancake());
+                } catch (IllegalStateException e) {
+                    // E.g. a PLACE whose pancakes were lost, the order stays as it was
+                }
+            }
+        }
+        waiting.clear();
+    }
+
+    // Helper: The revision an order has reached, 0 when it is not known
+    private int revision(UUID id) {
+        Order order = pendingOrders.get(id);
+        if (order == null) {
+            order = orders.get(id);
+        }
+        return order == null ? 0 : order.snapshot().revision();
+    }
+
+    // Helper: Apply one event, normally right after the one before it; the checks guard the leftovers of a torn journal
+    private void replay(UUID id, OrderEventType type, long sequence, int building, int room, Pancake pancake) {
+        switch (type) {
+            case CREATE -> {
+                if (!pendingOrders.containsKey(id) && !orders.containsKey(id)) {
+                    pendingOrders.put(id, Order.restore(id, building, room, OrderStatus.INIT, List.of(), 1));
+                }
+            }
+            case ADD_PANCAKE -> {
+                Order order = pendingOrders.get(id);
+                if (order != null && order.getStatus() == OrderStatus.INIT) {
+                    order.addPancake(pancake);
+                }
+            }
+            case PLACE -> {
+                Order order = pendingOrders.get(id);
+                if (order != null && order.tryPlace()) {
+                    pendingOrders.remove(id);
+                    orders.put(id, order);
+                    newOrders.add(order, sequence);
+                }
+            }
+            case PREPARE -> {
+                Order order = orders.get(id);
+                if (order != null && order.tryPrepare()) {
+                    preparedOrders.add(order, sequence);
+                }
+            }
+            case DELIVER -> {
+                Order order = orders.get(id);
+                if (order != null && order.tryDeliver()) {
+                    deliveredOrders.add(order, sequence);
+                }
+            }
+            case CANCEL -> {
+                Order order = pendingOrders.remove(id);
+                if (order == null && (order = orders.get(id)) != null) {
+                    order.tryCancelPlaced();
+                }
+            }
+            case ADD_PANCAKES -> {
+                // Never journaled, batches are written as one ADD_PANCAKE per pancake
+            }
+            case EXPIRE -> {
+                // Never journaled, expiry is written as CANCEL
+            }
+            case REMOVE_PANCAKE -> {
+                Order order = pendingOrders.get(id);
+                if (order != null && order.getStatus() == OrderStatus.INIT) {
+                    order.tryRemovePancake(pancake);
+                }
+            }
+        }
+    }
+
+    // A journaled event held back until the events before it in its order have been applied
+    private record Replayed(OrderEventType type, long sequence, int building, int room, Pancake pancake) {
+    }
+
+    // Orders in the order they were queued, each with the journal sequence of the event that queued it
+    private static final class ReplayQueue {
+        private final List<Order> orders = new ArrayList<>();
+        private long[] sequences = new long[64];
+        private boolean inJournalOrder = true;
+
+        void add(Order order, long sequence) {
+            int size = orders.size();
+            if (size == sequences.length) {
+                sequences = Arrays.copyOf(sequences, size * 2);
+            }
+            if (size > 0 && sequence < sequences[size - 1]) {
+                inJournalOrder = false; // Queued by an event that waited for an earlier one of its order
+            }
+            sequences[size] = sequence;
+            orders.add(order);
+        }
+
+        int size() {
+            return orders.size();
+        }
+
+        // Entries in journal order, those whose order has moved on dropped
+        List<Order> inStatus(OrderStatus status) {
+            if (!inJournalOrder) {
+                Integer[] positions = new Integer[orders.size()];
+                Arrays.setAll(positions, i -> i);
+                Arrays.sort(positions, Comparator.comparingLong(i -> sequences[i])); // Stable, snapshot entries stay first
+                List<Order> sorted = new ArrayList<>(orders.size());
+                for (int position : positions) {
+                    sorted.add(orders.get(position));
+                }
+                orders.clear();
+                orders.addAll(sorted);
+            }
+            orders.removeIf(order -> order.getStatus() != status);
+            return orders;
+        }
+    }
+
+    // Buffered big-endian reader over a snapshot file, unsynchronized unlike DataInputStream
+    private static final class SnapshotInput implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(SnapshotManager.BUFFER_SIZE).flip();
+
+        SnapshotInput(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Truncated order snapshot");
+                }
+            }
+            buffer.flip();
+        }
+
+        byte readByte() throws IOException {
+            require(1);
+            return buffer.get();
+        }
+
+        int readUnsignedByte() throws IOException {
+            return readByte() & 0xFF;
+        }
+
+        int readInt() throws IOException {
+            require(4);
+            return buffer.getInt();
+        }
+
+        long readLong() throws IOException {
+            require(8);
+            return buffer.getLong();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
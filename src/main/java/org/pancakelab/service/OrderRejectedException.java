@@ -0,0 +1,30 @@
+package org.pancakelab.service;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Thrown when an order cannot be placed because the kitchen backlog is at capacity. The order stays pending, so
+ * the caller may place it again after {@link #getRetryAfter()}.
+ */
+public class OrderRejectedException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final UUID orderId;
+    private final Duration retryAfter;
+
+    public OrderRejectedException(UUID orderId, int capacity, Duration retryAfter) {
+        super("Kitchen backlog is full (capacity " + capacity + "), retry after " + retryAfter.toMillis() + " ms: " + orderId);
+        this.orderId = orderId;
+        this.retryAfter = retryAfter;
+    }
+
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    // Estimated time until the kitchen has room, from the recent preparation rate
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,106 @@
+package org.pancakelab.service;
+
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+import org.pancakelab.model.Pancake;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The order lifecycle as the kitchen, the HTTP API and the async pipeline use it, served by a single
+ * {@link PancakeService} or split by building over a {@link ShardedPancakeService}. See {@link PancakeService} for
+ * what each step does; the sharded service documents where it differs.
+ */
+public interface OrderService {
+    Order createOrder(int building, int room);
+
+    void addPancakeToOrder(UUID orderId, Pancake pancake);
+
+    void addPancakesToOrder(UUID orderId, Collection<Pancake> pancakes);
+
+    void removePancakeFromOrder(UUID orderId, Pancake pancake);
+
+    void placeOrder(UUID orderId);
+
+    Order createAndPlaceOrder(int building, int room, Collection<Pancake> pancakes);
+
+    // Orders before a failing id stay placed
+    void placeOrders(Collection<UUID> orderIds);
+
+    // Like placeOrders, but a failing id does not stop the others. Returns the failure for each id, null where the
+    // order was placed.
+    RuntimeException[] placeOrdersEach(List<UUID> orderIds);
+
+    void prepareOrder();
+
+    int prepareOrders(int maxOrders);
+
+    void deliverOrder();
+
+    int deliverOrders(int maxOrders);
+
+    List<Order> deliverBatch(int building, int maxOrders);
+
+    List<Order> deliverNextRoute();
+
+    Optional<Order> takeNextOrderToPrepare(long timeout, TimeUnit unit) throws InterruptedException;
+
+    Optional<Order> takeNextOrderToDeliver(long timeout, TimeUnit unit) throws InterruptedException;
+
+    CompletableFuture<Order> takeNextOrderToPrepareAsync();
+
+    CompletableFuture<Order> takeNextOrderToDeliverAsync();
+
+    // Block until a placed order may be waiting, the timeout passes or wakeWorkers is called; for worker loops
+    boolean awaitPlacedOrders(long timeout, TimeUnit unit) throws InterruptedException;
+
+    // Block until a prepared order may be waiting, the timeout passes or wakeWorkers is called
+    boolean awaitPreparedOrders(long timeout, TimeUnit unit) throws InterruptedException;
+
+    // Release every thread parked in awaitPlacedOrders or awaitPreparedOrders, e.g. so workers notice a shutdown
+    void wakeWorkers();
+
+    void cancelOrder(UUID orderId);
+
+    void expirePendingOrders();
+
+    Optional<Order> findOrder(UUID orderId);
+
+    List<Order> findOrdersByBuilding(int building);
+
+    List<Order> findOrdersByRoom(int building, int room);
+
+    List<Order> findOrdersByStatus(OrderStatus status);
+
+    long[] quoteOrders(List<UUID> orderIds);
+
+    long[] quotePancakes(List<Pancake> pancakes);
+
+    List<SlowOrder> slowestOrders();
+
+    void clearSlowestOrders();
+
+    ExpiryStats expiryStats();
+
+    void enforceRetention();
+
+    Map<UUID, Order> getPendingOrders();
+
+    Map<UUID, Order> getOrders();
+
+    int getKitchenBacklog();
+
+    int getKitchenCapacity();
+
+    List<Order> getNewOrders();
+
+    List<Order> getPreparedOrders();
+
+    List<Order> getDeliveredOrders();
+}
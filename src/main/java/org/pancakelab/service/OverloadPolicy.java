@@ -0,0 +1,49 @@
+package org.pancakelab.service;
+
+import org.pancakelab.model.Order;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+/**
+ * What {@link PancakeService} does with an order placed while the kitchen backlog, the placed orders waiting to be
+ * prepared, is at capacity.
+ *
+ * @param timeout  how long {@link Mode#BLOCK} waits for room, unused otherwise
+ * @param priority ranks orders for {@link Mode#SHED_LOWEST_PRIORITY}, higher is kept; unused otherwise. Applied once
+ *                 when an order is placed, so it should depend only on what cannot change after that.
+ */
+public record OverloadPolicy(Mode mode, Duration timeout, ToIntFunction<Order> priority) {
+    public enum Mode {
+        REJECT,
+        BLOCK,
+        SHED_LOWEST_PRIORITY
+    }
+
+    public OverloadPolicy {
+        Objects.requireNonNull(mode, "mode");
+        if (mode == Mode.BLOCK && (timeout == null || timeout.isNegative())) {
+            throw new IllegalArgumentException("Block timeout must not be negative. Provided: " + timeout);
+        }
+        if (mode == Mode.SHED_LOWEST_PRIORITY) {
+            Objects.requireNonNull(priority, "priority");
+        }
+    }
+
+    // Fail fast with an OrderRejectedException carrying a retry-after hint
+    public static OverloadPolicy reject() {
+        return new OverloadPolicy(Mode.REJECT, Duration.ZERO, null);
+    }
+
+    // Wait up to timeout for the kitchen to make room, then reject
+    public static OverloadPolicy block(Duration timeout) {
+        return new OverloadPolicy(Mode.BLOCK, timeout, null);
+    }
+
+    // Cancel the lowest-priority waiting order, newest first among equals, to admit a higher-priority one. An order
+    // that does not outrank anything waiting is rejected.
+    public static OverloadPolicy shedLowestPriority(ToIntFunction<Order> priority) {
+        return new OverloadPolicy(Mode.SHED_LOWEST_PRIORITY, Duration.ZERO, priority);
+    }
+}
@@ -1,105 +1,914 @@
 package org.pancakelab.service;
 
+import org.pancakelab.archive.OrderArchive;
+import org.pancakelab.metrics.Histogram;
+import org.pancakelab.metrics.MetricsRegistry;
+import org.pancakelab.model.IngredientMenu;
 import org.pancakelab.model.Order;
 import org.pancakelab.model.OrderStatus;
 import org.pancakelab.model.Pancake;
+import org.pancakelab.model.PriceTable;
+import org.pancakelab.model.TimeOrderedIds;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
-public class PancakeService {
-    private final Map<UUID, Order> pendingOrders = new ConcurrentHashMap<>(); // Temporary storage for orders without pancakes
-    private final Map<UUID, Order> orders = new ConcurrentHashMap<>();
+public class PancakeService implements OrderService {
+    private final Map<UUID, Order> pendingOrders; // Temporary storage for orders without pancakes
+    private final Map<UUID, Order> orders;
     private final Queue<Order> newOrders = new ConcurrentLinkedQueue<>();
-    private final Queue<Order> preparedOrders = new ConcurrentLinkedQueue<>();
+    private final PreparedOrders preparedOrders = new PreparedOrders(); // FIFO and by building
     private final Queue<Order> deliveredOrders = new ConcurrentLinkedQueue<>();
+    private final OrderIndex index = new OrderIndex(); // By building, room and status over pendingOrders and orders
+    private final OrderEventListener[] listeners;
+    private final Supplier<UUID> orderIds;
+    private final OrderArchive archive;
+    private final RetentionPolicy retention;
+    private final ExpiryWheel expiry; // null when pending orders never expire
+    private final ServiceMetrics metrics; // null when instrumentation is off
+    private final KitchenAdmission admission; // Counts and bounds the placed orders waiting in newOrders
+    private final Queue<RetiredOrder> retiredOrders = new ConcurrentLinkedQueue<>(); // DELIVERED and CANCELED, oldest first
+    private final AtomicInteger retiredCount = new AtomicInteger();
+    private final Queue<Order> canceledCarts = new ConcurrentLinkedQueue<>(); // Canceled pending orders, archived right away
+    private final ReentrantLock retentionLock = new ReentrantLock();
+    private final Executor archiver; // Runs the archive file I/O, off the threads that deliver and cancel
+    private final AtomicBoolean archivingScheduled = new AtomicBoolean();
+    private final WorkSignal placedSignal;
+    private final WorkSignal preparedSignal;
+    private final Queue<CompletableFuture<Order>> prepareWaiters;
+    private final Queue<CompletableFuture<Order>> deliverWaiters;
+
+    public PancakeService() {
+        this(new Builder());
+    }
+
+    private PancakeService(Builder builder) {
+        this.listeners = builder.listeners.toArray(new OrderEventListener[0]);
+        this.orderIds = builder.orderIds;
+        this.archive = builder.archive;
+        this.retention = builder.retention;
+        this.archiver = builder.archiver;
+        KitchenWaiters waiters = builder.waiters != null ? builder.waiters : new KitchenWaiters();
+        this.placedSignal = waiters.placed();
+        this.preparedSignal = waiters.prepared();
+        this.prepareWaiters = waiters.prepareWaiters();
+        this.deliverWaiters = waiters.deliverWaiters();
+        this.expiry = builder.pendingTtl == null ? null : new ExpiryWheel(builder.pendingTtl, System.nanoTime());
+        this.metrics = builder.metrics == null ? null : new ServiceMetrics(builder.metrics);
+        this.admission = builder.overloadPolicy == null
+                ? KitchenAdmission.unbounded()
+                : new KitchenAdmission(builder.kitchenCapacity, builder.overloadPolicy);
+        if (builder.snapshotDirectory == null) {
+            this.pendingOrders = new ConcurrentHashMap<>();
+            this.orders = new ConcurrentHashMap<>();
+        } else {
+            OrderRecovery recovery;
+            try {
+                Path snapshot = OrderRecovery.latestSnapshot(builder.snapshotDirectory);
+                int[] sizeHints = OrderRecovery.sizeHints(snapshot);
+                this.pendingOrders = new ConcurrentHashMap<>(sizeHints[0] / builder.partitions);
+                this.orders = new ConcurrentHashMap<>(sizeHints[1] / builder.partitions);
+                recovery = new OrderRecovery(pendingOrders, orders, snapshot, builder.recoveredOrders);
+                recovery.load(builder.journalDirectory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to recover orders from " + builder.journalDirectory, e);
+            }
+            List<Order> delivered = recovery.deliveredOrders();
+            if (archive != null) {
+                // Replay brings back finished orders archived before the restart; they stay archived
+                orders.values().removeIf(order -> isFinished(order) && archive.contains(order.getId()));
+                delivered.removeIf(order -> !orders.containsKey(order.getId()));
+            }
+            pendingOrders.values().forEach(index::add);
+            orders.values().forEach(index::add);
+            newOrders.addAll(recovery.newOrders());
+            newOrders.forEach(admission::restore);
+            preparedOrders.addAll(recovery.preparedOrders());
+            deliveredOrders.addAll(delivered);
+            if (archive != null) {
+                deliveredOrders.forEach(this::retire);
+                orders.values().stream()
+                        .filter(order -> order.getStatus() == OrderStatus.CANCELED)
+                        .forEach(this::retire);
+            }
+            if (expiry != null) {
+                long now = System.nanoTime();
+                pendingOrders.values().forEach(order -> expiry.schedule(order, now)); // Recovered carts get a fresh TTL
+            }
+        }
+        if (builder.metrics != null && builder.gauges) {
+            registerGauges(builder.metrics, List.of(this));
+        }
+    }
 
     // Step 1: Create a new order
+    @Override
     public Order createOrder(int building, int room) {
+        long start = startTimer();
         validateBuildingAndRoom(building, room);
-        Order order = new Order(building, room);
+        Order order = new Order(orderIds.get(), building, room);
+        Order.Snapshot created = order.snapshot(); // Taken before the order can be found and changed
+        index.add(order);
         pendingOrders.put(order.getId(), order); // Store temporarily until pancakes are added
+        publish(OrderEventType.CREATE, order, created, null);
+        if (expiry != null) {
+            long now = System.nanoTime();
+            expiry.schedule(order, now);
+            if (expiry.due(now)) {
+                expiry.advance(now, this::expire);
+            }
+        }
+        if (metrics != null) {
+            metrics.createOrder.record(System.nanoTime() - start);
+        }
         return order;
     }
 
     // Step 2: Add a pancake to the order
+    @Override
     public void addPancakeToOrder(UUID orderId, Pancake pancake) {
+        long start = startTimer();
         Order order = pendingOrders.get(orderId);
         if (order == null) {
             throw new IllegalArgumentException("Order not found or already placed: " + orderId);
         }
-        order.addPancake(pancake);
+        Order.Snapshot added = order.addPancake(pancake);
         OrderLog.logAddPancake(order, pancake);
+        publish(OrderEventType.ADD_PANCAKE, order, added, pancake);
+        if (metrics != null) {
+            metrics.addPancake.record(System.nanoTime() - start);
+        }
+    }
+
+    // Step 2 in bulk: Add a group of pancakes with one lookup, one lock and one log entry
+    @Override
+    public void addPancakesToOrder(UUID orderId, Collection<Pancake> pancakes) {
+        long start = startTimer();
+        Order order = pendingOrders.get(orderId);
+        if (order == null) {
+            throw new IllegalArgumentException("Order not found or already placed: " + orderId);
+        }
+        List<Pancake> batch = List.copyOf(pancakes);
+        if (batch.isEmpty()) {
+            return;
+        }
+        Order.Snapshot added = order.addPancakes(batch);
+        OrderLog.logAddPancakes(order);
+        publishPancakesAdded(order, added, batch);
+        if (metrics != null) {
+            metrics.addPancake.record(System.nanoTime() - start);
+        }
+    }
+
+    // Step 2b: Take a pancake back out of the order before it is placed
+    @Override
+    public void removePancakeFromOrder(UUID orderId, Pancake pancake) {
+        Order order = pendingOrders.get(orderId);
+        if (order == null) {
+            throw new IllegalArgumentException("Order not found or already placed: " + orderId);
+        }
+        Order.Snapshot removed = order.tryRemovePancake(pancake);
+        if (removed == null) {
+            throw new IllegalArgumentException("Pancake not found in order " + orderId + ": " + pancake);
+        }
+        OrderLog.logRemovePancake(order, pancake);
+        publish(OrderEventType.REMOVE_PANCAKE, order, removed, pancake);
     }
 
     // Step 3: Place the order (move from pendingOrders to newOrders)
+    @Override
     public void placeOrder(UUID orderId) {
-        Order order = pendingOrders.remove(orderId);
+        long start = startTimer();
+        Order order = pendingOrders.get(orderId);
         if (order == null) {
             throw new IllegalArgumentException("Order not found or already placed: " + orderId);
         }
-        order.placeOrder();
+        Order.Snapshot placed = admitAndPlace(order);
+        // A cancelOrder that finds the order in pendingOrders may cancel it before PLACE is published, so PLACE
+        // carries the state it installed rather than the current one
+        OrderLog.logPlaceOrder(order);
+        publish(OrderEventType.PLACE, order, placed, null);
 
+        // Track the order before it leaves pendingOrders, so a concurrent snapshot always sees it in one of the maps
+        orders.put(orderId, order);
         newOrders.add(order);
-        orders.put(orderId, order); // Track all orders
+        placedSignal.signal(1);
+        pendingOrders.remove(orderId);
+        servePrepareWaiters();
+        if (metrics != null) {
+            metrics.placeOrder.record(System.nanoTime() - start);
+        }
+    }
+
+    // Steps 1 to 3 in one call: the order is filled before anyone else can see it, so it never waits in pendingOrders
+    @Override
+    public Order createAndPlaceOrder(int building, int room, Collection<Pancake> pancakes) {
+        long start = startTimer();
+        validateBuildingAndRoom(building, room);
+        List<Pancake> batch = List.copyOf(pancakes);
+        if (batch.isEmpty()) {
+            throw new IllegalArgumentException("Cannot place an order without pancakes.");
+        }
+        Order order = new Order(orderIds.get(), building, room);
+        Order.Snapshot created = order.snapshot();
+        Order.Snapshot added = order.addPancakes(batch);
+        admit(order);
+        order.placeOrder();
+        admission.track(order);
+        index.add(order);
+
+        OrderLog.logAddPancakes(order);
         OrderLog.logPlaceOrder(order);
+        publish(OrderEventType.CREATE, order, created, null);
+        publishPancakesAdded(order, added, batch);
+        publish(OrderEventType.PLACE, order, null);
+        orders.put(order.getId(), order);
+        newOrders.add(order);
+        placedSignal.signal(1);
+        servePrepareWaiters();
+        if (metrics != null) {
+            metrics.createAndPlaceOrder.record(System.nanoTime() - start);
+        }
+        return order;
+    }
+
+    // Step 3 in bulk: Place several orders and enqueue them together. Orders before a failing id stay placed.
+    @Override
+    public void placeOrders(Collection<UUID> orderIds) {
+        long start = startTimer();
+        List<Order> placed = new ArrayList<>(orderIds.size());
+        try {
+            for (UUID orderId : orderIds) {
+                placed.add(placeForBatch(orderId));
+            }
+        } finally {
+            enqueuePlaced(placed);
+            recordBatch(start, placed.size(), metrics == null ? null : metrics.placeOrder);
+        }
+    }
+
+    // Step 3 in bulk, each id on its own: a failing id does not stop the others. Returns the failure for each id,
+    // null where the order was placed. Used by AsyncPancakeService to apply a batch of placements at once.
+    @Override
+    public RuntimeException[] placeOrdersEach(List<UUID> orderIds) {
+        long start = startTimer();
+        RuntimeException[] failures = new RuntimeException[orderIds.size()];
+        List<Order> placed = new ArrayList<>(orderIds.size());
+        try {
+            for (int i = 0; i < failures.length; i++) {
+                try {
+                    placed.add(placeForBatch(orderIds.get(i)));
+                } catch (RuntimeException e) {
+                    failures[i] = e;
+                }
+            }
+        } finally {
+            enqueuePlaced(placed);
+            recordBatch(start, placed.size(), metrics == null ? null : metrics.placeOrder);
+        }
+        return failures;
     }
 
     // Step 4: Prepare the order (move from newOrders to preparedOrders)
+    @Override
     public void prepareOrder() {
-        Order order = newOrders.poll(); // Get the next order to prepare
-        if (order == null) {
+        if (prepareNext() == null) {
             System.out.println("No orders to prepare.");
-            return;
         }
-        order.prepareOrder();
-        preparedOrders.add(order);
-        OrderLog.logPrepareOrder(order);
+    }
+
+    // Step 4 in bulk: Prepare up to maxOrders placed orders and hand them to delivery together; returns how many
+    @Override
+    public int prepareOrders(int maxOrders) {
+        validateMaxOrders(maxOrders);
+        long start = startTimer();
+        List<Order> prepared = new ArrayList<>(Math.min(maxOrders, 64));
+        Order order;
+        while (prepared.size() < maxOrders && (order = pollNextPlacedOrder()) != null) {
+            // Publish before delivery can see the order, so the journal always sees PREPARE before DELIVER
+            OrderLog.logPrepareOrder(order);
+            publish(OrderEventType.PREPARE, order, null);
+            prepared.add(order);
+        }
+        if (!prepared.isEmpty()) {
+            preparedOrders.addAll(prepared);
+            preparedSignal.signal(prepared.size());
+            serveDeliverWaiters();
+            recordBatch(start, prepared.size(), metrics == null ? null : metrics.prepareOrder);
+        }
+        return prepared.size();
     }
 
     // Step 5: Deliver the order (move from preparedOrders to deliveredOrders)
+    @Override
     public void deliverOrder() {
-        Order order = preparedOrders.poll();
-        if (order == null) {
+        if (deliverNext() == null) {
             System.out.println("No orders in PREPARED state to deliver.");
-            return;
         }
+    }
+
+    // Step 5 in bulk: Deliver up to maxOrders prepared orders; returns how many
+    @Override
+    public int deliverOrders(int maxOrders) {
+        validateMaxOrders(maxOrders);
+        long start = startTimer();
+        List<Order> delivered = new ArrayList<>(Math.min(maxOrders, 64));
+        Order order;
+        while (delivered.size() < maxOrders && (order = preparedOrders.deliverOldest()) != null) {
+            OrderLog.logDeliverOrder(order);
+            publish(OrderEventType.DELIVER, order, null);
+            delivered.add(order);
+        }
+        if (!delivered.isEmpty()) {
+            deliveredOrders.addAll(delivered);
+            delivered.forEach(this::retire);
+            recordBatch(start, delivered.size(), metrics == null ? null : metrics.deliverOrder);
+        }
+        return delivered.size();
+    }
 
-        order.deliverOrder();
-        deliveredOrders.add(order);
-        OrderLog.logDeliverOrder(order);
+    // Step 5 by route: Deliver up to maxOrders prepared for one building in a single trip, sorted by room
+    @Override
+    public List<Order> deliverBatch(int building, int maxOrders) {
+        validateMaxOrders(maxOrders);
+        long start = startTimer();
+        List<Order> route = preparedOrders.deliverBuilding(building, maxOrders);
+        if (!route.isEmpty()) {
+            for (Order order : route) {
+                OrderLog.logDeliverOrder(order);
+                publish(OrderEventType.DELIVER, order, null);
+            }
+            deliveredOrders.addAll(route);
+            route.forEach(this::retire);
+            recordBatch(start, route.size(), metrics == null ? null : metrics.deliverOrder);
+        }
+        return route;
+    }
+
+    // Step 5 by route: Deliver every order prepared for the building that has waited longest, sorted by room.
+    // Returns an empty list when nothing is prepared.
+    @Override
+    public List<Order> deliverNextRoute() {
+        int building;
+        while ((building = preparedOrders.oldestBuilding()) != 0) {
+            List<Order> route = deliverBatch(building, Integer.MAX_VALUE);
+            if (!route.isEmpty()) {
+                return route;
+            }
+            // Another courier took that building first, try the next one
+        }
+        return List.of();
+    }
+
+    // Step 4 for a kitchen terminal: wait up to the timeout for a placed order, prepare it and return it
+    @Override
+    public Optional<Order> takeNextOrderToPrepare(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            Order order = prepareNext();
+            long remaining = deadline - System.nanoTime();
+            if (order != null || remaining <= 0) {
+                return Optional.ofNullable(order);
+            }
+            awaitPlacedOrders(remaining, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Step 5 for a courier terminal: wait up to the timeout for a prepared order, deliver it and return it
+    @Override
+    public Optional<Order> takeNextOrderToDeliver(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            Order order = deliverNext();
+            long remaining = deadline - System.nanoTime();
+            if (order != null || remaining <= 0) {
+                return Optional.ofNullable(order);
+            }
+            awaitPreparedOrders(remaining, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Completes with the next order once it has been prepared, without holding a thread while waiting. Waiters are
+    // served in arrival order on the thread that enqueued the work, so chain slow stages with the *Async methods.
+    // Cancel the future or use orTimeout to give up; an order claimed in the same instant is still prepared.
+    @Override
+    public CompletableFuture<Order> takeNextOrderToPrepareAsync() {
+        CompletableFuture<Order> waiter = new CompletableFuture<>();
+        prepareWaiters.add(waiter);
+        servePrepareWaiters();
+        return waiter;
+    }
+
+    // Completes with the next order once it has been delivered, like takeNextOrderToPrepareAsync
+    @Override
+    public CompletableFuture<Order> takeNextOrderToDeliverAsync() {
+        CompletableFuture<Order> waiter = new CompletableFuture<>();
+        deliverWaiters.add(waiter);
+        serveDeliverWaiters();
+        return waiter;
+    }
+
+    // Block until a placed order may be waiting, the timeout passes or wakeWorkers is called
+    @Override
+    public boolean awaitPlacedOrders(long timeout, TimeUnit unit) throws InterruptedException {
+        return placedSignal.await(this::hasPlacedOrders, timeout, unit);
+    }
+
+    // Block until a prepared order is waiting, the timeout passes or wakeWorkers is called
+    @Override
+    public boolean awaitPreparedOrders(long timeout, TimeUnit unit) throws InterruptedException {
+        return preparedSignal.await(this::hasPreparedOrders, timeout, unit);
+    }
+
+    boolean hasPlacedOrders() {
+        return !newOrders.isEmpty();
+    }
+
+    boolean hasPreparedOrders() {
+        return !preparedOrders.isEmpty();
+    }
+
+    @Override
+    public void wakeWorkers() {
+        placedSignal.wakeAll();
+        preparedSignal.wakeAll();
     }
 
     // Step 6: Cancel an order (from pendingOrders or newOrders)
+    @Override
     public void cancelOrder(UUID orderId) {
+        long start = startTimer();
         Order order = pendingOrders.remove(orderId);
-        if (order != null) {
-            order.cancelOrder();
+        if (order != null && order.tryCancelPending()) {
             OrderLog.logCancelOrder(order);
+            publish(OrderEventType.CANCEL, order, null);
+            index.remove(order);
+            archiveCart(order);
+            if (metrics != null) {
+                metrics.cancelOrder.record(System.nanoTime() - start);
+            }
             return;
         }
 
-        boolean removedFromNew = removeOrderFromQueue(newOrders, orderId);
-        if (removedFromNew) {
+        // Placed orders are canceled in place and skipped lazily by prepareOrder, so the backlog is never scanned.
+        // A pending order that lost to a concurrent placeOrder lands here too, one that expired first fails below.
+        if (order == null) {
             order = orders.get(orderId);
-            if (order != null) {
-                order.cancelOrder();
+        }
+        if (order == null || !order.tryCancelPlaced()) {
+            throw new IllegalStateException("Order cannot be canceled in its current state: " + orderId);
+        }
+        admission.release(false);
+        OrderLog.logCancelOrder(order);
+        publish(OrderEventType.CANCEL, order, null);
+        retire(order);
+        if (metrics != null) {
+            metrics.cancelOrder.record(System.nanoTime() - start);
+        }
+    }
 
-                OrderLog.logCancelOrder(order);
+    // Cancel pending orders that outlived the TTL. Runs on createOrder once per wheel tick; call it periodically as
+    // well when orders must also expire while no new ones are created.
+    @Override
+    public void expirePendingOrders() {
+        if (expiry != null) {
+            expiry.advance(System.nanoTime(), this::expire);
+        }
+    }
+
+    // Sweep as if the clock read nowNanos, for tests
+    void expirePendingOrders(long nowNanos) {
+        if (expiry != null) {
+            expiry.advance(nowNanos, this::expire);
+        }
+    }
+
+    // Pending and live orders for one building, in no particular order. Costs time proportional to the result.
+    @Override
+    public List<Order> findOrdersByBuilding(int building) {
+        return index.byBuilding(building);
+    }
+
+    // Pending and live orders for one room, e.g. what a room terminal shows as in flight
+    @Override
+    public List<Order> findOrdersByRoom(int building, int room) {
+        return index.byRoom(building, room);
+    }
+
+    // Pending and live orders currently in the given status; archived orders are not included
+    @Override
+    public List<Order> findOrdersByStatus(OrderStatus status) {
+        return index.byStatus(status);
+    }
+
+    // Tail sample of the slowest delivered orders end to end, slowest first; empty when instrumentation is off
+    @Override
+    public List<SlowOrder> slowestOrders() {
+        return metrics == null ? List.of() : metrics.slowOrders.toList();
+    }
+
+    // Start a new sampling window for slowestOrders
+    @Override
+    public void clearSlowestOrders() {
+        if (metrics != null) {
+            metrics.slowOrders.clear();
+        }
+    }
+
+    @Override
+    public ExpiryStats expiryStats() {
+        return expiry == null ? ExpiryStats.DISABLED : new ExpiryStats(expiry.expiredCount(), expiry.scheduledCount());
+    }
+
+    // Look an order up wherever it is: pending, live or archived
+    @Override
+    public Optional<Order> findOrder(UUID orderId) {
+        Order order = pendingOrders.get(orderId);
+        if (order == null) {
+            order = orders.get(orderId);
+        }
+        if (order != null || archive == null) {
+            return Optional.ofNullable(order);
+        }
+        try {
+            return archive.find(orderId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archived order " + orderId, e);
+        }
+    }
+
+    // Totals in cents of many orders, in the given order. Reads each order's running total, nothing is re-priced.
+    @Override
+    public long[] quoteOrders(List<UUID> orderIds) {
+        long[] totals = new long[orderIds.size()];
+        int i = 0;
+        for (UUID orderId : orderIds) {
+            totals[i++] = findOrder(orderId)
+                    .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId))
+                    .getTotalCents();
+        }
+        return totals;
+    }
+
+    // Prices in cents of candidate pancakes, all against the same menu version
+    @Override
+    public long[] quotePancakes(List<Pancake> pancakes) {
+        PriceTable prices = IngredientMenu.getPriceTable();
+        long[] quotes = new long[pancakes.size()];
+        int i = 0;
+        for (Pancake pancake : pancakes) {
+            quotes[i++] = pancake.getPriceCents(prices);
+        }
+        return quotes;
+    }
+
+    // Archive finished orders beyond the retention limits on the calling thread. Deliveries and cancellations
+    // trigger it on the archiver; call it as well when orders must also age out while the service is idle.
+    @Override
+    public void enforceRetention() {
+        if (archive == null || !retentionLock.tryLock()) {
+            return; // Another thread is already archiving
+        }
+        try {
+            archiveDue();
+        } finally {
+            retentionLock.unlock();
+        }
+    }
+
+    // Helper: Archive canceled carts and the finished orders past the limits; called with the retention lock held.
+    // An order that fails to archive goes back in line for the next run.
+    private void archiveDue() {
+        Order cart;
+        while ((cart = canceledCarts.poll()) != null) {
+            try {
+                archive.archive(cart);
+            } catch (IOException e) {
+                canceledCarts.add(cart);
+                throw new UncheckedIOException("Failed to archive order " + cart.getId(), e);
             }
+        }
+        RetiredOrder retired;
+        while ((retired = retiredOrders.peek()) != null && retentionDue(retired)) {
+            retiredOrders.poll();
+            retiredCount.decrementAndGet();
+            try {
+                archive(retired.order());
+            } catch (UncheckedIOException e) {
+                retiredOrders.add(retired);
+                retiredCount.incrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    private boolean retentionDue(RetiredOrder oldest) {
+        return retiredCount.get() > retention.maxLiveOrders()
+                || System.nanoTime() - oldest.retiredAt() > retention.maxAge().toNanos();
+    }
+
+    private void retire(Order order) {
+        if (archive == null) {
             return;
         }
+        retiredOrders.add(new RetiredOrder(order, System.nanoTime()));
+        retiredCount.incrementAndGet();
+        RetiredOrder oldest = retiredOrders.peek();
+        if (oldest != null && retentionDue(oldest)) {
+            scheduleArchiving();
+        }
+    }
+
+    // Helper: A canceled pending order leaves the service at once; it is kept in the archive only
+    private void archiveCart(Order order) {
+        if (archive != null) {
+            canceledCarts.add(order);
+            scheduleArchiving();
+        }
+    }
+
+    // Helper: Have the archiver run archiveDue, at most one run queued at a time
+    private void scheduleArchiving() {
+        if (archivingScheduled.compareAndSet(false, true)) {
+            archiver.execute(this::runArchiving);
+        }
+    }
+
+    private void runArchiving() {
+        archivingScheduled.set(false); // Cleared first, so orders retired during this run schedule the next one
+        retentionLock.lock();
+        try {
+            archiveDue();
+        } catch (UncheckedIOException e) {
+            // Keep the service running, the failed order is retried by the next run
+            System.err.println("Failed to archive orders: " + e.getMessage());
+        } finally {
+            retentionLock.unlock();
+        }
+    }
+
+    private static boolean isFinished(Order order) {
+        return order.getStatus() == OrderStatus.DELIVERED || order.getStatus() == OrderStatus.CANCELED;
+    }
+
+    private void archive(Order order) {
+        try {
+            archive.archive(order);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive order " + order.getId(), e);
+        }
+        orders.remove(order.getId());
+        index.remove(order);
+        if (order.getStatus() == OrderStatus.DELIVERED) {
+            // Deliveries retire in queue order, so this is nearly always the head
+            if (deliveredOrders.peek() == order) {
+                deliveredOrders.poll();
+            } else {
+                deliveredOrders.remove(order);
+            }
+        }
+    }
+
+    private record RetiredOrder(Order order, long retiredAt) {
+    }
+
+    // Helper: Place one order of a batch without enqueueing it yet, enqueuePlaced hands the batch to the kitchen
+    private Order placeForBatch(UUID orderId) {
+        Order order = pendingOrders.get(orderId);
+        if (order == null) {
+            throw new IllegalArgumentException("Order not found or already placed: " + orderId);
+        }
+        Order.Snapshot placed = admitAndPlace(order);
+        OrderLog.logPlaceOrder(order);
+        publish(OrderEventType.PLACE, order, placed, null);
+        orders.put(orderId, order);
+        return order;
+    }
+
+    // Helper: Take a kitchen slot and place a pending order, giving the slot back when the placement fails
+    private Order.Snapshot admitAndPlace(Order order) {
+        if (order.getPancakes().isEmpty()) {
+            // Checked before admission too, so an order that cannot be placed never waits for or sheds another one
+            throw new IllegalStateException("Cannot place an order without pancakes: " + order.getId());
+        }
+        admit(order);
+        Order.Snapshot placed;
+        try {
+            placed = order.placeIfPending(); // Still throws when the last pancake was removed in the meantime
+        } catch (RuntimeException e) {
+            admission.release(false);
+            throw e;
+        }
+        if (placed == null) {
+            admission.release(false);
+            throw new IllegalArgumentException("Order not found or already placed: " + order.getId());
+        }
+        admission.track(order);
+        return placed;
+    }
+
+    private void enqueuePlaced(List<Order> placed) {
+        if (placed.isEmpty()) {
+            return;
+        }
+        newOrders.addAll(placed);
+        placedSignal.signal(placed.size());
+        for (Order order : placed) {
+            pendingOrders.remove(order.getId());
+        }
+        servePrepareWaiters();
+    }
+
+    // Helper: Reserve a kitchen backlog slot for the order, or reject it per the overload policy
+    private void admit(Order order) {
+        try {
+            admission.admit(order, this::shed);
+        } catch (OrderRejectedException e) {
+            if (metrics != null) {
+                metrics.rejected.increment();
+            }
+            throw e;
+        }
+    }
+
+    // Helper: Cancel a waiting order to make room for a higher-priority one, false when it is no longer waiting
+    private boolean shed(Order order) {
+        if (!order.tryCancelPlaced()) {
+            return false;
+        }
+        admission.release(false);
+        OrderLog.logCancelOrder(order);
+        publish(OrderEventType.CANCEL, order, null);
+        retire(order);
+        if (metrics != null) {
+            metrics.shed.increment();
+        }
+        return true;
+    }
+
+    // Helper: Cancel an order the wheel found past its TTL, false when it was placed or canceled in the meantime
+    private boolean expire(Order order) {
+        if (!order.tryCancelPending()) {
+            return false;
+        }
+        pendingOrders.remove(order.getId(), order);
+        OrderLog.logExpireOrder(order);
+        publish(OrderEventType.CANCEL, order, null);
+        index.remove(order);
+        archiveCart(order);
+        if (metrics != null) {
+            metrics.expired.increment();
+        }
+        return true;
+    }
+
+    // Helper: Prepare the next placed order and hand it to delivery, null when none is waiting
+    Order prepareNext() {
+        long start = startTimer();
+        Order order = pollNextPlacedOrder();
+        if (order != null) {
+            OrderLog.logPrepareOrder(order);
+            publish(OrderEventType.PREPARE, order, null);
+            preparedOrders.add(order);
+            preparedSignal.signal(1);
+            serveDeliverWaiters();
+            if (metrics != null) {
+                metrics.prepareOrder.record(System.nanoTime() - start);
+            }
+        }
+        return order;
+    }
+
+    // Helper: Deliver the next prepared order, null when none is waiting
+    Order deliverNext() {
+        long start = startTimer();
+        Order order = preparedOrders.deliverOldest();
+        if (order != null) {
+            OrderLog.logDeliverOrder(order);
+            publish(OrderEventType.DELIVER, order, null);
+            deliveredOrders.add(order);
+            retire(order);
+            if (metrics != null) {
+                metrics.deliverOrder.record(System.nanoTime() - start);
+            }
+        }
+        return order;
+    }
+
+    // Helper: Start timing an operation; skips the clock read when instrumentation is off
+    private long startTimer() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    // Helper: Record a batch call as one sample per order handled, each an even share of the call's time
+    private static void recordBatch(long start, int orders, Histogram histogram) {
+        if (histogram != null && orders > 0) {
+            histogram.record((System.nanoTime() - start) / orders, orders);
+        }
+    }
+
+    // Queue sizes are read only when the registry is dumped
+    // Each gauge reads every one of the services, e.g. the shards of a ShardedPancakeService, and replaces the gauge
+    // of that name registered before
+    static void registerGauges(MetricsRegistry registry, List<PancakeService> services) {
+        registry.gauge("pancake_pending_orders", () -> sum(services, service -> service.pendingOrders.size()));
+        registry.gauge("pancake_new_orders", () -> sum(services, service -> service.admission.backlog()));
+        registry.gauge("pancake_prepared_orders", () -> sum(services, service -> service.preparedOrders.size()));
+        registry.gauge("pancake_delivered_orders",
+                () -> sum(services, service -> service.index.count(OrderStatus.DELIVERED)));
+        registry.gauge("pancake_orders_awaiting_expiry",
+                () -> sum(services, service -> service.expiryStats().trackedOrders()));
+    }
+
+    private static long sum(List<PancakeService> services, ToLongFunction<PancakeService> value) {
+        long total = 0;
+        for (PancakeService service : services) {
+            total += value.applyAsLong(service);
+        }
+        return total;
+    }
+
+    // Helper: Hand placed orders to async waiters. Enqueuers check for waiters after adding work and waiters check
+    // for work after registering, so one side always sees the other.
+    void servePrepareWaiters() {
+        while (!prepareWaiters.isEmpty() && !newOrders.isEmpty()) {
+            CompletableFuture<Order> waiter = prepareWaiters.poll();
+            if (waiter == null || waiter.isDone()) {
+                continue; // Taken by another thread, canceled or timed out
+            }
+            Order order = prepareNext();
+            if (order == null) {
+                prepareWaiters.add(waiter); // Lost the race for the order, the loop condition rechecks for work
+            } else {
+                waiter.complete(order);
+            }
+        }
+    }
 
-        throw new IllegalStateException("Order cannot be canceled in its current state: " + orderId);
+    void serveDeliverWaiters() {
+        while (!deliverWaiters.isEmpty() && !preparedOrders.isEmpty()) {
+            CompletableFuture<Order> waiter = deliverWaiters.poll();
+            if (waiter == null || waiter.isDone()) {
+                continue;
+            }
+            Order order = deliverNext();
+            if (order == null) {
+                deliverWaiters.add(waiter);
+            } else {
+                waiter.complete(order);
+            }
+        }
+    }
+
+    // Helper: Poll newOrders until an order that was not canceled while waiting is found, and prepare it
+    private Order pollNextPlacedOrder() {
+        Order order;
+        while ((order = newOrders.poll()) != null) {
+            if (order.tryPrepare()) {
+                admission.release(true);
+                return order;
+            }
+        }
+        return null;
     }
 
-    // Helper: Get an order from a queue by ID
-    private Order getOrderFromQueue(Queue<Order> queue, UUID orderId, String stateName) {
-        return queue.stream()
-                .filter(order -> order.getId().equals(orderId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Order not found in " + stateName + " state: " + orderId));
+    // Helper: Publish a status change other than PLACE. Each is published before anything else can change the order
+    // (no later transition is possible until the order reaches the next queue, and CANCEL is final), so the current
+    // state is the one the transition installed.
+    private void publish(OrderEventType type, Order order, Pancake pancake) {
+        publish(type, order, order.snapshot(), pancake);
+    }
+
+    // Helper: Update the status index and counters, and notify listeners of a completed transition
+    private void publish(OrderEventType type, Order order, Order.Snapshot state, Pancake pancake) {
+        index.apply(type, order);
+        if (metrics != null) {
+            metrics.onEvent(type, order);
+        }
+        for (OrderEventListener listener : listeners) {
+            listener.onEvent(type, order, state, pancake);
+        }
+    }
+
+    private void publishPancakesAdded(Order order, Order.Snapshot state, List<Pancake> pancakes) {
+        for (OrderEventListener listener : listeners) {
+            listener.onPancakesAdded(order, state, pancakes);
+        }
     }
 
     private void validateBuildingAndRoom(int building, int room) {
@@ -111,32 +920,155 @@ public class PancakeService {
         }
     }
 
-    // Helper: Remove an order from a queue by ID
-    private boolean removeOrderFromQueue(Queue<Order> queue, UUID orderId) {
-        return queue.removeIf(order -> order.getId().equals(orderId));
+    static void validateMaxOrders(int maxOrders) {
+        if (maxOrders <= 0) {
+            throw new IllegalArgumentException("Max orders must be positive. Provided: " + maxOrders);
+        }
     }
 
+    @Override
     public Map<UUID, Order> getPendingOrders() {
         return Collections.unmodifiableMap(pendingOrders);
     }
 
-    // Getter for orders (immutable view)
+    // Getter for orders (immutable view of live orders, archived ones are reached through findOrder)
+    @Override
     public Map<UUID, Order> getOrders() {
         return Collections.unmodifiableMap(orders);
     }
 
+    // Placed orders waiting to be prepared, the depth of newOrders without canceled ones. O(1), unlike getNewOrders.
+    @Override
+    public int getKitchenBacklog() {
+        return admission.backlog();
+    }
+
+    // Integer.MAX_VALUE unless a capacity was configured
+    @Override
+    public int getKitchenCapacity() {
+        return admission.capacity();
+    }
+
     // Getter for newOrders (read-only list)
+    @Override
     public List<Order> getNewOrders() {
-        return newOrders.stream().toList();
+        return newOrders.stream()
+                .filter(order -> order.getStatus() != OrderStatus.CANCELED)
+                .toList();
     }
 
     // Getter for preparedOrders (read-only list)
+    @Override
     public List<Order> getPreparedOrders() {
-        return preparedOrders.stream().toList();
+        return preparedOrders.toList();
     }
 
-    // Getter for deliveredOrders (read-only list)
+    // Getter for deliveredOrders (read-only list of live orders, archived ones are reached through findOrder)
+    @Override
     public List<Order> getDeliveredOrders() {
         return List.copyOf(deliveredOrders);
     }
+
+    public static class Builder {
+        private static final Executor ARCHIVERS = Executors.newCachedThreadPool(WorkerThreads.factory("order-archiver"));
+
+        private final List<OrderEventListener> listeners = new ArrayList<>();
+        private Path snapshotDirectory;
+        private OrderArchive archive;
+        private RetentionPolicy retention;
+        private Executor archiver;
+        private Path journalDirectory;
+        private Supplier<UUID> orderIds = TimeOrderedIds.defaultIds()::nextUuid;
+        private Duration pendingTtl;
+        private MetricsRegistry metrics;
+        private int kitchenCapacity;
+        private OverloadPolicy overloadPolicy;
+        private boolean gauges = true;
+        private KitchenWaiters waiters;
+        private Predicate<UUID> recoveredOrders = orderId -> true;
+        private int partitions = 1;
+
+        // Register a listener notified after every order transition, e.g. an OrderJournal
+        public Builder addListener(OrderEventListener listener) {
+            listeners.add(Objects.requireNonNull(listener, "listener"));
+            return this;
+        }
+
+        // Start from the latest snapshot in snapshotDirectory plus the journal events recorded after it
+        public Builder recoverFrom(Path snapshotDirectory, Path journalDirectory) {
+            this.snapshotDirectory = Objects.requireNonNull(snapshotDirectory, "snapshotDirectory");
+            this.journalDirectory = Objects.requireNonNull(journalDirectory, "journalDirectory");
+            return this;
+        }
+
+        // Move DELIVERED and CANCELED orders beyond the policy limits out of memory into the archive. Canceled
+        // pending orders go to the archive right away. The archive is written on background worker threads.
+        public Builder retention(RetentionPolicy retention, OrderArchive archive) {
+            return retention(retention, archive, ARCHIVERS);
+        }
+
+        // Like retention(retention, archive), with the archive written on the given executor, e.g. Runnable::run
+        // to archive on the thread that delivers or cancels
+        public Builder retention(RetentionPolicy retention, OrderArchive archive, Executor archiver) {
+            this.retention = Objects.requireNonNull(retention, "retention");
+            this.archive = Objects.requireNonNull(archive, "archive");
+            this.archiver = Objects.requireNonNull(archiver, "archiver");
+            return this;
+        }
+
+        // Cancel orders still pending, i.e. created but never placed or canceled, once they are older than ttl
+        public Builder expirePendingOrders(Duration ttl) {
+            if (ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("Pending order TTL must be positive. Provided: " + ttl);
+            }
+            this.pendingTtl = ttl;
+            return this;
+        }
+
+        // Bound the placed orders waiting to be prepared; the policy decides what happens to orders beyond it
+        public Builder kitchenCapacity(int capacity, OverloadPolicy policy) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("Kitchen capacity must be positive. Provided: " + capacity);
+            }
+            this.kitchenCapacity = capacity;
+            this.overloadPolicy = Objects.requireNonNull(policy, "policy");
+            return this;
+        }
+
+        // Record order counters, queue depths and operation latencies into the registry; off unless set
+        public Builder metrics(MetricsRegistry metrics) {
+            this.metrics = Objects.requireNonNull(metrics, "metrics");
+            return this;
+        }
+
+        // Leave the queue gauges to the caller, which registers them across several services
+        Builder withoutGauges() {
+            this.gauges = false;
+            return this;
+        }
+
+        // Wait on and serve the given waiters, shared with the other shards of a ShardedPancakeService
+        Builder shareWaiters(KitchenWaiters waiters) {
+            this.waiters = waiters;
+            return this;
+        }
+
+        // Recover only the orders this one of several partitions owns, from the snapshot and journal they all share
+        Builder recoverOnly(Predicate<UUID> owns, int partitions) {
+            this.recoveredOrders = owns;
+            this.partitions = partitions;
+            return this;
+        }
+
+        // Source of ids for new orders; time-ordered ids from TimeOrderedIds.defaultIds() unless set, e.g. to
+        // a generator on this process's own node, or to UUID::randomUUID
+        public Builder orderIds(Supplier<UUID> orderIds) {
+            this.orderIds = Objects.requireNonNull(orderIds, "orderIds");
+            return this;
+        }
+
+        public PancakeService build() {
+            return new PancakeService(this);
+        }
+    }
 }
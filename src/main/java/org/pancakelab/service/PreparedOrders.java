@@ -0,0 +1,131 @@
+package org.pancakelab.service;
+
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The prepared stage, kept both as one FIFO in preparation order and partitioned by building for route delivery.
+ * Each order sits in both queues; whichever path delivers it first wins, and the other skips it lazily. FIFO
+ * deliveries are nearly always at the head of their building queue and are unlinked there right away. Route
+ * deliveries leave stale FIFO entries behind, which are compacted once they outnumber the live ones.
+ */
+final class PreparedOrders {
+    private static final int MIN_COMPACTION = 1024;
+    private static final Comparator<Order> BY_ROOM = Comparator.comparingInt(Order::getRoom);
+
+    private final Queue<Order> fifo = new ConcurrentLinkedQueue<>();
+    private final Map<Integer, Queue<Order>> byBuilding = new ConcurrentHashMap<>();
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicInteger routedSinceCompaction = new AtomicInteger();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+
+    void add(Order order) {
+        building(order.getBuilding()).add(order);
+        fifo.add(order);
+        live.incrementAndGet();
+    }
+
+    void addAll(List<Order> orders) {
+        for (Order order : orders) {
+            building(order.getBuilding()).add(order);
+        }
+        fifo.addAll(orders);
+        live.addAndGet(orders.size());
+    }
+
+    // Deliver the order prepared first, null when none is waiting
+    Order deliverOldest() {
+        Order order;
+        while ((order = fifo.poll()) != null) {
+            if (claim(order)) {
+                live.decrementAndGet();
+                Queue<Order> queue = byBuilding.get(order.getBuilding());
+                // Both queues are in preparation order, so this is nearly always the head
+                if (queue.peek() == order) {
+                    queue.poll();
+                } else {
+                    queue.remove(order);
+                }
+                return order;
+            }
+        }
+        return null;
+    }
+
+    // Deliver up to maxOrders waiting for one building, sorted by room
+    List<Order> deliverBuilding(int building, int maxOrders) {
+        Queue<Order> queue = byBuilding.get(building);
+        if (queue == null) {
+            return List.of();
+        }
+        List<Order> route = new ArrayList<>();
+        Order order;
+        while (route.size() < maxOrders && (order = queue.poll()) != null) {
+            if (claim(order)) {
+                route.add(order);
+            }
+        }
+        if (!route.isEmpty()) {
+            live.addAndGet(-route.size());
+            if (routedSinceCompaction.addAndGet(route.size()) >= Math.max(MIN_COMPACTION, live.get())) {
+                compact();
+            }
+            route.sort(BY_ROOM);
+        }
+        return route;
+    }
+
+    // Building of the oldest order still waiting, 0 when there is none
+    int oldestBuilding() {
+        for (Order order : fifo) {
+            if (order.getStatus() == OrderStatus.PREPARED) {
+                return order.getBuilding();
+            }
+        }
+        return 0;
+    }
+
+    int size() {
+        return Math.max(live.get(), 0);
+    }
+
+    // May report work that a route delivery just took; callers retry and find nothing
+    boolean isEmpty() {
+        return fifo.isEmpty();
+    }
+
+    List<Order> toList() {
+        return fifo.stream().filter(order -> order.getStatus() == OrderStatus.PREPARED).toList();
+    }
+
+    private Queue<Order> building(int building) {
+        return byBuilding.computeIfAbsent(building, key -> new ConcurrentLinkedQueue<>());
+    }
+
+    private void compact() {
+        if (!compactionLock.tryLock()) {
+            return; // Another courier is already compacting
+        }
+        try {
+            routedSinceCompaction.set(0);
+            fifo.removeIf(order -> order.getStatus() != OrderStatus.PREPARED);
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    // Helper: Move the order to DELIVERED unless another courier already has
+    private static boolean claim(Order order) {
+        return order.tryDeliver();
+    }
+}
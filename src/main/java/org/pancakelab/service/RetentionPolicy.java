@@ -0,0 +1,39 @@
+package org.pancakelab.service;
+
+import java.time.Duration;
+
+/**
+ * How many DELIVERED and CANCELED orders {@link PancakeService} keeps live, and for how long, before moving them to
+ * its {@link org.pancakelab.archive.OrderArchive}. An order is archived as soon as either limit is exceeded.
+ *
+ * @param maxLiveOrders finished orders kept in memory, oldest are archived first
+ * @param maxAge        time a finished order stays in memory after it was delivered or canceled
+ */
+public record RetentionPolicy(int maxLiveOrders, Duration maxAge) {
+    private static final Duration FOREVER = Duration.ofNanos(Long.MAX_VALUE);
+
+    public RetentionPolicy {
+        if (maxLiveOrders < 0) {
+            throw new IllegalArgumentException("Live order limit must not be negative. Provided: " + maxLiveOrders);
+        }
+        if (maxAge.isNegative()) {
+            throw new IllegalArgumentException("Maximum age must not be negative. Provided: " + maxAge);
+        }
+    }
+
+    public static RetentionPolicy keepLatest(int maxLiveOrders) {
+        return new RetentionPolicy(maxLiveOrders, FOREVER);
+    }
+
+    public static RetentionPolicy keepFor(Duration maxAge) {
+        return new RetentionPolicy(Integer.MAX_VALUE, maxAge);
+    }
+
+    // One partition's share of the live order limit, rounded up, e.g. for a shard of a ShardedPancakeService
+    RetentionPolicy perPartition(int partitions) {
+        if (maxLiveOrders == Integer.MAX_VALUE) {
+            return this;
+        }
+        return new RetentionPolicy((int) (((long) maxLiveOrders + partitions - 1) / partitions), maxAge);
+    }
+}
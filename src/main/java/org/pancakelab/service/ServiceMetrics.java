@@ -0,0 +1,112 @@
+package org.pancakelab.service;
+
+import org.pancakelab.metrics.Counter;
+import org.pancakelab.metrics.Histogram;
+import org.pancakelab.metrics.MetricsRegistry;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+
+/**
+ * The instruments a {@link PancakeService} records into. The service holds none when instrumentation is off, so
+ * the disabled cost is one null check per operation. Batch calls record their time split evenly over the orders they
+ * handled, one sample per order, in the histograms of the single-order calls.
+ */
+final class ServiceMetrics {
+    static final int SLOW_ORDERS = 32;
+
+    final Counter created;
+    final Counter placed;
+    final Counter prepared;
+    final Counter delivered;
+    final Counter canceled;
+    final Counter expired;
+    final Counter rejected;
+    final Counter shed;
+    final Histogram createOrder;
+    final Histogram addPancake;
+    final Histogram placeOrder;
+    final Histogram createAndPlaceOrder;
+    final Histogram prepareOrder;
+    final Histogram deliverOrder;
+    final Histogram cancelOrder;
+    final Histogram createdToPlaced;
+    final Histogram placedToPrepared;
+    final Histogram preparedToDelivered;
+    final Histogram endToEnd;
+    final SlowOrders slowOrders = new SlowOrders(SLOW_ORDERS);
+
+    ServiceMetrics(MetricsRegistry registry) {
+        this.created = registry.counter("pancake_orders_created_total");
+        this.placed = registry.counter("pancake_orders_placed_total");
+        this.prepared = registry.counter("pancake_orders_prepared_total");
+        this.delivered = registry.counter("pancake_orders_delivered_total");
+        this.canceled = registry.counter("pancake_orders_canceled_total");
+        this.expired = registry.counter("pancake_orders_expired_total");
+        this.rejected = registry.counter("pancake_orders_rejected_total");
+        this.shed = registry.counter("pancake_orders_shed_total");
+        this.createOrder = registry.histogram("pancake_create_order_nanos");
+        this.addPancake = registry.histogram("pancake_add_pancake_nanos");
+        this.placeOrder = registry.histogram("pancake_place_order_nanos");
+        this.createAndPlaceOrder = registry.histogram("pancake_create_and_place_order_nanos");
+        this.prepareOrder = registry.histogram("pancake_prepare_order_nanos");
+        this.deliverOrder = registry.histogram("pancake_deliver_order_nanos");
+        this.cancelOrder = registry.histogram("pancake_cancel_order_nanos");
+        this.createdToPlaced = registry.histogram("pancake_stage_created_to_placed_nanos");
+        this.placedToPrepared = registry.histogram("pancake_stage_placed_to_prepared_nanos");
+        this.preparedToDelivered = registry.histogram("pancake_stage_prepared_to_delivered_nanos");
+        this.endToEnd = registry.histogram("pancake_order_end_to_end_nanos");
+    }
+
+    // Count a transition and record the stage it completed; expiry and shedding are counted as cancellations too
+    void onEvent(OrderEventType type, Order order) {
+        switch (type) {
+            case CREATE -> created.increment();
+            case PLACE -> {
+                placed.increment();
+                recordStage(createdToPlaced, order.snapshot(), OrderStatus.INIT, OrderStatus.CREATED);
+            }
+            case PREPARE -> {
+                prepared.increment();
+                recordStage(placedToPrepared, order.snapshot(), OrderStatus.CREATED, OrderStatus.PREPARED);
+            }
+            case DELIVER -> {
+                delivered.increment();
+                onDelivered(order);
+            }
+            case CANCEL -> canceled.increment();
+            default -> {
+                // Pancake changes are not counted
+            }
+        }
+    }
+
+    private void onDelivered(Order order) {
+        Order.Snapshot state = order.snapshot();
+        recordStage(preparedToDelivered, state, OrderStatus.PREPARED, OrderStatus.DELIVERED);
+        long endToEndNanos = stage(state, OrderStatus.INIT, OrderStatus.DELIVERED);
+        if (endToEndNanos < 0) {
+            return; // Created before a restart, its start time is unknown
+        }
+        endToEnd.record(endToEndNanos);
+        slowOrders.offer(endToEndNanos, () -> new SlowOrder(order.getId(), order.getBuilding(), order.getRoom(),
+                state.pancakes().size(),
+                stage(state, OrderStatus.INIT, OrderStatus.CREATED),
+                stage(state, OrderStatus.CREATED, OrderStatus.PREPARED),
+                stage(state, OrderStatus.PREPARED, OrderStatus.DELIVERED),
+                endToEndNanos));
+    }
+
+    private static void recordStage(Histogram histogram, Order.Snapshot state, OrderStatus from, OrderStatus to) {
+        long nanos = stage(state, from, to);
+        if (nanos >= 0) {
+            histogram.record(nanos);
+        }
+    }
+
+    // Helper: Time between entering two statuses, -1 when either time is unknown
+    private static long stage(Order.Snapshot state, OrderStatus from, OrderStatus to) {
+        long start = state.enteredAt(from);
+        long end = state.enteredAt(to);
+        return start == Order.NOT_REACHED || end == Order.NOT_REACHED ? -1 : end - start;
+    }
+}
@@ -0,0 +1,544 @@
+package org.pancakelab.service;
+
+import org.pancakelab.archive.OrderArchive;
+import org.pancakelab.metrics.MetricsRegistry;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+import org.pancakelab.model.Pancake;
+import org.pancakelab.model.TimeOrderedIds;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Splits orders by building over N independent {@link PancakeService} partitions, each with its own maps and
+ * queues, so operations for different buildings do not contend. The shard index is stored in the low byte of
+ * every order id, so operations by id go straight to their shard. Reads across all orders merge the shards.
+ * <p>
+ * Kitchen operations that are not tied to a building (prepareOrder, deliverOrder, their batch forms and the take
+ * methods) visit the shards round-robin, so FIFO order holds within a shard but not across shards. The shards share
+ * one set of kitchen waiters, so a worker parked on the whole service is woken by work in any shard.
+ * <p>
+ * Recovery reads one snapshot and one journal for all shards: a {@link SnapshotManager} over this service writes the
+ * merged state, and each shard replays the files keeping only the orders whose ids route to it. Recover with the
+ * shard count the orders were created with, so ids and buildings still route to the same shard.
+ */
+public class ShardedPancakeService implements OrderService {
+    public static final int MAX_SHARDS = 256;
+    private static final long SHARD_MASK = MAX_SHARDS - 1;
+
+    private final PancakeService[] shards;
+    private final KitchenWaiters waiters = new KitchenWaiters();
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public ShardedPancakeService(int shards) {
+        this(new Builder().shards(shards));
+    }
+
+    private ShardedPancakeService(Builder builder) {
+        this.shards = new PancakeService[builder.shards];
+        int count = shards.length;
+        for (int i = 0; i < count; i++) {
+            int shard = i;
+            PancakeService.Builder service = new PancakeService.Builder()
+                    .orderIds(() -> shardedId(shard))
+                    .shareWaiters(waiters);
+            builder.listeners.forEach(service::addListener);
+            if (builder.snapshotDirectory != null) {
+                service.recoverFrom(builder.snapshotDirectory, builder.journalDirectory)
+                        .recoverOnly(orderId -> shardIndex(orderId, count) == shard, count);
+            }
+            if (builder.archive != null) {
+                RetentionPolicy share = builder.retention.perPartition(count);
+                if (builder.archiver != null) {
+                    service.retention(share, builder.archive, builder.archiver);
+                } else {
+                    service.retention(share, builder.archive);
+                }
+            }
+            if (builder.pendingTtl != null) {
+                service.expirePendingOrders(builder.pendingTtl);
+            }
+            if (builder.metrics != null) {
+                service.metrics(builder.metrics).withoutGauges();
+            }
+            if (builder.overloadPolicy != null) {
+                service.kitchenCapacity(builder.kitchenCapacity, builder.overloadPolicy);
+            }
+            shards[i] = service.build();
+        }
+        if (builder.metrics != null) {
+            PancakeService.registerGauges(builder.metrics, List.of(shards));
+        }
+    }
+
+    @Override
+    public Order createOrder(int building, int room) {
+        return forBuilding(building).createOrder(building, room);
+    }
+
+    @Override
+    public void addPancakeToOrder(UUID orderId, Pancake pancake) {
+        forOrder(orderId).addPancakeToOrder(orderId, pancake);
+    }
+
+    @Override
+    public void addPancakesToOrder(UUID orderId, Collection<Pancake> pancakes) {
+        forOrder(orderId).addPancakesToOrder(orderId, pancakes);
+    }
+
+    @Override
+    public void removePancakeFromOrder(UUID orderId, Pancake pancake) {
+        forOrder(orderId).removePancakeFromOrder(orderId, pancake);
+    }
+
+    @Override
+    public void placeOrder(UUID orderId) {
+        forOrder(orderId).placeOrder(orderId);
+    }
+
+    @Override
+    public Order createAndPlaceOrder(int building, int room, Collection<Pancake> pancakes) {
+        return forBuilding(building).createAndPlaceOrder(building, room, pancakes);
+    }
+
+    // Orders before a failing id stay placed, as with PancakeService.placeOrders
+    @Override
+    public void placeOrders(Collection<UUID> orderIds) {
+        List<List<UUID>> byShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (UUID orderId : orderIds) {
+            byShard.get(shardIndex(orderId)).add(orderId);
+        }
+        for (int i = 0; i < shards.length; i++) {
+            if (!byShard.get(i).isEmpty()) {
+                shards[i].placeOrders(byShard.get(i));
+            }
+        }
+    }
+
+    // Each shard places its own ids, failures are reported at the position of the failing id
+    @Override
+    public RuntimeException[] placeOrdersEach(List<UUID> orderIds) {
+        List<List<Integer>> positions = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            positions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < orderIds.size(); i++) {
+            positions.get(shardIndex(orderIds.get(i))).add(i);
+        }
+        RuntimeException[] failures = new RuntimeException[orderIds.size()];
+        for (int i = 0; i < shards.length; i++) {
+            List<Integer> mine = positions.get(i);
+            if (mine.isEmpty()) {
+                continue;
+            }
+            List<UUID> ids = new ArrayList<>(mine.size());
+            mine.forEach(position -> ids.add(orderIds.get(position)));
+            RuntimeException[] shardFailures = shards[i].placeOrdersEach(ids);
+            for (int j = 0; j < shardFailures.length; j++) {
+                failures[mine.get(j)] = shardFailures[j];
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public void prepareOrder() {
+        if (prepareOrders(1) == 0) {
+            System.out.println("No orders to prepare.");
+        }
+    }
+
+    // Prepare up to maxOrders, taking them from the shards in turn
+    @Override
+    public int prepareOrders(int maxOrders) {
+        PancakeService.validateMaxOrders(maxOrders);
+        int prepared = 0;
+        int start = nextShard.getAndIncrement();
+        for (int i = 0; i < shards.length && prepared < maxOrders; i++) {
+            prepared += shards[Math.floorMod(start + i, shards.length)].prepareOrders(maxOrders - prepared);
+        }
+        return prepared;
+    }
+
+    @Override
+    public void deliverOrder() {
+        if (deliverOrders(1) == 0) {
+            System.out.println("No orders in PREPARED state to deliver.");
+        }
+    }
+
+    // Deliver up to maxOrders, taking them from the shards in turn
+    @Override
+    public int deliverOrders(int maxOrders) {
+        PancakeService.validateMaxOrders(maxOrders);
+        int delivered = 0;
+        int start = nextShard.getAndIncrement();
+        for (int i = 0; i < shards.length && delivered < maxOrders; i++) {
+            delivered += shards[Math.floorMod(start + i, shards.length)].deliverOrders(maxOrders - delivered);
+        }
+        return delivered;
+    }
+
+    @Override
+    public List<Order> deliverBatch(int building, int maxOrders) {
+        return forBuilding(building).deliverBatch(building, maxOrders);
+    }
+
+    // The longest waiting building of the next shard that has prepared orders
+    @Override
+    public List<Order> deliverNextRoute() {
+        int start = nextShard.getAndIncrement();
+        for (int i = 0; i < shards.length; i++) {
+            List<Order> route = shards[Math.floorMod(start + i, shards.length)].deliverNextRoute();
+            if (!route.isEmpty()) {
+                return route;
+            }
+        }
+        return List.of();
+    }
+
+    @Override
+    public Optional<Order> takeNextOrderToPrepare(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            Order order = next(PancakeService::prepareNext);
+            long remaining = deadline - System.nanoTime();
+            if (order != null || remaining <= 0) {
+                return Optional.ofNullable(order);
+            }
+            awaitPlacedOrders(remaining, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public Optional<Order> takeNextOrderToDeliver(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            Order order = next(PancakeService::deliverNext);
+            long remaining = deadline - System.nanoTime();
+            if (order != null || remaining <= 0) {
+                return Optional.ofNullable(order);
+            }
+            awaitPreparedOrders(remaining, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // The waiter joins the queue every shard serves, so the first shard with a placed order completes it
+    @Override
+    public CompletableFuture<Order> takeNextOrderToPrepareAsync() {
+        CompletableFuture<Order> waiter = new CompletableFuture<>();
+        waiters.prepareWaiters().add(waiter);
+        for (PancakeService shard : shards) {
+            shard.servePrepareWaiters();
+        }
+        return waiter;
+    }
+
+    @Override
+    public CompletableFuture<Order> takeNextOrderToDeliverAsync() {
+        CompletableFuture<Order> waiter = new CompletableFuture<>();
+        waiters.deliverWaiters().add(waiter);
+        for (PancakeService shard : shards) {
+            shard.serveDeliverWaiters();
+        }
+        return waiter;
+    }
+
+    @Override
+    public boolean awaitPlacedOrders(long timeout, TimeUnit unit) throws InterruptedException {
+        return waiters.placed().await(() -> any(PancakeService::hasPlacedOrders), timeout, unit);
+    }
+
+    @Override
+    public boolean awaitPreparedOrders(long timeout, TimeUnit unit) throws InterruptedException {
+        return waiters.prepared().await(() -> any(PancakeService::hasPreparedOrders), timeout, unit);
+    }
+
+    @Override
+    public void wakeWorkers() {
+        waiters.placed().wakeAll();
+        waiters.prepared().wakeAll();
+    }
+
+    @Override
+    public void cancelOrder(UUID orderId) {
+        forOrder(orderId).cancelOrder(orderId);
+    }
+
+    @Override
+    public Optional<Order> findOrder(UUID orderId) {
+        return forOrder(orderId).findOrder(orderId);
+    }
+
+    @Override
+    public List<Order> findOrdersByBuilding(int building) {
+        return forBuilding(building).findOrdersByBuilding(building);
+    }
+
+    @Override
+    public List<Order> findOrdersByRoom(int building, int room) {
+        return forBuilding(building).findOrdersByRoom(building, room);
+    }
+
+    @Override
+    public List<Order> findOrdersByStatus(OrderStatus status) {
+        return merge(shard -> shard.findOrdersByStatus(status));
+    }
+
+    @Override
+    public long[] quoteOrders(List<UUID> orderIds) {
+        long[] totals = new long[orderIds.size()];
+        int i = 0;
+        for (UUID orderId : orderIds) {
+            totals[i++] = findOrder(orderId)
+                    .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId))
+                    .getTotalCents();
+        }
+        return totals;
+    }
+
+    // Prices do not depend on the shard
+    @Override
+    public long[] quotePancakes(List<Pancake> pancakes) {
+        return shards[0].quotePancakes(pancakes);
+    }
+
+    @Override
+    public void enforceRetention() {
+        for (PancakeService shard : shards) {
+            shard.enforceRetention();
+        }
+    }
+
+    @Override
+    public void expirePendingOrders() {
+        for (PancakeService shard : shards) {
+            shard.expirePendingOrders();
+        }
+    }
+
+    // The slowest orders across all shards, slowest first
+    @Override
+    public List<SlowOrder> slowestOrders() {
+        return merge(PancakeService::slowestOrders).stream()
+                .sorted(Comparator.comparingLong(SlowOrder::endToEndNanos).reversed())
+                .limit(ServiceMetrics.SLOW_ORDERS)
+                .toList();
+    }
+
+    @Override
+    public void clearSlowestOrders() {
+        for (PancakeService shard : shards) {
+            shard.clearSlowestOrders();
+        }
+    }
+
+    @Override
+    public ExpiryStats expiryStats() {
+        ExpiryStats total = ExpiryStats.DISABLED;
+        for (PancakeService shard : shards) {
+            total = total.plus(shard.expiryStats());
+        }
+        return total;
+    }
+
+    // Placed orders waiting to be prepared, summed over the shards
+    @Override
+    public int getKitchenBacklog() {
+        int backlog = 0;
+        for (PancakeService shard : shards) {
+            backlog += shard.getKitchenBacklog();
+        }
+        return backlog;
+    }
+
+    // Summed over the shards, Integer.MAX_VALUE unless a capacity was configured
+    @Override
+    public int getKitchenCapacity() {
+        long capacity = 0;
+        for (PancakeService shard : shards) {
+            capacity += shard.getKitchenCapacity();
+        }
+        return (int) Math.min(capacity, Integer.MAX_VALUE);
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    // Merged read-only copies: each shard is read on its own, so the result is not one atomic snapshot
+    @Override
+    public Map<UUID, Order> getPendingOrders() {
+        Map<UUID, Order> merged = new HashMap<>();
+        for (PancakeService shard : shards) {
+            merged.putAll(shard.getPendingOrders());
+        }
+        return Collections.unmodifiableMap(merged);
+    }
+
+    @Override
+    public Map<UUID, Order> getOrders() {
+        Map<UUID, Order> merged = new HashMap<>();
+        for (PancakeService shard : shards) {
+            merged.putAll(shard.getOrders());
+        }
+        return Collections.unmodifiableMap(merged);
+    }
+
+    @Override
+    public List<Order> getNewOrders() {
+        return merge(PancakeService::getNewOrders);
+    }
+
+    @Override
+    public List<Order> getPreparedOrders() {
+        return merge(PancakeService::getPreparedOrders);
+    }
+
+    @Override
+    public List<Order> getDeliveredOrders() {
+        return merge(PancakeService::getDeliveredOrders);
+    }
+
+    private <T> List<T> merge(Function<PancakeService, List<T>> getter) {
+        List<T> merged = new ArrayList<>();
+        for (PancakeService shard : shards) {
+            merged.addAll(getter.apply(shard));
+        }
+        return Collections.unmodifiableList(merged);
+    }
+
+    // Helper: The first order the step finds, visiting the shards round-robin
+    private Order next(Function<PancakeService, Order> step) {
+        int start = nextShard.getAndIncrement();
+        for (int i = 0; i < shards.length; i++) {
+            Order order = step.apply(shards[Math.floorMod(start + i, shards.length)]);
+            if (order != null) {
+                return order;
+            }
+        }
+        return null;
+    }
+
+    private boolean any(Predicate<PancakeService> hasWork) {
+        for (PancakeService shard : shards) {
+            if (hasWork.test(shard)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Invalid buildings still reach a shard, which rejects them with the usual message
+    private PancakeService forBuilding(int building) {
+        return shards[Math.floorMod(building, shards.length)];
+    }
+
+    // Ids from elsewhere land on some shard, which reports them as not found
+    private PancakeService forOrder(UUID orderId) {
+        return shards[shardIndex(orderId)];
+    }
+
+    private int shardIndex(UUID orderId) {
+        return shardIndex(orderId, shards.length);
+    }
+
+    private static int shardIndex(UUID orderId, int shards) {
+        return (int) (orderId.getLeastSignificantBits() & SHARD_MASK) % shards;
+    }
+
+    // Helper: A time-ordered id whose low byte names the shard, from the calling thread's lane, see TimeOrderedIds
+    private static UUID shardedId(int shard) {
+        return TimeOrderedIds.defaultIds().nextUuid(shard);
+    }
+
+    public static class Builder {
+        private final List<OrderEventListener> listeners = new ArrayList<>();
+        private int shards = Runtime.getRuntime().availableProcessors();
+        private Path snapshotDirectory;
+        private Path journalDirectory;
+        private RetentionPolicy retention;
+        private OrderArchive archive;
+        private Executor archiver; // null for the default archiver threads
+        private Duration pendingTtl;
+        private MetricsRegistry metrics;
+        private int kitchenCapacity;
+        private OverloadPolicy overloadPolicy;
+
+        public Builder shards(int shards) {
+            if (shards <= 0 || shards > MAX_SHARDS) {
+                throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_SHARDS + ": " + shards);
+            }
+            this.shards = shards;
+            return this;
+        }
+
+        // Shared by every shard, so it must be thread safe, e.g. an OrderJournal
+        public Builder addListener(OrderEventListener listener) {
+            listeners.add(Objects.requireNonNull(listener, "listener"));
+            return this;
+        }
+
+        // Start every shard from the latest snapshot in snapshotDirectory plus the journal events recorded after it,
+        // each keeping the orders it owns
+        public Builder recoverFrom(Path snapshotDirectory, Path journalDirectory) {
+            this.snapshotDirectory = Objects.requireNonNull(snapshotDirectory, "snapshotDirectory");
+            this.journalDirectory = Objects.requireNonNull(journalDirectory, "journalDirectory");
+            return this;
+        }
+
+        // Archive finished orders as PancakeService.Builder.retention does, into one archive shared by the shards.
+        // The live order limit is split evenly over the shards.
+        public Builder retention(RetentionPolicy retention, OrderArchive archive) {
+            this.retention = Objects.requireNonNull(retention, "retention");
+            this.archive = Objects.requireNonNull(archive, "archive");
+            this.archiver = null;
+            return this;
+        }
+
+        public Builder retention(RetentionPolicy retention, OrderArchive archive, Executor archiver) {
+            retention(retention, archive);
+            this.archiver = Objects.requireNonNull(archiver, "archiver");
+            return this;
+        }
+
+        public Builder expirePendingOrders(Duration ttl) {
+            if (ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("Pending order TTL must be positive. Provided: " + ttl);
+            }
+            this.pendingTtl = ttl;
+            return this;
+        }
+
+        // Bound each shard's kitchen backlog, so the service as a whole holds up to shards * capacity placed orders
+        public Builder kitchenCapacity(int capacity, OverloadPolicy policy) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("Kitchen capacity must be positive. Provided: " + capacity);
+            }
+            this.kitchenCapacity = capacity;
+            this.overloadPolicy = Objects.requireNonNull(policy, "policy");
+            return this;
+        }
+
+        // Every shard records into the same instruments, so the registry reports totals across shards
+        public Builder metrics(MetricsRegistry metrics) {
+            this.metrics = Objects.requireNonNull(metrics, "metrics");
+            return this;
+        }
+
+        public ShardedPancakeService build() {
+            return new ShardedPancakeService(this);
+        }
+    }
+}
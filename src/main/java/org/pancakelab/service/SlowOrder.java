@@ -0,0 +1,17 @@
+package org.pancakelab.service;
+
+import java.util.UUID;
+
+/**
+ * Stage latencies of one delivered order, kept by {@link PancakeService#slowestOrders()} when it is among the
+ * slowest end to end. A stage the order reached without a recorded time, e.g. after crash recovery, is -1.
+ */
+public record SlowOrder(UUID orderId,
+                        int building,
+                        int room,
+                        int pancakeCount,
+                        long createdToPlacedNanos,
+                        long placedToPreparedNanos,
+                        long preparedToDeliveredNanos,
+                        long endToEndNanos) {
+}
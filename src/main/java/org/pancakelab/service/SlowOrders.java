@@ -0,0 +1,50 @@
+package org.pancakelab.service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Supplier;
+
+/**
+ * Tail sampler keeping the slowest delivered orders. Orders faster than the slowest kept ones are rejected with a
+ * single volatile read, so only the rare slow order takes the lock.
+ */
+final class SlowOrders {
+    private static final Comparator<SlowOrder> BY_END_TO_END = Comparator.comparingLong(SlowOrder::endToEndNanos);
+
+    private final int capacity;
+    private final PriorityQueue<SlowOrder> slowest = new PriorityQueue<>(BY_END_TO_END); // Fastest kept at the head
+    private volatile long floor = Long.MIN_VALUE; // Time an order must beat once the sampler is full
+
+    SlowOrders(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void offer(long endToEndNanos, Supplier<SlowOrder> sample) {
+        if (endToEndNanos <= floor) {
+            return;
+        }
+        synchronized (this) {
+            if (slowest.size() == capacity) {
+                if (endToEndNanos <= slowest.peek().endToEndNanos()) {
+                    return;
+                }
+                slowest.poll();
+            }
+            slowest.add(sample.get());
+            if (slowest.size() == capacity) {
+                floor = slowest.peek().endToEndNanos();
+            }
+        }
+    }
+
+    // Slowest first
+    synchronized List<SlowOrder> toList() {
+        return slowest.stream().sorted(BY_END_TO_END.reversed()).toList();
+    }
+
+    synchronized void clear() {
+        slowest.clear();
+        floor = Long.MIN_VALUE;
+    }
+}
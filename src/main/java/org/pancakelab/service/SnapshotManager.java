@@ -0,0 +1,204 @@
+package org.pancakelab.service;
+
+import org.pancakelab.journal.OrderJournal;
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.Pancake;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Writes compact binary snapshots of an {@link OrderService} while writers keep running. Each snapshot records the
+ * journal sequence observed before it started; recovery loads the latest snapshot and replays the journal from that
+ * sequence, skipping events whose revision the snapshot already reflects. Once a snapshot is on disk the journal
+ * may delete the segments before its sequence, see {@link OrderJournal#retainFrom(long)}.
+ * <pre>
+ * header:  magic(long) version(int) journalSequence(long) pendingCount(int) orderCount(int), counts are sizing hints
+ * orders:  pendingOrders, then orders, each as
+ *          (1 idMsb(long) idLsb(long) building(int) room(int) status(byte) revision(int)
+ *           pancakeCount(int) pancakes)* 0
+ * pancake: baseCount(byte) ordinals(byte*) customCount(byte) ordinals(byte*)
+ * queues:  newOrders, preparedOrders, deliveredOrders as (1 idMsb(long) idLsb(long))* 0
+ * </pre>
+ */
+public class SnapshotManager implements AutoCloseable {
+    static final long MAGIC = 0x504B534E41503031L; // "PKSNAP01"
+    static final int VERSION = 2;
+    static final String SNAPSHOT_SUFFIX = ".snapshot";
+    static final int BUFFER_SIZE = 1 << 20;
+    static final int ORDER_HEADER_SIZE = 34;
+
+    private final OrderService service;
+    private final OrderJournal journal;
+    private final Path directory;
+    private final int retainedSnapshots;
+    private ScheduledExecutorService scheduler;
+
+    public SnapshotManager(OrderService service, OrderJournal journal, Path directory, int retainedSnapshots) {
+        if (retainedSnapshots <= 0) {
+            throw new IllegalArgumentException("At least one snapshot must be retained. Provided: " + retainedSnapshots);
+        }
+        this.service = Objects.requireNonNull(service, "service");
+        this.journal = Objects.requireNonNull(journal, "journal");
+        this.directory = Objects.requireNonNull(directory, "directory");
+        this.retainedSnapshots = retainedSnapshots;
+        try {
+            List<Path> snapshots = snapshotFiles(directory);
+            if (!snapshots.isEmpty()) {
+                journal.retainFrom(journalSequence(snapshots.get(snapshots.size() - 1)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list snapshots in " + directory, e);
+        }
+    }
+
+    // Take snapshots in the background every intervalMillis
+    public synchronized void start(long intervalMillis) {
+        if (scheduler != null) {
+            throw new IllegalStateException("Snapshots are already scheduled.");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                takeSnapshot();
+            } catch (IOException | RuntimeException e) {
+                // Keep the schedule alive, the next snapshot retries
+                System.err.println("Failed to write snapshot to " + directory + ": " + e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized Path takeSnapshot() throws IOException {
+        Files.createDirectories(directory);
+        // Everything journaled before this sequence is already visible in the service state
+        long journalSequence = journal.nextSequence();
+        Path temporary = directory.resolve("snapshot.tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.putLong(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putLong(journalSequence);
+            buffer.putInt(service.getPendingOrders().size());
+            buffer.putInt(service.getOrders().size());
+            // pendingOrders first: placeOrder tracks an order in orders before it leaves pendingOrders
+            writeOrders(channel, buffer, service.getPendingOrders().values());
+            writeOrders(channel, buffer, service.getOrders().values());
+            writeIds(channel, buffer, service.getNewOrders());
+            writeIds(channel, buffer, service.getPreparedOrders());
+            writeIds(channel, buffer, service.getDeliveredOrders());
+            drain(channel, buffer);
+            channel.force(true); // Durable before the journal may drop what it covers
+        }
+        Path snapshot = directory.resolve("%020d%s".formatted(journalSequence, SNAPSHOT_SUFFIX));
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        applyRetention();
+        journal.retainFrom(journalSequence); // Recovery replays from the latest snapshot
+        return snapshot;
+    }
+
+    static long journalSequence(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    private static void writeOrders(FileChannel channel, ByteBuffer buffer, Collection<Order> orders) throws IOException {
+        for (Order order : orders) {
+            Order.Snapshot state = order.snapshot();
+            List<Pancake> pancakes = state.pancakes();
+            int status = state.status().ordinal();
+            ensureRemaining(channel, buffer, ORDER_HEADER_SIZE);
+            buffer.put((byte) 1);
+            buffer.putLong(order.getId().getMostSignificantBits());
+            buffer.putLong(order.getId().getLeastSignificantBits());
+            buffer.putInt(order.getBuilding());
+            buffer.putInt(order.getRoom());
+            buffer.put((byte) status);
+            buffer.putInt(state.revision());
+            buffer.putInt(pancakes.size());
+            for (Pancake pancake : pancakes) {
+                writeIngredients(channel, buffer, pancake.baseIngredients());
+                writeIngredients(channel, buffer, pancake.customIngredients());
+            }
+        }
+        ensureRemaining(channel, buffer, 1);
+        buffer.put((byte) 0);
+    }
+
+    private static void writeIngredients(FileChannel channel, ByteBuffer buffer, List<Ingredient> ingredients) throws IOException {
+        ensureRemaining(channel, buffer, 1 + ingredients.size());
+        buffer.put((byte) ingredients.size());
+        for (Ingredient ingredient : ingredients) {
+            buffer.put((byte) ingredient.ordinal());
+        }
+    }
+
+    private static void writeIds(FileChannel channel, ByteBuffer buffer, List<Order> orders) throws IOException {
+        for (Order order : orders) {
+            ensureRemaining(channel, buffer, 17);
+            buffer.put((byte) 1);
+            buffer.putLong(order.getId().getMostSignificantBits());
+            buffer.putLong(order.getId().getLeastSignificantBits());
+        }
+        ensureRemaining(channel, buffer, 1);
+        buffer.put((byte) 0);
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void applyRetention() throws IOException {
+        List<Path> snapshots = snapshotFiles(directory);
+        for (int i = 0; i < snapshots.size() - retainedSnapshots; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+
+    // Snapshot files of a directory, oldest first
+    static List<Path> snapshotFiles(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
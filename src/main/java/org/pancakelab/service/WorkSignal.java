@@ -0,0 +1,65 @@
+package org.pancakelab.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Parks consumers of a lock-free queue until work arrives. Producers only touch the lock when someone is waiting,
+ * so the enqueue fast path stays a single volatile read.
+ */
+final class WorkSignal {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ready = lock.newCondition();
+    private volatile int waiters;
+    private long generation; // Bumped by wakeAll, guarded by lock
+
+    // Called after work was enqueued. The enqueue and the waiters read pair with the waiter's increment and recheck.
+    void signal(int items) {
+        if (waiters == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (items == 1) {
+                ready.signal();
+            } else {
+                ready.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Release every waiter even when there is no work, e.g. so workers notice a shutdown
+    void wakeAll() {
+        lock.lock();
+        try {
+            generation++;
+            ready.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Wait until hasWork holds, wakeAll is called or the timeout passes; returns hasWork
+    boolean await(BooleanSupplier hasWork, long timeout, TimeUnit unit) throws InterruptedException {
+        if (hasWork.getAsBoolean()) {
+            return true;
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            waiters++;
+            long start = generation;
+            while (!hasWork.getAsBoolean() && generation == start && nanos > 0) {
+                nanos = ready.awaitNanos(nanos);
+            }
+            return hasWork.getAsBoolean();
+        } finally {
+            waiters--;
+            lock.unlock();
+        }
+    }
+}
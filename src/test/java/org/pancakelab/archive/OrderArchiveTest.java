@@ -0,0 +1,232 @@
+package org.pancakelab.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pancakelab.journal.OrderJournal;
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+import org.pancakelab.model.Pancake;
+import org.pancakelab.service.PancakeService;
+import org.pancakelab.service.RetentionPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderArchiveTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void archive_shouldFindOrdersAfterReopenAndIndexGrowth() throws IOException {
+        // Arrange
+        Pancake pancake = Pancake.Builder.standard()
+                .addCustomIngredient(Ingredient.WHIPPED_CREAM)
+                .build();
+        List<Order> orders = new ArrayList<>();
+        try (OrderArchive archive = OrderArchive.open(directory)) {
+            for (int i = 1; i <= 5000; i++) {
+                Order order = new Order(i % 10 + 1, i);
+                order.addPancake(pancake);
+                orders.add(order);
+                archive.archive(order);
+            }
+        }
+
+        // Act
+        try (OrderArchive archive = OrderArchive.open(directory)) {
+            // Assert
+            assertEquals(5000, archive.size());
+            for (Order order : orders) {
+                Order archived = archive.find(order.getId()).orElseThrow();
+                assertEquals(order.getRoom(), archived.getRoom());
+                assertEquals(order.getBuilding(), archived.getBuilding());
+                assertEquals(order.getPancakes(), archived.getPancakes());
+            }
+            assertTrue(archive.find(UUID.randomUUID()).isEmpty());
+        }
+    }
+
+    @Test
+    void retention_shouldKeepOnlyLatestFinishedOrdersLive() throws IOException {
+        // Arrange
+        try (OrderArchive archive = OrderArchive.open(directory)) {
+            PancakeService service = new PancakeService.Builder()
+                    .retention(RetentionPolicy.keepLatest(2), archive, Runnable::run)
+                    .build();
+            List<UUID> ids = new ArrayList<>();
+
+            // Act
+            for (int i = 1; i <= 5; i++) {
+                Order order = service.createOrder(5, 100 + i);
+                service.addPancakeToOrder(order.getId(), Pancake.Builder.standard().build());
+                service.placeOrder(order.getId());
+                service.prepareOrder();
+                service.deliverOrder();
+                ids.add(order.getId());
+            }
+
+            // Assert
+            assertEquals(2, service.getDeliveredOrders().size());
+            assertEquals(2, service.getOrders().size());
+            assertEquals(3, archive.size());
+            Order archived = service.findOrder(ids.get(0)).orElseThrow();
+            assertEquals(OrderStatus.DELIVERED, archived.getStatus());
+            assertEquals(101, archived.getRoom());
+            assertEquals(ids.get(3), service.getDeliveredOrders().get(0).getId());
+        }
+    }
+
+    @Test
+    void retention_shouldArchiveCanceledOrdersOnceTooOld() throws IOException {
+        // Arrange
+        try (OrderArchive archive = OrderArchive.open(directory)) {
+            PancakeService service = new PancakeService.Builder()
+                    .retention(RetentionPolicy.keepFor(Duration.ZERO), archive, Runnable::run)
+                    .build();
+            Order order = service.createOrder(5, 101);
+            service.addPancakeToOrder(order.getId(), Pancake.Builder.vegan().build());
+            service.placeOrder(order.getId());
+
+            // Act
+            service.cancelOrder(order.getId());
+            service.enforceRetention();
+
+            // Assert
+            assertFalse(service.getOrders().containsKey(order.getId()));
+            assertEquals(OrderStatus.CANCELED, service.findOrder(order.getId()).orElseThrow().getStatus());
+        }
+    }
+
+    @Test
+    void retention_shouldArchiveOnTheArchiverNotTheDeliveringThread() throws IOException {
+        // Arrange: an archiver that only runs when told to
+        Queue<Runnable> archiver = new ArrayDeque<>();
+        try (OrderArchive archive = OrderArchive.open(directory)) {
+            PancakeService service = new PancakeService.Builder()
+                    .retention(RetentionPolicy.keepLatest(2), archive, archiver::add)
+                    .build();
+            for (int i = 1; i <= 5; i++) {
+                service.createAndPlaceOrder(5, 100 + i, List.of(Pancake.Builder.standard().build()));
+            }
+
+            // Act
+            service.prepareOrders(5);
+            service.deliverOrders(5);
+
+            // Assert
+            assertEquals(0, archive.size());
+            assertEquals(5, service.getDeliveredOrders().size());
+            assertEquals(1, archiver.size()); // One run covers every order retired before it starts
+            archiver.poll().run();
+            assertEquals(3, archive.size());
+            assertEquals(2, service.getDeliveredOrders().size());
+        }
+    }
+
+    @Test
+    void retention_shouldArchiveEveryOrderDeliveredConcurrently() throws Exception {
+        // Arrange
+        try (OrderArchive archive = OrderArchive.open(directory)) {
+            PancakeService service = new PancakeService.Builder()
+                    .retention(RetentionPolicy.keepLatest(10), archive)
+                    .build();
+            for (int i = 0; i < 400; i++) {
+                service.createAndPlaceOrder(i % 5 + 1, 101, List.of(Pancake.Builder.standard().build()));
+            }
+            service.prepareOrders(400);
+            Thread[] couriers = new Thread[4];
+
+            // Act
+            for (int t = 0; t < couriers.length; t++) {
+                couriers[t] = new Thread(() -> {
+                    while (service.deliverOrders(7) > 0) {
+                        Thread.onSpinWait();
+                    }
+                });
+                couriers[t].start();
+            }
+            for (Thread courier : couriers) {
+                courier.join();
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (archive.size() < 390 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+
+            // Assert
+            assertEquals(390, archive.size());
+            assertEquals(10, service.getOrders().size());
+            assertEquals(10, service.getDeliveredOrders().size());
+        }
+    }
+
+    @Test
+    void cancelOrder_shouldArchiveCanceledPendingOrders() throws IOException {
+        // Arrange
+        try (OrderArchive archive = OrderArchive.open(directory)) {
+            PancakeService service = new PancakeService.Builder()
+                    .retention(RetentionPolicy.keepLatest(100), archive, Runnable::run)
+                    .build();
+            Order order = service.createOrder(5, 101);
+            service.addPancakeToOrder(order.getId(), Pancake.Builder.vegan().build());
+
+            // Act
+            service.cancelOrder(order.getId());
+
+            // Assert
+            assertTrue(service.getPendingOrders().isEmpty());
+            Order archived = service.findOrder(order.getId()).orElseThrow();
+            assertEquals(OrderStatus.CANCELED, archived.getStatus());
+            assertEquals(order.getPancakes(), archived.getPancakes());
+        }
+    }
+
+    @Test
+    void recover_shouldNotArchiveOrdersAgain() throws IOException {
+        // Arrange: every delivered order is archived, then replay brings them back
+        Path journalDirectory = directory.resolve("journal");
+        Path archiveDirectory = directory.resolve("archive");
+        List<UUID> ids = new ArrayList<>();
+        try (OrderArchive archive = OrderArchive.open(archiveDirectory);
+             OrderJournal journal = new OrderJournal.Builder(journalDirectory).open()) {
+            PancakeService service = new PancakeService.Builder()
+                    .addListener(journal)
+                    .retention(RetentionPolicy.keepLatest(0), archive, Runnable::run)
+                    .build();
+            for (int i = 1; i <= 3; i++) {
+                ids.add(service.createAndPlaceOrder(5, 100 + i, List.of(Pancake.Builder.standard().build())).getId());
+            }
+            service.prepareOrders(3);
+            service.deliverOrders(3);
+            assertEquals(3, archive.size());
+        }
+        long archivedBytes = Files.size(archiveDirectory.resolve("orders.dat"));
+
+        // Act
+        try (OrderArchive archive = OrderArchive.open(archiveDirectory)) {
+            PancakeService recovered = new PancakeService.Builder()
+                    .recoverFrom(directory.resolve("snapshots"), journalDirectory)
+                    .retention(RetentionPolicy.keepLatest(0), archive, Runnable::run)
+                    .build();
+
+            // Assert
+            assertEquals(archivedBytes, Files.size(archiveDirectory.resolve("orders.dat")));
+            assertTrue(recovered.getOrders().isEmpty());
+            assertTrue(recovered.getDeliveredOrders().isEmpty());
+            for (UUID id : ids) {
+                assertEquals(OrderStatus.DELIVERED, recovered.findOrder(id).orElseThrow().getStatus());
+            }
+        }
+    }
+}
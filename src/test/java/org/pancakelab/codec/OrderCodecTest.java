@@ -0,0 +1,117 @@
+package org.pancakelab.codec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+import org.pancakelab.model.Pancake;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCodecTest {
+    private final Pancake chocolate = Pancake.Builder.standard().addCustomIngredient(Ingredient.DARK_CHOCOLATE).build();
+    private final Pancake vegan = Pancake.Builder.vegan().addCustomIngredient(Ingredient.HAZELNUT).build();
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void readOrder_shouldRestoreTheWrittenOrder(boolean direct) {
+        // Arrange
+        Order order = new Order(300, 70_000);
+        order.addPancakes(List.of(chocolate, vegan, chocolate));
+        order.placeOrder();
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(256) : ByteBuffer.allocate(256);
+
+        // Act
+        OrderCodec.writeOrder(buffer, order);
+        int written = buffer.position();
+        Order decoded = OrderCodec.readOrder(buffer.flip());
+
+        // Assert
+        assertEquals(OrderCodec.encodedLength(order, order.snapshot()), written);
+        assertEquals(written, buffer.position());
+        assertEquals(order.getId(), decoded.getId());
+        assertEquals(300, decoded.getBuilding());
+        assertEquals(70_000, decoded.getRoom());
+        assertEquals(OrderStatus.CREATED, decoded.getStatus());
+        assertEquals(order.getPancakes(), decoded.getPancakes());
+        assertSame(chocolate, decoded.getPancakes().get(0)); // Recipes decode to the shared instance
+    }
+
+    @Test
+    void orderView_shouldReadFieldsOfConsecutiveOrdersInPlace() {
+        // Arrange
+        Order first = new Order(5, 101);
+        first.addPancakes(List.of(chocolate, vegan));
+        Order second = new Order(200, 7);
+        second.addPancake(vegan);
+        second.placeOrder();
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        OrderCodec.writeOrder(buffer, first);
+        OrderCodec.writeOrder(buffer, second);
+        buffer.flip();
+
+        // Act
+        OrderView view = new OrderView().wrap(buffer, 0);
+        PancakeView pancake = view.pancake(1, new PancakeView());
+        OrderView next = new OrderView().wrap(buffer, view.length());
+
+        // Assert
+        assertEquals(0, buffer.position()); // Views never move the buffer
+        assertTrue(view.hasId(first.getId()));
+        assertEquals(OrderStatus.INIT, view.status());
+        assertEquals(5, view.building());
+        assertEquals(101, view.room());
+        assertEquals(first.getTotalCents(), view.totalCents());
+        assertEquals(2, view.pancakeCount());
+        assertEquals(vegan.recipe(), pancake.recipe());
+        assertTrue(pancake.contains(Ingredient.HAZELNUT));
+        assertFalse(pancake.contains(Ingredient.EGG));
+        assertEquals(second.getId(), next.id());
+        assertEquals(OrderStatus.CREATED, next.status());
+        assertEquals(200, next.building());
+        assertEquals(buffer.limit(), view.length() + next.length());
+        assertEquals(second.getPancakes(), next.toOrder().getPancakes());
+    }
+
+    @Test
+    void codec_shouldRejectMalformedAndOversizedInput() {
+        // Arrange
+        Order order = new Order(5, 101);
+        order.addPancake(chocolate);
+        ByteBuffer small = ByteBuffer.allocate(8);
+        ByteBuffer unknownIngredient = ByteBuffer.wrap(new byte[]{1, 42, 0});
+        ByteBuffer longVarint = ByteBuffer.wrap(new byte[]{-1, -1, -1, -1, -1, 1});
+
+        // Act & Assert
+        assertThrows(BufferOverflowException.class, () -> OrderCodec.writeOrder(small, order));
+        assertEquals(0, small.position());
+        assertThrows(IllegalArgumentException.class, () -> OrderCodec.readPancake(unknownIngredient));
+        assertThrows(IllegalArgumentException.class, () -> OrderCodec.getVarint(longVarint));
+    }
+
+    @Test
+    void varints_shouldRoundTripAtByteBoundaries() {
+        // Arrange
+        int[] values = {0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, -1};
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+
+        // Act
+        for (int value : values) {
+            OrderCodec.putVarint(buffer, value);
+        }
+        buffer.flip();
+
+        // Assert
+        for (int value : values) {
+            int start = buffer.position();
+            assertEquals(value, OrderCodec.getVarint(buffer));
+            assertEquals(OrderCodec.varintLength(value), buffer.position() - start);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.pancakelab.http;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pancakelab.service.PancakeService;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderHttpServerTest {
+    private static final Pattern ID = Pattern.compile("\"id\":\"([0-9a-f-]{36})\"");
+
+    private OrderHttpServer server;
+    private HttpClient client;
+    private String baseUri;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new OrderHttpServer(new PancakeService(), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        client = HttpClient.newHttpClient();
+        baseUri = "http://localhost:" + server.address().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void orderLifecycle_shouldBeServedOverHttp() throws Exception {
+        // Arrange
+        HttpResponse<String> created = post("/orders", "{\"building\":5,\"room\":101}");
+        String orderId = id(created.body());
+
+        // Act
+        HttpResponse<String> added = post("/orders/" + orderId + "/pancakes",
+                "{\"base\":[\"FLOUR\",\"EGG\",\"MILK\"],\"custom\":[\"DARK_CHOCOLATE\"],\"quantity\":2}");
+        HttpResponse<String> placed = post("/orders/" + orderId + "/place", "");
+        HttpResponse<String> prepared = post("/kitchen/prepare", "");
+        HttpResponse<String> nothingToPrepare = post("/kitchen/prepare", "");
+        HttpResponse<String> delivered = post("/kitchen/deliver?waitMillis=1000", "");
+        HttpResponse<String> byStatus = get("/orders?status=DELIVERED");
+
+        // Assert
+        assertEquals(201, created.statusCode());
+        assertTrue(created.body().contains("\"building\":5,\"room\":101,\"status\":\"INIT\""));
+        assertEquals(200, added.statusCode());
+        assertTrue(added.body().contains("\"totalCents\":750"), added.body());
+        assertTrue(added.body().contains("{\"base\":[\"MILK\",\"FLOUR\",\"EGG\"],\"custom\":[\"DARK_CHOCOLATE\"]}"));
+        assertTrue(placed.body().contains("\"status\":\"CREATED\""));
+        assertEquals(orderId, id(prepared.body()));
+        assertEquals(204, nothingToPrepare.statusCode());
+        assertTrue(delivered.body().contains("\"status\":\"DELIVERED\""));
+        assertEquals(200, byStatus.statusCode());
+        assertTrue(byStatus.body().startsWith("[{\"id\":\"" + orderId + "\""));
+        assertEquals("application/json", byStatus.headers().firstValue("Content-Type").orElseThrow());
+    }
+
+    @Test
+    void errors_shouldMapToStatusCodes() throws Exception {
+        // Arrange
+        String orderId = id(post("/orders", "{\"building\":5,\"room\":101}").body());
+
+        // Act
+        HttpResponse<String> malformed = post("/orders/" + orderId + "/pancakes", "{\"base\":[\"FLOUR\"");
+        HttpResponse<String> unknownIngredient = post("/orders/" + orderId + "/pancakes", "{\"base\":[\"SUGAR\"]}");
+        HttpResponse<String> emptyOrder = post("/orders/" + orderId + "/place", "");
+        HttpResponse<String> unknownOrder = get("/orders/00000000-0000-0000-0000-000000000001");
+        HttpResponse<String> unknownPath = post("/orders/" + orderId + "/bake", "");
+        HttpResponse<String> wrongMethod = get("/orders/" + orderId + "/place");
+        HttpResponse<String> buildingOutOfRange = get("/orders?building=4294967301");
+        HttpResponse<String> roomNotANumber = get("/orders?building=5&room=1e3");
+
+        // Assert
+        assertEquals(400, malformed.statusCode());
+        assertTrue(malformed.body().startsWith("{\"error\":\"Malformed JSON"), malformed.body());
+        assertEquals(400, unknownIngredient.statusCode());
+        assertEquals(409, emptyOrder.statusCode());
+        assertEquals(404, unknownOrder.statusCode());
+        assertEquals(404, unknownPath.statusCode());
+        assertEquals(405, wrongMethod.statusCode());
+        assertEquals(400, buildingOutOfRange.statusCode()); // Not truncated to building 5
+        assertEquals(400, roomNotANumber.statusCode());
+    }
+
+    @Test
+    void cancel_shouldAnswerWithTheCanceledPendingOrder() throws Exception {
+        // Arrange
+        String orderId = id(post("/orders", "{\"building\":5,\"room\":101}").body());
+
+        // Act
+        HttpResponse<String> canceled = post("/orders/" + orderId + "/cancel", "");
+        HttpResponse<String> afterwards = get("/orders/" + orderId);
+
+        // Assert
+        assertEquals(200, canceled.statusCode());
+        assertTrue(canceled.body().contains("\"status\":\"CANCELED\""));
+        assertEquals(404, afterwards.statusCode()); // Pending orders are dropped once canceled
+    }
+
+    @Test
+    void longPolls_shouldBeCappedAtHalfTheWorkers() throws Exception {
+        // Arrange
+        server.close();
+        server = new OrderHttpServer(new PancakeService(), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2);
+        server.start();
+        baseUri = "http://localhost:" + server.address().getPort();
+        HttpRequest longPoll = HttpRequest.newBuilder(URI.create(baseUri + "/kitchen/prepare?waitMillis=3000"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        CompletableFuture<HttpResponse<String>> waiting = client.sendAsync(longPoll, HttpResponse.BodyHandlers.ofString());
+        Thread.sleep(200); // Let the first poll take the only long-poll permit
+
+        // Act
+        long start = System.nanoTime();
+        HttpResponse<String> secondPoll = post("/kitchen/deliver?waitMillis=3000", "");
+        HttpResponse<String> created = post("/orders", "{\"building\":5,\"room\":101}");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Assert
+        assertEquals(204, secondPoll.statusCode());
+        assertEquals(201, created.statusCode());
+        assertTrue(elapsedMillis < 2000, "Second poll waited " + elapsedMillis + " ms");
+        assertEquals(204, waiting.get(5, TimeUnit.SECONDS).statusCode());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUri + path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String id(String body) {
+        Matcher matcher = ID.matcher(body);
+        assertTrue(matcher.find(), body);
+        return matcher.group(1);
+    }
+}
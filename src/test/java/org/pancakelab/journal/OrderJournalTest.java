@@ -0,0 +1,181 @@
+package org.pancakelab.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.Pancake;
+import org.pancakelab.service.OrderEventType;
+import org.pancakelab.service.PancakeService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void journal_shouldRecordEveryServiceTransition() throws IOException {
+        // Arrange
+        Pancake pancake = Pancake.Builder.standard()
+                .addCustomIngredient(Ingredient.HAZELNUT)
+                .build();
+
+        // Act
+        Order order;
+        try (OrderJournal journal = new OrderJournal.Builder(directory).open()) {
+            PancakeService service = new PancakeService.Builder()
+                    .addListener(journal)
+                    .build();
+            order = service.createOrder(5, 101);
+            service.addPancakeToOrder(order.getId(), pancake);
+            service.placeOrder(order.getId());
+            service.prepareOrder();
+            service.deliverOrder();
+        }
+
+        // Assert
+        List<OrderEventType> types = new ArrayList<>();
+        try (JournalReader reader = JournalReader.open(directory)) {
+            while (reader.next()) {
+                types.add(reader.type());
+                assertEquals(order.getId(), reader.orderId());
+                assertEquals(5, reader.building());
+                assertEquals(101, reader.room());
+                if (reader.type() == OrderEventType.ADD_PANCAKE) {
+                    assertEquals(pancake, reader.pancake());
+                    assertEquals(1, reader.pancakeCount());
+                }
+            }
+        }
+        assertEquals(List.of(OrderEventType.CREATE, OrderEventType.ADD_PANCAKE, OrderEventType.PLACE,
+                OrderEventType.PREPARE, OrderEventType.DELIVER), types);
+    }
+
+    @Test
+    void journal_shouldRollSegmentsAndApplyRetention() throws IOException {
+        // Arrange
+        Order order = new Order(5, 101);
+
+        // Act
+        try (OrderJournal journal = new OrderJournal.Builder(directory)
+                .segmentSize(4096)
+                .retainedSegments(2)
+                .flushPolicy(FlushPolicy.onSegmentRoll())
+                .open()) {
+            journal.retainFrom(1000); // As if a snapshot covered every record
+            for (int i = 0; i < 1000; i++) {
+                journal.append(OrderEventType.PLACE, order, null);
+            }
+        }
+
+        // Assert
+        assertEquals(2, OrderJournal.segmentFiles(directory).size());
+        long first = -1;
+        long last = -1;
+        try (JournalReader reader = JournalReader.open(directory)) {
+            while (reader.next()) {
+                if (first < 0) {
+                    first = reader.sequence();
+                } else {
+                    assertEquals(last + 1, reader.sequence());
+                }
+                last = reader.sequence();
+            }
+        }
+        assertTrue(first > 0, "Oldest segments should have been deleted");
+        assertEquals(999, last);
+    }
+
+    @Test
+    void retention_shouldKeepSegmentsFromTheSnapshotSequence() throws IOException {
+        // Arrange
+        Order order = new Order(5, 101);
+
+        // Act
+        try (OrderJournal journal = new OrderJournal.Builder(directory)
+                .segmentSize(4096)
+                .retainedSegments(1)
+                .flushPolicy(FlushPolicy.onSegmentRoll())
+                .open()) {
+            for (int i = 0; i < 500; i++) {
+                journal.append(OrderEventType.PLACE, order, null);
+            }
+            journal.retainFrom(300);
+            journal.retainFrom(200); // Never lowered
+            for (int i = 0; i < 500; i++) {
+                journal.append(OrderEventType.PLACE, order, null);
+            }
+        }
+
+        // Assert
+        List<Path> segments = OrderJournal.segmentFiles(directory);
+        long oldest = JournalFormat.baseSequence(segments.get(0).getFileName().toString());
+        assertTrue(oldest > 0 && oldest <= 300, "Oldest retained segment starts at " + oldest);
+        try (JournalReader reader = JournalReader.open(directory, 300)) {
+            for (long sequence = 300; sequence < 1000; sequence++) {
+                assertTrue(reader.next());
+                assertEquals(sequence, reader.sequence());
+            }
+            assertFalse(reader.next());
+        }
+        IOException deleted = assertThrows(IOException.class, () -> JournalReader.open(directory, 0));
+        assertTrue(deleted.getMessage().contains("records from 0 were deleted"), deleted.getMessage());
+    }
+
+    @Test
+    void reader_shouldFailOnAMissingSegment() throws IOException {
+        // Arrange
+        Order order = new Order(5, 101);
+        try (OrderJournal journal = new OrderJournal.Builder(directory).segmentSize(4096).open()) {
+            for (int i = 0; i < 300; i++) {
+                journal.append(OrderEventType.PLACE, order, null);
+            }
+        }
+        List<Path> segments = OrderJournal.segmentFiles(directory);
+        assertTrue(segments.size() >= 3);
+        Files.delete(segments.get(1));
+
+        // Act & Assert
+        try (JournalReader reader = JournalReader.open(directory, 0)) {
+            IOException gap = assertThrows(IOException.class, () -> {
+                while (reader.next()) {
+                    // Read until the gap
+                }
+            });
+            assertTrue(gap.getMessage().startsWith("Journal gap"), gap.getMessage());
+        }
+    }
+
+    @Test
+    void reopen_shouldContinueAfterLastRecord() throws IOException {
+        // Arrange
+        Order order = new Order(5, 101);
+        try (OrderJournal journal = new OrderJournal.Builder(directory).segmentSize(4096).open()) {
+            journal.append(OrderEventType.PLACE, order, null);
+            journal.append(OrderEventType.PREPARE, order, null);
+        }
+
+        // Act
+        long sequence;
+        try (OrderJournal journal = new OrderJournal.Builder(directory).segmentSize(4096).open()) {
+            sequence = journal.append(OrderEventType.DELIVER, order, null);
+        }
+
+        // Assert
+        assertEquals(2, sequence);
+        try (JournalReader reader = JournalReader.open(directory, 1)) {
+            assertTrue(reader.next());
+            assertEquals(OrderEventType.PREPARE, reader.type());
+            assertTrue(reader.next());
+            assertEquals(OrderEventType.DELIVER, reader.type());
+            assertFalse(reader.next());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.pancakelab.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    void histogram_shouldReportPercentilesWithinOneBucket() {
+        // Arrange
+        Histogram histogram = registry.histogram("latency_nanos");
+
+        // Act
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        // Assert
+        assertEquals(1000, snapshot.count());
+        assertEquals(500_500, snapshot.sum());
+        assertEquals(1000, snapshot.max());
+        long p50 = snapshot.percentile(0.5);
+        assertTrue(p50 >= 500 && p50 <= 500 * 1.25, "p50 was " + p50);
+        assertEquals(1000, snapshot.percentile(1.0));
+    }
+
+    @Test
+    void bucket_shouldCoverTheWholeLongRangeInOrder() {
+        // Act & Assert
+        assertEquals(0, Histogram.bucket(0));
+        assertEquals(Histogram.BUCKETS - 1, Histogram.bucket(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, Histogram.upperBound(Histogram.BUCKETS - 1));
+        for (int bucket = 0; bucket < Histogram.BUCKETS - 1; bucket++) {
+            long upper = Histogram.upperBound(bucket);
+            assertEquals(bucket, Histogram.bucket(upper));
+            assertEquals(bucket + 1, Histogram.bucket(upper + 1));
+        }
+    }
+
+    @Test
+    void toText_shouldShareNamesAndWriteEveryMetric() {
+        // Arrange
+        registry.counter("orders_total").add(2);
+        registry.counter("orders_total").increment();
+        registry.gauge("queue_depth", () -> 9);
+        registry.histogram("wait_nanos").record(7);
+
+        // Act
+        String text = registry.toText();
+
+        // Assert
+        assertEquals("""
+                # TYPE orders_total counter
+                orders_total 3
+                # TYPE queue_depth gauge
+                queue_depth 9
+                # TYPE wait_nanos summary
+                wait_nanos{quantile="0.5"} 7
+                wait_nanos{quantile="0.9"} 7
+                wait_nanos{quantile="0.99"} 7
+                wait_nanos{quantile="0.999"} 7
+                wait_nanos_sum 7
+                wait_nanos_count 1
+                wait_nanos_max 7
+                """, text);
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("orders placed"));
+    }
+
+    @Test
+    void gauge_shouldReplaceTheGaugeRegisteredUnderTheSameName() {
+        // Arrange
+        for (int i = 0; i < 1000; i++) {
+            long value = i;
+            registry.gauge("queue_depth", () -> value);
+        }
+
+        // Act
+        long value = registry.gaugeValue("queue_depth");
+
+        // Assert
+        assertEquals(999, value);
+        assertEquals(0, registry.gaugeValue("unknown_depth"));
+        assertEquals(1, registry.toText().lines().filter(line -> line.startsWith("queue_depth ")).count());
+    }
+
+    @Test
+    void histogram_shouldRecordAValueSeveralTimesAtOnce() {
+        // Arrange
+        Histogram histogram = registry.histogram("batch_nanos");
+
+        // Act
+        histogram.record(40, 5);
+        histogram.record(1000, 0);
+        histogram.record(-3, 2);
+
+        // Assert
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(7, snapshot.count());
+        assertEquals(200, snapshot.sum());
+        assertEquals(40, snapshot.max());
+        assertEquals(0, snapshot.percentile(0.2));
+    }
+
+    @Test
+    void histogram_shouldCountEveryRecordFromConcurrentThreads() throws InterruptedException {
+        // Arrange
+        Histogram histogram = registry.histogram("latency_nanos");
+        Counter counter = registry.counter("orders_total");
+        Thread[] workers = new Thread[8];
+
+        // Act
+        for (int t = 0; t < workers.length; t++) {
+            workers[t] = new Thread(() -> {
+                for (long value = 1; value <= 10_000; value++) {
+                    histogram.record(value);
+                    counter.increment();
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Assert
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(80_000, snapshot.count());
+        assertEquals(8 * 50_005_000L, snapshot.sum());
+        assertEquals(10_000, snapshot.max());
+        assertEquals(80_000, counter.sum());
+    }
+}
@@ -0,0 +1,130 @@
+package org.pancakelab.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+import org.pancakelab.model.Pancake;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncPancakeServiceTest {
+    private PancakeService pancakeService;
+    private final Pancake pancake = Pancake.Builder.standard().build();
+
+    @BeforeEach
+    void setUp() {
+        pancakeService = new PancakeService();
+    }
+
+    @Test
+    void placeOrder_shouldCompleteAfterTheOrderIsPlaced() throws InterruptedException {
+        // Arrange
+        try (AsyncPancakeService async = new AsyncPancakeService.Builder(pancakeService).build()) {
+            async.start();
+
+            // Act
+            Order order = async.createOrder(5, 101)
+                    .thenCompose(created -> async.addPancakeToOrder(created.getId(), pancake)
+                            .thenCompose(ignored -> async.placeOrder(created.getId()))
+                            .thenApply(ignored -> created))
+                    .toCompletableFuture().join();
+
+            // Assert
+            assertEquals(OrderStatus.CREATED, order.getStatus());
+            assertEquals(List.of(order), pancakeService.getNewOrders());
+        }
+    }
+
+    @Test
+    void placeOrder_shouldFailOnlyTheStagesOfFailingIdsInABatch() throws InterruptedException {
+        // Arrange: queued before start, so the pipeline takes all placements in one batch
+        AsyncPancakeService async = new AsyncPancakeService.Builder(pancakeService).build();
+        List<UUID> orderIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Order order = pancakeService.createOrder(5, 101);
+            pancakeService.addPancakeToOrder(order.getId(), pancake);
+            orderIds.add(order.getId());
+        }
+        orderIds.add(1, pancakeService.createOrder(5, 102).getId()); // Without pancakes, cannot be placed
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (UUID orderId : orderIds) {
+            results.add(async.placeOrder(orderId).toCompletableFuture());
+        }
+
+        // Act
+        async.start();
+        async.close();
+
+        // Assert
+        CompletionException failure = assertThrows(CompletionException.class, () -> results.get(1).join());
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        for (int i : new int[]{0, 2, 3}) {
+            assertNull(results.get(i).join());
+            assertEquals(OrderStatus.CREATED, pancakeService.findOrder(orderIds.get(i)).orElseThrow().getStatus());
+        }
+        assertEquals(3, pancakeService.getNewOrders().size());
+    }
+
+    @Test
+    void close_shouldApplyAcceptedCommandsAndRejectLaterOnes() throws InterruptedException {
+        // Arrange
+        AsyncPancakeService async = new AsyncPancakeService.Builder(pancakeService).build();
+        async.start();
+        CompletableFuture<Order> accepted = async.createAndPlaceOrder(5, 101, List.of(pancake)).toCompletableFuture();
+
+        // Act
+        async.close();
+        CompletableFuture<Order> late = async.createOrder(5, 101).toCompletableFuture();
+
+        // Assert
+        assertEquals(OrderStatus.CREATED, accepted.join().getStatus());
+        CompletionException failure = assertThrows(CompletionException.class, late::join);
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        assertEquals(0, async.queuedCommands());
+    }
+
+    @Test
+    void applyLoop_shouldFailPendingStagesWhenACommandThrowsAnError() throws Exception {
+        // Arrange: a listener that fails hard on one room, and a pipeline thread that reports how it died
+        StackOverflowError error = new StackOverflowError("listener failed");
+        PancakeService failing = new PancakeService.Builder().addListener((type, order, pancake) -> {
+            if (order.getRoom() == 666) {
+                throw error;
+            }
+        }).build();
+        CompletableFuture<Throwable> uncaught = new CompletableFuture<>();
+        AsyncPancakeService async = new AsyncPancakeService.Builder(failing).threadFactory(task -> {
+            Thread thread = new Thread(task);
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) -> uncaught.complete(e));
+            return thread;
+        }).build();
+        CompletableFuture<Order> before = async.createOrder(5, 101).toCompletableFuture();
+        CompletableFuture<Order> broken = async.createOrder(5, 666).toCompletableFuture();
+        CompletableFuture<Order> after = async.createOrder(5, 102).toCompletableFuture();
+
+        // Act
+        async.start();
+
+        // Assert
+        assertSame(error, uncaught.get(5, TimeUnit.SECONDS));
+        assertEquals(OrderStatus.INIT, before.join().getStatus());
+        assertSame(error, assertThrows(CompletionException.class, broken::join).getCause());
+        Throwable pending = assertThrows(CompletionException.class, after::join).getCause();
+        assertInstanceOf(RejectedExecutionException.class, pending);
+        assertSame(error, pending.getCause());
+        CompletableFuture<Order> late = async.createOrder(5, 103).toCompletableFuture();
+        assertInstanceOf(RejectedExecutionException.class, assertThrows(CompletionException.class, late::join).getCause());
+        assertEquals(0, async.queuedCommands());
+        async.close();
+    }
+}
@@ -0,0 +1,108 @@
+package org.pancakelab.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pancakelab.metrics.MetricsRegistry;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+import org.pancakelab.model.Pancake;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KitchenEngineTest {
+    private PancakeService pancakeService;
+    private final List<Pancake> pancakes = List.of(Pancake.Builder.standard().build());
+
+    @BeforeEach
+    void setUp() {
+        pancakeService = new PancakeService();
+    }
+
+    @Test
+    void drainAndShutdown_shouldDeliverEveryPlacedOrder() throws InterruptedException {
+        // Arrange
+        for (int i = 0; i < 500; i++) {
+            pancakeService.createAndPlaceOrder(5, 101, pancakes);
+        }
+        KitchenEngine engine = new KitchenEngine.Builder(pancakeService)
+                .preparationWorkers(3)
+                .deliveryWorkers(2)
+                .batchSize(16)
+                .build();
+
+        // Act
+        engine.start();
+        boolean drained = engine.drainAndShutdown(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(drained);
+        assertFalse(engine.isRunning());
+        assertEquals(500, engine.deliveredCount());
+        assertEquals(500, pancakeService.getDeliveredOrders().size());
+        assertTrue(pancakeService.getNewOrders().isEmpty());
+        assertTrue(pancakeService.getPreparedOrders().isEmpty());
+    }
+
+    @Test
+    void drainAndShutdown_shouldTimeEveryOrderItPreparesAndDelivers() throws InterruptedException {
+        // Arrange
+        MetricsRegistry registry = new MetricsRegistry();
+        PancakeService service = new PancakeService.Builder().metrics(registry).build();
+        for (int i = 0; i < 100; i++) {
+            service.createAndPlaceOrder(5, 101, pancakes);
+        }
+        KitchenEngine engine = new KitchenEngine.Builder(service)
+                .preparationWorkers(2)
+                .deliveryWorkers(2)
+                .batchSize(16)
+                .build();
+
+        // Act
+        engine.start();
+        boolean drained = engine.drainAndShutdown(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(drained);
+        assertEquals(100, registry.histogram("pancake_prepare_order_nanos").snapshot().count());
+        assertEquals(100, registry.histogram("pancake_deliver_order_nanos").snapshot().count());
+        assertEquals(100, registry.histogram("pancake_create_and_place_order_nanos").snapshot().count());
+    }
+
+    @Test
+    void start_shouldPickUpOrdersPlacedWhileWorkersAreIdle() throws InterruptedException {
+        // Arrange
+        try (KitchenEngine engine = new KitchenEngine.Builder(pancakeService).build()) {
+            engine.start();
+
+            // Act
+            Order order = pancakeService.createAndPlaceOrder(5, 101, pancakes);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (order.getStatus() != OrderStatus.DELIVERED && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+
+            // Assert
+            assertEquals(OrderStatus.DELIVERED, order.getStatus());
+            assertEquals(1, engine.preparedCount());
+        }
+    }
+
+    @Test
+    void stop_shouldLeaveQueuedOrdersInTheService() throws InterruptedException {
+        // Arrange
+        KitchenEngine engine = new KitchenEngine.Builder(pancakeService).build();
+        engine.start();
+        engine.stop();
+
+        // Act
+        Order order = pancakeService.createAndPlaceOrder(5, 101, pancakes);
+
+        // Assert
+        assertEquals(OrderStatus.CREATED, order.getStatus());
+        assertEquals(List.of(order), pancakeService.getNewOrders());
+        assertThrows(IllegalStateException.class, engine::start);
+    }
+}
@@ -0,0 +1,179 @@
+package org.pancakelab.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+import org.pancakelab.model.Pancake;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderEventPublisherTest {
+    private OrderEventPublisher publisher;
+    private PancakeService pancakeService;
+    private final List<Pancake> pancakes = List.of(Pancake.Builder.standard().build());
+
+    @BeforeEach
+    void setUp() {
+        publisher = new OrderEventPublisher();
+        pancakeService = new PancakeService.Builder().addListener(publisher).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.close();
+    }
+
+    @Test
+    void subscribe_shouldPushOnlyEventsMatchingTheFilter() throws InterruptedException {
+        // Arrange
+        CollectingSubscriber room = new CollectingSubscriber(Long.MAX_VALUE);
+        CollectingSubscriber kitchen = new CollectingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(room, OrderEventFilter.room(5, 101));
+        publisher.subscribe(kitchen, OrderEventFilter.status(OrderStatus.CREATED));
+
+        // Act
+        Order order = pancakeService.createAndPlaceOrder(5, 101, pancakes);
+        Order otherRoom = pancakeService.createAndPlaceOrder(5, 102, pancakes);
+        pancakeService.prepareOrders(2);
+
+        // Assert
+        List<OrderEventType> roomEvents = List.of(OrderEventType.CREATE, OrderEventType.ADD_PANCAKES,
+                OrderEventType.PLACE, OrderEventType.PREPARE);
+        for (OrderEventType type : roomEvents) {
+            OrderEvent event = room.events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event);
+            assertEquals(type, event.type());
+            assertEquals(order.getId(), event.orderId());
+        }
+        assertEquals(order.getId(), kitchen.events.poll(5, TimeUnit.SECONDS).orderId());
+        assertEquals(otherRoom.getId(), kitchen.events.poll(5, TimeUnit.SECONDS).orderId());
+        assertNull(room.events.poll(100, TimeUnit.MILLISECONDS));
+        assertTrue(kitchen.events.isEmpty());
+    }
+
+    @Test
+    void offer_shouldDropEventsForASlowSubscriberWithoutStallingOrders() throws InterruptedException {
+        // Arrange
+        OrderEventPublisher small = new OrderEventPublisher(Runnable::run, 2);
+        PancakeService service = new PancakeService.Builder().addListener(small).build();
+        CollectingSubscriber stalled = new CollectingSubscriber(0);
+        small.subscribe(stalled);
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            service.createAndPlaceOrder(5, 101, pancakes);
+        }
+
+        // Assert
+        assertEquals(10, service.getKitchenBacklog());
+        assertTrue(small.droppedCount() > 0);
+        assertTrue(stalled.events.isEmpty());
+        stalled.subscription.request(Long.MAX_VALUE);
+        assertNotNull(stalled.events.poll(5, TimeUnit.SECONDS)); // Buffered events are still delivered
+        small.close();
+    }
+
+    @Test
+    void offer_shouldNumberEachSubscribersEventsWithoutGapsForFilteredEvents() throws InterruptedException {
+        // Arrange
+        CollectingSubscriber room = new CollectingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(room, OrderEventFilter.room(5, 101));
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            pancakeService.createAndPlaceOrder(5, 102, pancakes);
+            pancakeService.createAndPlaceOrder(5, 101, pancakes);
+        }
+
+        // Assert
+        for (long expected = 1; expected <= 9; expected++) { // CREATE, ADD_PANCAKES and PLACE per order
+            assertEquals(expected, room.events.poll(5, TimeUnit.SECONDS).sequence());
+        }
+        assertNull(room.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void offer_shouldLeaveOneGapPerDroppedEvent() throws InterruptedException {
+        // Arrange
+        OrderEventPublisher small = new OrderEventPublisher(Runnable::run, 2);
+        PancakeService service = new PancakeService.Builder().addListener(small).build();
+        CollectingSubscriber stalled = new CollectingSubscriber(0);
+        small.subscribe(stalled);
+        for (int i = 0; i < 10; i++) {
+            service.createAndPlaceOrder(5, 101, pancakes);
+        }
+
+        // Act
+        stalled.subscription.request(Long.MAX_VALUE);
+        service.createOrder(5, 101);
+
+        // Assert
+        long last = 0;
+        long gaps = 0;
+        OrderEvent event;
+        while ((event = stalled.events.poll(100, TimeUnit.MILLISECONDS)) != null) {
+            assertTrue(event.sequence() > last);
+            gaps += event.sequence() - last - 1;
+            last = event.sequence();
+        }
+        assertEquals(31, last); // 30 events for the placed orders, then the new one
+        assertEquals(small.droppedCount(), gaps);
+        assertTrue(gaps > 0);
+        small.close();
+    }
+
+    @Test
+    void cancel_shouldRemoveTheSubscriber() throws InterruptedException {
+        // Arrange
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+        pancakeService.createOrder(5, 101);
+        assertNotNull(subscriber.events.poll(5, TimeUnit.SECONDS));
+
+        // Act
+        subscriber.subscription.cancel();
+        pancakeService.createOrder(5, 101);
+
+        // Assert
+        assertEquals(0, publisher.subscriberCount());
+    }
+
+    private static final class CollectingSubscriber implements Flow.Subscriber<OrderEvent> {
+        private final BlockingQueue<OrderEvent> events = new LinkedBlockingQueue<>();
+        private final long initialDemand;
+        private volatile Flow.Subscription subscription;
+
+        private CollectingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+        }
+
+        @Override
+        public void onNext(OrderEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
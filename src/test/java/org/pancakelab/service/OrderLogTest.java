@@ -6,7 +6,12 @@ import org.pancakelab.model.Ingredient;
 import org.pancakelab.model.Order;
 import org.pancakelab.model.Pancake;
 
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class OrderLogTest {
     @BeforeEach
@@ -46,4 +51,64 @@ public class OrderLogTest {
         assertTrue(log.contains("Order " + order.getId() + " with 0 pancake(s)"));
         assertTrue(log.contains("for building 5, room 101 has been prepared."));
     }
+
+    @Test
+    void logPlaceOrder_shouldRecordStructuredEvent() {
+        // Arrange
+        Order order = new Order(5, 101);
+        order.addPancake(Pancake.Builder.standard().build());
+
+        // Act
+        OrderLog.logPlaceOrder(order);
+
+        // Assert
+        List<OrderEvent> events = OrderLog.getEvents();
+        assertEquals(1, events.size());
+        OrderEvent event = events.get(0);
+        assertEquals(OrderEventType.PLACE, event.type());
+        assertEquals(order.getId(), event.orderId());
+        assertEquals(5, event.building());
+        assertEquals(101, event.room());
+        assertEquals(1, event.pancakeCount());
+        assertEquals("Order " + order.getId() + " with 1 pancake(s) for building 5, room 101 has been placed.\n", OrderLog.getLog());
+    }
+
+    @Test
+    void log_shouldKeepOnlyTheMostRecentEventsOnceFull() {
+        // Arrange
+        Order order = new Order(5, 101);
+
+        // Act
+        for (int i = 0; i < OrderLog.CAPACITY + 10; i++) {
+            OrderLog.logPrepareOrder(order);
+        }
+
+        // Assert
+        List<OrderEvent> events = OrderLog.getEvents();
+        assertEquals(OrderLog.CAPACITY, events.size());
+        assertEquals(10, events.get(0).sequence());
+    }
+
+    @Test
+    void logAddPancake_shouldNotLoseEventsUnderConcurrentAppends() throws InterruptedException {
+        // Arrange
+        Order order = new Order(5, 101);
+        Pancake pancake = Pancake.Builder.standard().build();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    OrderLog.logAddPancake(order, pancake);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(8000, OrderLog.getEvents().size());
+        assertEquals(8000, OrderLog.getLog().lines().count());
+    }
 }
@@ -0,0 +1,346 @@
+package org.pancakelab.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pancakelab.journal.FlushPolicy;
+import org.pancakelab.journal.OrderJournal;
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.Pancake;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderRecoveryTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void recover_shouldRestoreStateFromSnapshotAndJournal() throws IOException {
+        // Arrange
+        Path journalDirectory = directory.resolve("journal");
+        Path snapshotDirectory = directory.resolve("snapshots");
+        PancakeService service;
+        try (OrderJournal journal = journal(journalDirectory)) {
+            service = new PancakeService.Builder().addListener(journal).build();
+            try (SnapshotManager snapshots = new SnapshotManager(service, journal, snapshotDirectory, 2)) {
+                runOrders(service, 0);
+                snapshots.takeSnapshot();
+                runOrders(service, 100);
+            }
+        }
+
+        // Act
+        PancakeService recovered = new PancakeService.Builder()
+                .recoverFrom(snapshotDirectory, journalDirectory)
+                .build();
+
+        // Assert
+        assertSameState(service, recovered);
+    }
+
+    @Test
+    void recover_shouldSurviveRetentionOfSegmentsTheSnapshotCovers() throws IOException {
+        // Arrange: segments roll every few orders and only one is meant to be kept
+        Path journalDirectory = directory.resolve("journal");
+        Path snapshotDirectory = directory.resolve("snapshots");
+        PancakeService service;
+        try (OrderJournal journal = new OrderJournal.Builder(journalDirectory)
+                .segmentSize(4096)
+                .retainedSegments(1)
+                .flushPolicy(FlushPolicy.onSegmentRoll())
+                .open()) {
+            service = new PancakeService.Builder().addListener(journal).build();
+            try (SnapshotManager snapshots = new SnapshotManager(service, journal, snapshotDirectory, 1)) {
+                runOrders(service, 0);
+                runOrders(service, 100); // Rolls many segments, none deleted before the first snapshot
+                assertEquals("00000000000000000000.journal", segments(journalDirectory).get(0).getFileName().toString());
+                snapshots.takeSnapshot();
+                runOrders(service, 200);
+            }
+        }
+        assertNotEquals("00000000000000000000.journal", segments(journalDirectory).get(0).getFileName().toString());
+
+        // Act
+        PancakeService recovered = new PancakeService.Builder()
+                .recoverFrom(snapshotDirectory, journalDirectory)
+                .build();
+
+        // Assert
+        assertSameState(service, recovered);
+    }
+
+    @Test
+    void recover_shouldFailWhenTheJournalNoLongerReachesTheSnapshot() throws IOException {
+        // Arrange
+        Path journalDirectory = directory.resolve("journal");
+        Path snapshotDirectory = directory.resolve("snapshots");
+        try (OrderJournal journal = new OrderJournal.Builder(journalDirectory).segmentSize(4096).open()) {
+            PancakeService service = new PancakeService.Builder().addListener(journal).build();
+            runOrders(service, 0);
+        }
+        Files.delete(segments(journalDirectory).get(0)); // As retention did before it checked the snapshot
+
+        // Act & Assert
+        PancakeService.Builder builder = new PancakeService.Builder().recoverFrom(snapshotDirectory, journalDirectory);
+        UncheckedIOException failure = assertThrows(UncheckedIOException.class, builder::build);
+        assertTrue(failure.getCause().getMessage().contains("were deleted"), failure.getCause().getMessage());
+    }
+
+    @Test
+    void recover_shouldReplayWholeJournalWithoutSnapshot() throws IOException {
+        // Arrange
+        Path journalDirectory = directory.resolve("journal");
+        PancakeService service;
+        try (OrderJournal journal = journal(journalDirectory)) {
+            service = new PancakeService.Builder().addListener(journal).build();
+            runOrders(service, 0);
+        }
+
+        // Act
+        PancakeService recovered = new PancakeService.Builder()
+                .recoverFrom(directory.resolve("snapshots"), journalDirectory)
+                .build();
+
+        // Assert
+        assertSameState(service, recovered);
+    }
+
+    @Test
+    void recover_shouldContinueProcessingRecoveredOrders() throws IOException {
+        // Arrange
+        Path journalDirectory = directory.resolve("journal");
+        Order order;
+        try (OrderJournal journal = journal(journalDirectory)) {
+            PancakeService service = new PancakeService.Builder().addListener(journal).build();
+            order = service.createOrder(5, 101);
+            service.addPancakeToOrder(order.getId(), Pancake.Builder.standard().build());
+            service.placeOrder(order.getId());
+        }
+
+        // Act
+        PancakeService recovered = new PancakeService.Builder()
+                .recoverFrom(directory.resolve("snapshots"), journalDirectory)
+                .build();
+        recovered.prepareOrder();
+        recovered.deliverOrder();
+
+        // Assert
+        assertEquals(order.getId(), recovered.getDeliveredOrders().get(0).getId());
+    }
+
+    @Test
+    void recover_shouldReplayAPlaceJournaledAheadOfThePancakeBeforeIt() throws Exception {
+        // Arrange: a listener ahead of the journal holds the ADD_PANCAKE back until the PLACE has been journaled
+        Path journalDirectory = directory.resolve("journal");
+        CountDownLatch placed = new CountDownLatch(1);
+        OrderEventListener slow = (type, order, pancake) -> {
+            if (type == OrderEventType.ADD_PANCAKE) {
+                await(placed);
+            }
+        };
+        PancakeService service;
+        try (OrderJournal journal = journal(journalDirectory)) {
+            service = new PancakeService.Builder().addListener(slow).addListener(journal).build();
+            Order order = service.createOrder(5, 101);
+            Thread adder = new Thread(() -> service.addPancakeToOrder(order.getId(), Pancake.Builder.standard().build()));
+            adder.start();
+            while (order.getPancakes().isEmpty()) {
+                Thread.onSpinWait();
+            }
+            service.placeOrder(order.getId());
+            placed.countDown();
+            adder.join();
+        }
+
+        // Act
+        PancakeService recovered = new PancakeService.Builder()
+                .recoverFrom(directory.resolve("snapshots"), journalDirectory)
+                .build();
+
+        // Assert
+        assertSameState(service, recovered);
+        assertEquals(1, recovered.getNewOrders().size());
+    }
+
+    @Test
+    void recover_shouldMatchTheServiceAfterConcurrentChanges() throws Exception {
+        // Arrange: listeners ahead of the journal stall at random, so events reach it out of order, while snapshots
+        // are taken and orders placed as pancakes are still being added
+        Path journalDirectory = directory.resolve("journal");
+        Path snapshotDirectory = directory.resolve("snapshots");
+        OrderEventListener slow = (type, order, pancake) -> {
+            if (ThreadLocalRandom.current().nextInt(4) == 0) {
+                LockSupport.parkNanos(20_000);
+            }
+        };
+        PancakeService service;
+        try (OrderJournal journal = journal(journalDirectory)) {
+            service = new PancakeService.Builder().addListener(slow).addListener(journal).build();
+            List<UUID> orders = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                orders.add(service.createOrder(i % 7 + 1, i + 1).getId());
+            }
+            try (SnapshotManager snapshots = new SnapshotManager(service, journal, snapshotDirectory, 2)) {
+                int threads = 8;
+                CountDownLatch start = new CountDownLatch(1);
+                AtomicBoolean running = new AtomicBoolean(true);
+                List<Thread> workers = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    workers.add(new Thread(() -> {
+                        await(start);
+                        for (int i = 0; i < 100; i++) {
+                            UUID orderId = orders.get((thread + i) % orders.size());
+                            try {
+                                if (i % 3 == 0) {
+                                    service.addPancakesToOrder(orderId, List.of(pancake(i), pancake(thread)));
+                                } else {
+                                    service.addPancakeToOrder(orderId, pancake(thread * 100 + i));
+                                }
+                            } catch (IllegalArgumentException | IllegalStateException e) {
+                                // Placed in the meantime
+                            }
+                        }
+                    }));
+                }
+                workers.add(new Thread(() -> {
+                    await(start);
+                    for (UUID orderId : orders.subList(0, 10)) {
+                        LockSupport.parkNanos(200_000);
+                        try {
+                            service.placeOrder(orderId);
+                        } catch (IllegalStateException e) {
+                            // No pancakes yet
+                        }
+                    }
+                }));
+                Thread snapshotter = new Thread(() -> {
+                    await(start);
+                    try {
+                        while (running.get()) {
+                            snapshots.takeSnapshot();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                workers.forEach(Thread::start);
+                snapshotter.start();
+                start.countDown();
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+                running.set(false);
+                snapshotter.join();
+            }
+        }
+
+        // Act
+        PancakeService recovered = new PancakeService.Builder()
+                .recoverFrom(snapshotDirectory, journalDirectory)
+                .build();
+
+        // Assert
+        assertSameState(service, recovered);
+    }
+
+    // Recipes that differ with n, so replaying pancakes out of order shows up
+    private static Pancake pancake(int n) {
+        Pancake.Builder builder = Pancake.Builder.standard();
+        Ingredient topping = List.of(Ingredient.HAZELNUT, Ingredient.WHIPPED_CREAM, Ingredient.DARK_CHOCOLATE,
+                Ingredient.MILK_CHOCOLATE).get(n % 4);
+        for (int i = 0; i < n / 4 % 10; i++) {
+            builder.addCustomIngredient(topping);
+        }
+        return builder.build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<Path> segments(Path journalDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static OrderJournal journal(Path journalDirectory) throws IOException {
+        return new OrderJournal.Builder(journalDirectory)
+                .segmentSize(64 * 1024)
+                .flushPolicy(FlushPolicy.onSegmentRoll())
+                .open();
+    }
+
+    // Leaves orders in every state: pending, new, prepared, delivered and canceled
+    private static void runOrders(PancakeService service, int roomOffset) {
+        Pancake pancake = Pancake.Builder.vegan()
+                .addCustomIngredient(Ingredient.HAZELNUT)
+                .build();
+        for (int i = 1; i <= 50; i++) {
+            Order order = service.createOrder(i % 7 + 1, roomOffset + i);
+            service.addPancakeToOrder(order.getId(), pancake);
+            if (i % 5 == 0) {
+                continue;
+            }
+            service.addPancakeToOrder(order.getId(), Pancake.Builder.standard().build());
+            service.placeOrder(order.getId());
+            if (i % 9 == 0) {
+                service.cancelOrder(order.getId());
+            }
+        }
+        List<UUID> group = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            Order order = service.createOrder(i, roomOffset + 60 + i);
+            service.addPancakesToOrder(order.getId(), List.of(pancake, Pancake.Builder.standard().build(), pancake));
+            group.add(order.getId());
+        }
+        service.removePancakeFromOrder(group.get(5), pancake);
+        service.placeOrders(group.subList(0, 4));
+        service.createAndPlaceOrder(3, roomOffset + 70, List.of(pancake, pancake));
+        for (int i = 0; i < 20; i++) {
+            service.prepareOrder();
+        }
+        for (int i = 0; i < 10; i++) {
+            service.deliverOrder();
+        }
+    }
+
+    private static void assertSameState(PancakeService expected, PancakeService actual) {
+        assertEquals(expected.getPendingOrders().keySet(), actual.getPendingOrders().keySet());
+        assertEquals(expected.getOrders().keySet(), actual.getOrders().keySet());
+        expected.getOrders().forEach((id, order) -> {
+            Order recovered = actual.getOrders().get(id);
+            assertEquals(order.getStatus(), recovered.getStatus());
+            assertEquals(order.getPancakes(), recovered.getPancakes());
+            assertEquals(order.getBuilding(), recovered.getBuilding());
+            assertEquals(order.getRoom(), recovered.getRoom());
+        });
+        expected.getPendingOrders().forEach((id, order) ->
+                assertEquals(order.getPancakes(), actual.getPendingOrders().get(id).getPancakes()));
+        assertEquals(ids(expected.getNewOrders()), ids(actual.getNewOrders()));
+        assertEquals(ids(expected.getPreparedOrders()), ids(actual.getPreparedOrders()));
+        assertEquals(ids(expected.getDeliveredOrders()), ids(actual.getDeliveredOrders()));
+    }
+
+    private static List<UUID> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).toList();
+    }
+}
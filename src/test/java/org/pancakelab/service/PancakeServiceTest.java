@@ -2,13 +2,22 @@ package org.pancakelab.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.pancakelab.metrics.MetricsRegistry;
 import org.pancakelab.model.Ingredient;
 import org.pancakelab.model.Order;
 import org.pancakelab.model.OrderStatus;
 import org.pancakelab.model.Pancake;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -77,6 +86,232 @@ class PancakeServiceTest {
         assertEquals(pancake, order.getPancakes().get(0));
     }
 
+    @Test
+    void removePancakeFromOrder_shouldUpdateRunningTotal() {
+        // Arrange
+        Order order = pancakeService.createOrder(5, 101);
+        Pancake standard = Pancake.Builder.standard().build();
+        Pancake vegan = Pancake.Builder.vegan().build();
+        pancakeService.addPancakeToOrder(order.getId(), standard);
+        pancakeService.addPancakeToOrder(order.getId(), vegan);
+
+        // Act
+        pancakeService.removePancakeFromOrder(order.getId(), standard);
+
+        // Assert
+        assertEquals(List.of(vegan), order.getPancakes());
+        assertEquals(vegan.getPriceCents(), order.getTotalCents());
+        assertThrows(IllegalArgumentException.class, () -> pancakeService.removePancakeFromOrder(order.getId(), standard));
+    }
+
+    @Test
+    void quote_shouldPriceOrdersAndCandidatePancakesInOneCall() {
+        // Arrange
+        Pancake standard = Pancake.Builder.standard().build();
+        Pancake vegan = Pancake.Builder.vegan().build();
+        Order first = pancakeService.createOrder(5, 101);
+        pancakeService.addPancakeToOrder(first.getId(), standard);
+        pancakeService.addPancakeToOrder(first.getId(), standard);
+        Order second = pancakeService.createOrder(5, 102);
+        pancakeService.addPancakeToOrder(second.getId(), vegan);
+        pancakeService.placeOrder(second.getId());
+
+        // Act
+        long[] orderTotals = pancakeService.quoteOrders(List.of(first.getId(), second.getId()));
+        long[] pancakePrices = pancakeService.quotePancakes(List.of(vegan, standard, vegan));
+
+        // Assert
+        assertArrayEquals(new long[]{2 * standard.getPriceCents(), vegan.getPriceCents()}, orderTotals);
+        assertArrayEquals(new long[]{vegan.getPriceCents(), standard.getPriceCents(), vegan.getPriceCents()}, pancakePrices);
+        assertThrows(IllegalArgumentException.class, () -> pancakeService.quoteOrders(List.of(UUID.randomUUID())));
+    }
+
+    @Test
+    void addPancakesToOrder_shouldAddWholeBatchWithOneLogEntry() {
+        // Arrange
+        OrderLog.clearLog();
+        Order order = pancakeService.createOrder(5, 101);
+        Pancake standard = Pancake.Builder.standard().build();
+        Pancake vegan = Pancake.Builder.vegan().build();
+
+        // Act
+        pancakeService.addPancakesToOrder(order.getId(), List.of(standard, vegan, standard));
+
+        // Assert
+        assertEquals(List.of(standard, vegan, standard), order.getPancakes());
+        assertEquals(2 * standard.getPriceCents() + vegan.getPriceCents(), order.getTotalCents());
+        List<OrderEvent> events = OrderLog.getEvents();
+        assertEquals(1, events.size());
+        assertEquals(OrderEventType.ADD_PANCAKES, events.get(0).type());
+        assertEquals(3, events.get(0).pancakeCount());
+    }
+
+    @Test
+    void createAndPlaceOrder_shouldQueueFilledOrderWithoutPendingStep() {
+        // Arrange
+        Pancake pancake = Pancake.Builder.standard().build();
+
+        // Act
+        Order order = pancakeService.createAndPlaceOrder(5, 101, List.of(pancake, pancake));
+
+        // Assert
+        assertEquals(OrderStatus.CREATED, order.getStatus());
+        assertEquals(2, order.getPancakes().size());
+        assertTrue(pancakeService.getPendingOrders().isEmpty());
+        assertEquals(List.of(order), pancakeService.getNewOrders());
+        assertThrows(IllegalArgumentException.class, () -> pancakeService.createAndPlaceOrder(5, 101, List.of()));
+    }
+
+    @Test
+    void placeOrders_shouldPlaceOrdersBeforeTheFailingOne() {
+        // Arrange
+        Pancake pancake = Pancake.Builder.standard().build();
+        Order first = pancakeService.createOrder(5, 101);
+        Order second = pancakeService.createOrder(5, 102);
+        Order empty = pancakeService.createOrder(5, 103);
+        pancakeService.addPancakeToOrder(first.getId(), pancake);
+        pancakeService.addPancakeToOrder(second.getId(), pancake);
+
+        // Act
+        assertThrows(IllegalStateException.class,
+                () -> pancakeService.placeOrders(List.of(first.getId(), second.getId(), empty.getId())));
+
+        // Assert
+        assertEquals(List.of(first, second), pancakeService.getNewOrders());
+        assertEquals(List.of(empty.getId()), List.copyOf(pancakeService.getPendingOrders().keySet()));
+        assertEquals(OrderStatus.INIT, empty.getStatus());
+    }
+
+    @Test
+    void prepareAndDeliverOrders_shouldMoveOrdersInBatches() {
+        // Arrange
+        Pancake pancake = Pancake.Builder.standard().build();
+        for (int i = 0; i < 5; i++) {
+            pancakeService.createAndPlaceOrder(5, 101 + i, List.of(pancake));
+        }
+
+        // Act
+        int prepared = pancakeService.prepareOrders(3);
+        int delivered = pancakeService.deliverOrders(10);
+
+        // Assert
+        assertEquals(3, prepared);
+        assertEquals(3, delivered);
+        assertEquals(2, pancakeService.getNewOrders().size());
+        assertEquals(3, pancakeService.getDeliveredOrders().size());
+        assertEquals(0, pancakeService.deliverOrders(10));
+    }
+
+    @Test
+    void prepareAndDeliverOrders_shouldRejectMaxOrdersBelowOne() {
+        // Arrange
+        Pancake pancake = Pancake.Builder.standard().build();
+        pancakeService.createAndPlaceOrder(5, 101, List.of(pancake));
+
+        // Act
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> pancakeService.prepareOrders(-1));
+
+        // Assert
+        assertEquals("Max orders must be positive. Provided: -1", exception.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> pancakeService.prepareOrders(0));
+        assertThrows(IllegalArgumentException.class, () -> pancakeService.deliverOrders(-1));
+        assertThrows(IllegalArgumentException.class, () -> pancakeService.deliverBatch(5, 0));
+        assertEquals(1, pancakeService.getNewOrders().size());
+    }
+
+    @Test
+    void takeNextOrderToPrepare_shouldBlockUntilAnOrderIsPlaced() throws Exception {
+        // Arrange
+        Pancake pancake = Pancake.Builder.standard().build();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<Order>> taken = executor.submit(() -> pancakeService.takeNextOrderToPrepare(10, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            assertFalse(taken.isDone());
+
+            // Act
+            Order order = pancakeService.createAndPlaceOrder(5, 101, List.of(pancake));
+
+            // Assert
+            assertEquals(Optional.of(order), taken.get(10, TimeUnit.SECONDS));
+            assertEquals(OrderStatus.PREPARED, order.getStatus());
+            assertEquals(List.of(order), pancakeService.getPreparedOrders());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void takeNextOrderToDeliver_shouldReturnEmptyAfterTimeout() throws InterruptedException {
+        // Act
+        Optional<Order> order = pancakeService.takeNextOrderToDeliver(20, TimeUnit.MILLISECONDS);
+
+        // Assert
+        assertTrue(order.isEmpty());
+    }
+
+    @Test
+    void takeNextOrderAsync_shouldCompleteWhenWorkArrives() {
+        // Arrange
+        Pancake pancake = Pancake.Builder.standard().build();
+        CompletableFuture<Order> toPrepare = pancakeService.takeNextOrderToPrepareAsync();
+        CompletableFuture<Order> toDeliver = pancakeService.takeNextOrderToDeliverAsync();
+        CompletableFuture<Order> abandoned = pancakeService.takeNextOrderToPrepareAsync();
+        abandoned.cancel(false);
+
+        // Act
+        Order first = pancakeService.createAndPlaceOrder(5, 101, List.of(pancake));
+        Order second = pancakeService.createAndPlaceOrder(5, 102, List.of(pancake));
+
+        // Assert
+        assertSame(first, toPrepare.join());
+        assertSame(first, toDeliver.join());
+        assertEquals(OrderStatus.DELIVERED, first.getStatus());
+        assertEquals(OrderStatus.CREATED, second.getStatus());
+    }
+
+    @Test
+    void deliverBatch_shouldDeliverOneBuildingSortedByRoom() {
+        // Arrange
+        Pancake pancake = Pancake.Builder.standard().build();
+        Order room30 = pancakeService.createAndPlaceOrder(5, 30, List.of(pancake));
+        Order otherBuilding = pancakeService.createAndPlaceOrder(7, 10, List.of(pancake));
+        Order room10 = pancakeService.createAndPlaceOrder(5, 10, List.of(pancake));
+        Order room20 = pancakeService.createAndPlaceOrder(5, 20, List.of(pancake));
+        pancakeService.prepareOrders(10);
+
+        // Act
+        List<Order> route = pancakeService.deliverBatch(5, 10);
+
+        // Assert
+        assertEquals(List.of(room10, room20, room30), route);
+        assertEquals(List.of(otherBuilding), pancakeService.getPreparedOrders());
+        assertEquals(3, pancakeService.getDeliveredOrders().size());
+        pancakeService.deliverOrder();
+        assertEquals(OrderStatus.DELIVERED, otherBuilding.getStatus());
+        assertTrue(pancakeService.deliverNextRoute().isEmpty());
+    }
+
+    @Test
+    void deliverNextRoute_shouldServeBuildingWaitingLongest() {
+        // Arrange
+        Pancake pancake = Pancake.Builder.standard().build();
+        Order first = pancakeService.createAndPlaceOrder(7, 12, List.of(pancake));
+        Order other = pancakeService.createAndPlaceOrder(5, 10, List.of(pancake));
+        Order second = pancakeService.createAndPlaceOrder(7, 11, List.of(pancake));
+        pancakeService.prepareOrders(10);
+
+        // Act
+        List<Order> firstRoute = pancakeService.deliverNextRoute();
+        List<Order> secondRoute = pancakeService.deliverNextRoute();
+
+        // Assert
+        assertEquals(List.of(second, first), firstRoute);
+        assertEquals(List.of(other), secondRoute);
+        assertTrue(pancakeService.getPreparedOrders().isEmpty());
+    }
+
     @Test
     void placeOrder_shouldMoveOrderFromPendingToNewOrders() {
         // Arrange
@@ -223,6 +458,306 @@ class PancakeServiceTest {
         assertTrue(pancakeService.getOrders().containsKey(order.getId()));
     }
 
+    @Test
+    void prepareOrder_shouldSkipOrdersCanceledWhileWaiting() {
+        // Arrange
+        Pancake pancake = Pancake.Builder
+                .standard()
+                .build();
+        Order canceled = pancakeService.createOrder(5, 101);
+        pancakeService.addPancakeToOrder(canceled.getId(), pancake);
+        pancakeService.placeOrder(canceled.getId());
+        Order next = pancakeService.createOrder(5, 102);
+        pancakeService.addPancakeToOrder(next.getId(), pancake);
+        pancakeService.placeOrder(next.getId());
+        pancakeService.cancelOrder(canceled.getId());
+
+        // Act
+        pancakeService.prepareOrder();
+
+        // Assert
+        assertEquals(OrderStatus.CANCELED, canceled.getStatus());
+        assertEquals(OrderStatus.PREPARED, next.getStatus());
+        assertEquals(1, pancakeService.getPreparedOrders().size());
+        assertTrue(pancakeService.getNewOrders().isEmpty());
+    }
+
+    @Test
+    void cancelOrder_shouldThrowExceptionIfAlreadyCanceled() {
+        // Arrange
+        Order order = pancakeService.createOrder(5, 101);
+        Pancake pancake = Pancake.Builder
+                .standard()
+                .build();
+        pancakeService.addPancakeToOrder(order.getId(), pancake);
+        pancakeService.placeOrder(order.getId());
+        pancakeService.cancelOrder(order.getId());
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> pancakeService.cancelOrder(order.getId()));
+        assertEquals("Order cannot be canceled in its current state: " + order.getId(), exception.getMessage());
+    }
+
+    @Test
+    void expirePendingOrders_shouldCancelOnlyOrdersPendingPastTheirTtl() {
+        // Arrange
+        PancakeService service = new PancakeService.Builder()
+                .expirePendingOrders(Duration.ofMinutes(1))
+                .build();
+        Pancake pancake = Pancake.Builder.standard().build();
+        Order abandoned = service.createOrder(5, 101);
+        service.addPancakeToOrder(abandoned.getId(), pancake);
+        Order placed = service.createOrder(5, 102);
+        service.addPancakeToOrder(placed.getId(), pancake);
+        service.placeOrder(placed.getId());
+        OrderLog.clearLog();
+
+        // Act
+        service.expirePendingOrders(System.nanoTime() + Duration.ofSeconds(30).toNanos());
+        boolean pendingAfterHalfTtl = service.getPendingOrders().containsKey(abandoned.getId());
+        service.expirePendingOrders(System.nanoTime() + Duration.ofMinutes(2).toNanos());
+
+        // Assert
+        assertTrue(pendingAfterHalfTtl);
+        assertTrue(service.getPendingOrders().isEmpty());
+        assertEquals(OrderStatus.CANCELED, abandoned.getStatus());
+        assertEquals(OrderStatus.CREATED, placed.getStatus());
+        assertEquals(new ExpiryStats(1, 0), service.expiryStats());
+        assertEquals("Expired order " + abandoned.getId() + " with 1 pancake(s) for building 5, room 101, never placed.\n",
+                OrderLog.getLog());
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> service.cancelOrder(abandoned.getId()));
+        assertEquals("Order cannot be canceled in its current state: " + abandoned.getId(), exception.getMessage());
+    }
+
+    @Test
+    void findOrders_shouldFollowOrdersThroughTheirTransitions() {
+        // Arrange
+        Pancake pancake = Pancake.Builder.standard().build();
+        Order pending = pancakeService.createOrder(5, 101);
+        Order delivered = pancakeService.createAndPlaceOrder(5, 101, List.of(pancake));
+        Order otherRoom = pancakeService.createAndPlaceOrder(5, 102, List.of(pancake));
+        Order canceled = pancakeService.createOrder(7, 101);
+        Order otherBuilding = pancakeService.createAndPlaceOrder(7, 101, List.of(pancake));
+
+        // Act
+        pancakeService.cancelOrder(canceled.getId());
+        pancakeService.prepareOrders(1);
+        pancakeService.deliverOrders(1);
+
+        // Assert
+        assertEquals(Set.of(pending, delivered), Set.copyOf(pancakeService.findOrdersByRoom(5, 101)));
+        assertEquals(Set.of(pending, delivered, otherRoom), Set.copyOf(pancakeService.findOrdersByBuilding(5)));
+        assertEquals(List.of(otherBuilding), pancakeService.findOrdersByBuilding(7));
+        assertEquals(List.of(pending), pancakeService.findOrdersByStatus(OrderStatus.INIT));
+        assertEquals(Set.of(otherRoom, otherBuilding), Set.copyOf(pancakeService.findOrdersByStatus(OrderStatus.CREATED)));
+        assertEquals(List.of(delivered), pancakeService.findOrdersByStatus(OrderStatus.DELIVERED));
+        assertTrue(pancakeService.findOrdersByStatus(OrderStatus.CANCELED).isEmpty());
+        assertTrue(pancakeService.findOrdersByRoom(9, 101).isEmpty());
+    }
+
+    @Test
+    void metrics_shouldCountTransitionsAndTimeOperations() {
+        // Arrange
+        MetricsRegistry registry = new MetricsRegistry();
+        PancakeService service = new PancakeService.Builder().metrics(registry).build();
+        Pancake pancake = Pancake.Builder.standard().build();
+        for (int i = 0; i < 3; i++) {
+            Order order = service.createOrder(5, 101);
+            service.addPancakeToOrder(order.getId(), pancake);
+            service.placeOrder(order.getId());
+        }
+        service.cancelOrder(service.createOrder(5, 102).getId());
+
+        // Act
+        service.prepareOrder();
+        service.deliverOrder();
+        service.prepareOrder();
+
+        // Assert
+        assertEquals(4, registry.counter("pancake_orders_created_total").sum());
+        assertEquals(3, registry.counter("pancake_orders_placed_total").sum());
+        assertEquals(2, registry.counter("pancake_orders_prepared_total").sum());
+        assertEquals(1, registry.counter("pancake_orders_delivered_total").sum());
+        assertEquals(1, registry.counter("pancake_orders_canceled_total").sum());
+        assertEquals(1, registry.gaugeValue("pancake_new_orders"));
+        assertEquals(1, registry.gaugeValue("pancake_prepared_orders"));
+        assertEquals(0, registry.gaugeValue("pancake_pending_orders"));
+        assertEquals(3, registry.histogram("pancake_place_order_nanos").snapshot().count());
+        assertTrue(registry.toText().contains("# TYPE pancake_prepare_order_nanos summary\n"));
+    }
+
+    @Test
+    void metrics_shouldTimeBatchCallsOncePerOrder() {
+        // Arrange
+        MetricsRegistry registry = new MetricsRegistry();
+        PancakeService service = new PancakeService.Builder().metrics(registry).build();
+        Pancake pancake = Pancake.Builder.standard().build();
+        List<UUID> orderIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Order order = service.createOrder(5, 101 + i);
+            service.addPancakesToOrder(order.getId(), List.of(pancake, pancake));
+            orderIds.add(order.getId());
+        }
+        service.createAndPlaceOrder(6, 101, List.of(pancake));
+
+        // Act
+        service.placeOrders(orderIds);
+        service.prepareOrders(5);
+        service.deliverOrders(2);
+        service.deliverBatch(5, 10);
+
+        // Assert
+        assertEquals(4, registry.histogram("pancake_add_pancake_nanos").snapshot().count());
+        assertEquals(1, registry.histogram("pancake_create_and_place_order_nanos").snapshot().count());
+        assertEquals(4, registry.histogram("pancake_place_order_nanos").snapshot().count());
+        assertEquals(5, registry.histogram("pancake_prepare_order_nanos").snapshot().count());
+        assertEquals(5, registry.histogram("pancake_deliver_order_nanos").snapshot().count());
+    }
+
+    @Test
+    void metrics_shouldReadGaugesOfTheLatestServiceOnly() {
+        // Arrange
+        MetricsRegistry registry = new MetricsRegistry();
+        PancakeService discarded = new PancakeService.Builder().metrics(registry).build();
+        discarded.createOrder(5, 101);
+        discarded.createOrder(5, 102);
+
+        // Act
+        PancakeService service = new PancakeService.Builder().metrics(registry).build();
+        service.createOrder(5, 103);
+
+        // Assert
+        assertEquals(1, registry.gaugeValue("pancake_pending_orders"));
+        assertEquals(3, registry.counter("pancake_orders_created_total").sum());
+    }
+
+    @Test
+    void slowestOrders_shouldKeepStageLatenciesOfDeliveredOrders() {
+        // Arrange
+        MetricsRegistry registry = new MetricsRegistry();
+        PancakeService service = new PancakeService.Builder().metrics(registry).build();
+        Pancake pancake = Pancake.Builder.standard().build();
+        for (int i = 0; i < 3; i++) {
+            service.createAndPlaceOrder(5, 101 + i, List.of(pancake));
+        }
+
+        // Act
+        service.prepareOrders(3);
+        service.deliverOrders(2);
+        List<SlowOrder> slowest = service.slowestOrders();
+
+        // Assert
+        assertEquals(2, slowest.size());
+        assertTrue(slowest.get(0).endToEndNanos() >= slowest.get(1).endToEndNanos());
+        for (SlowOrder order : slowest) {
+            assertEquals(order.endToEndNanos(),
+                    order.createdToPlacedNanos() + order.placedToPreparedNanos() + order.preparedToDeliveredNanos());
+        }
+        assertEquals(3, registry.histogram("pancake_stage_placed_to_prepared_nanos").snapshot().count());
+        assertEquals(2, registry.histogram("pancake_order_end_to_end_nanos").snapshot().count());
+        service.clearSlowestOrders();
+        assertTrue(service.slowestOrders().isEmpty());
+    }
+
+    @Test
+    void placeOrder_shouldRejectWithRetryHintWhenKitchenIsFull() {
+        // Arrange
+        PancakeService service = new PancakeService.Builder()
+                .kitchenCapacity(2, OverloadPolicy.reject())
+                .build();
+        Pancake pancake = Pancake.Builder.standard().build();
+        service.createAndPlaceOrder(5, 101, List.of(pancake));
+        service.createAndPlaceOrder(5, 102, List.of(pancake));
+        Order order = service.createOrder(5, 103);
+        service.addPancakeToOrder(order.getId(), pancake);
+
+        // Act
+        OrderRejectedException exception = assertThrows(OrderRejectedException.class, () -> service.placeOrder(order.getId()));
+        service.prepareOrder();
+        service.placeOrder(order.getId());
+
+        // Assert
+        assertEquals(order.getId(), exception.getOrderId());
+        assertTrue(exception.getRetryAfter().toNanos() > 0);
+        assertEquals(2, service.getKitchenBacklog());
+        assertEquals(2, service.getKitchenCapacity());
+        assertEquals(OrderStatus.CREATED, order.getStatus());
+    }
+
+    @Test
+    void placeOrder_shouldNotHoldAKitchenSlotForAnOrderWithoutPancakes() {
+        // Arrange
+        PancakeService service = new PancakeService.Builder()
+                .kitchenCapacity(2, OverloadPolicy.reject())
+                .build();
+        Pancake pancake = Pancake.Builder.standard().build();
+        Order empty = service.createOrder(5, 101);
+        Order other = service.createOrder(5, 102);
+        service.addPancakeToOrder(other.getId(), pancake);
+        service.removePancakeFromOrder(other.getId(), pancake);
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> service.placeOrder(empty.getId()));
+        assertThrows(IllegalStateException.class, () -> service.placeOrders(List.of(other.getId())));
+        Order valid = service.createAndPlaceOrder(5, 103, List.of(pancake));
+        service.addPancakeToOrder(empty.getId(), pancake);
+        service.placeOrder(empty.getId());
+
+        // Assert
+        assertEquals(OrderStatus.CREATED, valid.getStatus());
+        assertEquals(OrderStatus.CREATED, empty.getStatus());
+        assertEquals(2, service.getKitchenBacklog());
+        assertEquals(List.of(valid, empty), service.getNewOrders());
+    }
+
+    @Test
+    void placeOrder_shouldBlockUntilTheKitchenMakesRoom() throws Exception {
+        // Arrange
+        PancakeService service = new PancakeService.Builder()
+                .kitchenCapacity(1, OverloadPolicy.block(Duration.ofSeconds(5)))
+                .build();
+        Pancake pancake = Pancake.Builder.standard().build();
+        service.createAndPlaceOrder(5, 101, List.of(pancake));
+        Order order = service.createOrder(5, 102);
+        service.addPancakeToOrder(order.getId(), pancake);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // Act
+        Future<?> placing = executor.submit(() -> service.placeOrder(order.getId()));
+        Thread.sleep(50);
+        boolean blocked = !placing.isDone();
+        service.prepareOrder();
+        placing.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Assert
+        assertTrue(blocked);
+        assertEquals(OrderStatus.CREATED, order.getStatus());
+        assertEquals(1, service.getKitchenBacklog());
+    }
+
+    @Test
+    void placeOrder_shouldShedLowestPriorityOrderWhenKitchenIsFull() {
+        // Arrange
+        PancakeService service = new PancakeService.Builder()
+                .kitchenCapacity(2, OverloadPolicy.shedLowestPriority(order -> order.getPancakes().size()))
+                .build();
+        Pancake pancake = Pancake.Builder.standard().build();
+        Order older = service.createAndPlaceOrder(5, 101, List.of(pancake));
+        Order newer = service.createAndPlaceOrder(5, 102, List.of(pancake));
+
+        // Act
+        Order large = service.createAndPlaceOrder(5, 103, List.of(pancake, pancake, pancake));
+
+        // Assert
+        assertEquals(OrderStatus.CREATED, older.getStatus());
+        assertEquals(OrderStatus.CANCELED, newer.getStatus());
+        assertEquals(OrderStatus.CREATED, large.getStatus());
+        assertEquals(List.of(older, large), service.getNewOrders());
+        assertThrows(OrderRejectedException.class, () -> service.createAndPlaceOrder(5, 104, List.of(pancake)));
+        assertEquals(2, service.getKitchenBacklog());
+    }
+
     @Test
     void testConcurrentOrderProcessing() throws InterruptedException {
         PancakeService service = new PancakeService();
@@ -0,0 +1,271 @@
+package org.pancakelab.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pancakelab.archive.OrderArchive;
+import org.pancakelab.journal.OrderJournal;
+import org.pancakelab.metrics.MetricsRegistry;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.OrderStatus;
+import org.pancakelab.model.Pancake;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedPancakeServiceTest {
+    private ShardedPancakeService pancakeService;
+    private final Pancake pancake = Pancake.Builder.standard().build();
+
+    @BeforeEach
+    void setUp() {
+        pancakeService = new ShardedPancakeService(4);
+    }
+
+    @Test
+    void lifecycle_shouldRouteByIdAndMergeReadsAcrossShards() {
+        // Arrange
+        List<Order> orders = new ArrayList<>();
+        for (int building = 1; building <= 8; building++) {
+            Order order = pancakeService.createOrder(building, 101);
+            pancakeService.addPancakeToOrder(order.getId(), pancake);
+            orders.add(order);
+        }
+
+        // Act
+        orders.forEach(order -> pancakeService.placeOrder(order.getId()));
+        int prepared = pancakeService.prepareOrders(8);
+        pancakeService.deliverOrders(3);
+
+        // Assert
+        assertEquals(8, prepared);
+        assertTrue(pancakeService.getPendingOrders().isEmpty());
+        assertEquals(8, pancakeService.getOrders().size());
+        assertEquals(5, pancakeService.getPreparedOrders().size());
+        assertEquals(3, pancakeService.getDeliveredOrders().size());
+        orders.forEach(order -> assertSame(order, pancakeService.findOrder(order.getId()).orElseThrow()));
+    }
+
+    @Test
+    void prepareOrders_shouldRejectMaxOrdersBelowOne() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> pancakeService.prepareOrders(-1));
+        assertThrows(IllegalArgumentException.class, () -> pancakeService.deliverOrders(0));
+    }
+
+    @Test
+    void placeOrders_shouldPlaceOrdersFromEveryShard() {
+        // Arrange
+        List<UUID> orderIds = new ArrayList<>();
+        for (int building = 1; building <= 6; building++) {
+            Order order = pancakeService.createOrder(building, 101);
+            pancakeService.addPancakesToOrder(order.getId(), List.of(pancake, pancake));
+            orderIds.add(order.getId());
+        }
+
+        // Act
+        pancakeService.placeOrders(orderIds);
+
+        // Assert
+        assertEquals(6, pancakeService.getNewOrders().size());
+        pancakeService.getNewOrders().forEach(order -> assertEquals(OrderStatus.CREATED, order.getStatus()));
+        assertArrayEquals(new long[]{2 * pancake.getPriceCents()}, pancakeService.quoteOrders(orderIds.subList(0, 1)));
+    }
+
+    @Test
+    void placeOrder_shouldRejectUnknownOrderId() {
+        // Act & Assert
+        UUID unknown = UUID.randomUUID();
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> pancakeService.placeOrder(unknown));
+        assertEquals("Order not found or already placed: " + unknown, exception.getMessage());
+        assertTrue(pancakeService.findOrder(unknown).isEmpty());
+    }
+
+    @Test
+    void metrics_shouldReportGaugesAcrossEveryShard() {
+        // Arrange
+        MetricsRegistry registry = new MetricsRegistry();
+        ShardedPancakeService service = new ShardedPancakeService.Builder().shards(4).metrics(registry).build();
+
+        // Act
+        for (int building = 1; building <= 8; building++) {
+            service.createOrder(building, 101);
+        }
+        service.createAndPlaceOrder(3, 101, List.of(pancake));
+
+        // Assert
+        assertEquals(8, registry.gaugeValue("pancake_pending_orders"));
+        assertEquals(1, registry.gaugeValue("pancake_new_orders"));
+        assertEquals(9, registry.counter("pancake_orders_created_total").sum());
+    }
+
+    @Test
+    void createOrder_shouldGiveUniqueIdsThatRouteToTheirShardUnderConcurrency() throws InterruptedException {
+        // Arrange
+        int threads = 8;
+        int perThread = 500;
+        List<List<Order>> created = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            List<Order> mine = new ArrayList<>();
+            created.add(mine);
+            int building = t + 1;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perThread; i++) {
+                    mine.add(pancakeService.createOrder(building, i + 1));
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Assert
+        Set<UUID> ids = new HashSet<>();
+        for (List<Order> mine : created) {
+            for (Order order : mine) {
+                assertTrue(ids.add(order.getId()));
+                assertSame(order, pancakeService.findOrder(order.getId()).orElseThrow());
+            }
+        }
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    void kitchenEngine_shouldWakeForOrdersPlacedInAnyShard() throws InterruptedException {
+        // Arrange: workers are idle before any order is placed
+        KitchenEngine engine = new KitchenEngine.Builder(pancakeService)
+                .preparationWorkers(2)
+                .deliveryWorkers(2)
+                .batchSize(4)
+                .build();
+        engine.start();
+
+        // Act
+        for (int building = 1; building <= 40; building++) {
+            pancakeService.createAndPlaceOrder(building, 101, List.of(pancake));
+        }
+        boolean drained = engine.drainAndShutdown(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(drained);
+        assertEquals(40, pancakeService.getDeliveredOrders().size());
+        assertEquals(0, pancakeService.getKitchenBacklog());
+    }
+
+    @Test
+    void takeNextOrderToPrepareAsync_shouldBeServedByTheShardThatGetsTheOrder() throws Exception {
+        // Arrange
+        CompletableFuture<Order> waiter = pancakeService.takeNextOrderToPrepareAsync();
+        assertFalse(waiter.isDone());
+
+        // Act
+        Order order = pancakeService.createAndPlaceOrder(3, 101, List.of(pancake));
+
+        // Assert
+        assertSame(order, waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(OrderStatus.PREPARED, order.getStatus());
+        assertEquals(List.of(order), pancakeService.getPreparedOrders());
+        assertEquals(Optional.of(order), pancakeService.takeNextOrderToDeliver(1, TimeUnit.SECONDS));
+        assertEquals(Optional.empty(), pancakeService.takeNextOrderToPrepare(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void recoverFrom_shouldRestoreEveryShardFromOneSnapshotAndJournal(@TempDir Path directory) throws IOException {
+        // Arrange
+        Path journalDirectory = directory.resolve("journal");
+        Path snapshotDirectory = directory.resolve("snapshots");
+        ShardedPancakeService service;
+        List<Order> pending = new ArrayList<>();
+        try (OrderJournal journal = new OrderJournal.Builder(journalDirectory).open()) {
+            service = new ShardedPancakeService.Builder().shards(4).addListener(journal).build();
+            try (SnapshotManager snapshots = new SnapshotManager(service, journal, snapshotDirectory, 1)) {
+                for (int building = 1; building <= 8; building++) {
+                    service.createAndPlaceOrder(building, 101, List.of(pancake));
+                    Order order = service.createOrder(building, 102);
+                    service.addPancakeToOrder(order.getId(), pancake);
+                    pending.add(order);
+                }
+                service.prepareOrders(3);
+                snapshots.takeSnapshot();
+                service.deliverOrders(2);
+                service.placeOrder(pending.remove(0).getId());
+                service.cancelOrder(pending.remove(0).getId());
+            }
+        }
+
+        // Act
+        ShardedPancakeService recovered = new ShardedPancakeService.Builder()
+                .shards(4)
+                .recoverFrom(snapshotDirectory, journalDirectory)
+                .build();
+
+        // Assert
+        assertEquals(service.getPendingOrders().keySet(), recovered.getPendingOrders().keySet());
+        assertEquals(service.getOrders().keySet(), recovered.getOrders().keySet());
+        service.getOrders().forEach((id, order) ->
+                assertEquals(order.getStatus(), recovered.findOrder(id).orElseThrow().getStatus()));
+        assertEquals(ids(service.getNewOrders()), ids(recovered.getNewOrders()));
+        assertEquals(ids(service.getPreparedOrders()), ids(recovered.getPreparedOrders()));
+        assertEquals(ids(service.getDeliveredOrders()), ids(recovered.getDeliveredOrders()));
+        assertEquals(service.getKitchenBacklog(), recovered.getKitchenBacklog());
+        for (int building = 1; building <= 8; building++) {
+            assertEquals(Set.copyOf(ids(service.findOrdersByBuilding(building))),
+                    Set.copyOf(ids(recovered.findOrdersByBuilding(building))));
+        }
+        pending.forEach(order -> recovered.placeOrder(order.getId())); // Each id still routes to its shard
+        assertTrue(recovered.getPendingOrders().isEmpty());
+    }
+
+    @Test
+    void retention_shouldArchiveFinishedOrdersOfEveryShard(@TempDir Path directory) throws IOException {
+        // Arrange
+        try (OrderArchive archive = OrderArchive.open(directory)) {
+            ShardedPancakeService service = new ShardedPancakeService.Builder()
+                    .shards(4)
+                    .retention(RetentionPolicy.keepLatest(4), archive, Runnable::run)
+                    .build();
+            List<Order> orders = new ArrayList<>();
+            for (int building = 1; building <= 8; building++) {
+                orders.add(service.createAndPlaceOrder(building, 101, List.of(pancake, pancake)));
+            }
+
+            // Act
+            service.prepareOrders(8);
+            service.deliverOrders(8);
+
+            // Assert: each of the 4 shards keeps its share of one live order
+            assertEquals(4, archive.size());
+            assertEquals(4, service.getDeliveredOrders().size());
+            for (Order order : orders) {
+                assertEquals(OrderStatus.DELIVERED, service.findOrder(order.getId()).orElseThrow().getStatus());
+            }
+        }
+    }
+
+    private static List<UUID> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).toList();
+    }
+}
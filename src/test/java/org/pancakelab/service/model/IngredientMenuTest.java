@@ -0,0 +1,51 @@
+package org.pancakelab.service.model;
+
+import org.junit.jupiter.api.Test;
+import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.IngredientMenu;
+import org.pancakelab.model.Pancake;
+import org.pancakelab.model.PriceTable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngredientMenuTest {
+    @Test
+    void getPriceCents_shouldReturnFixedPointPrice() {
+        // Act & Assert
+        assertEquals(150, IngredientMenu.getPriceCents(Ingredient.DARK_CHOCOLATE));
+        assertEquals(25, IngredientMenu.getPriceCents(Ingredient.WHIPPED_CREAM));
+        assertEquals(1.5, IngredientMenu.getPrice(Ingredient.DARK_CHOCOLATE));
+    }
+
+    @Test
+    void addIngredient_shouldPublishNewVersionWithoutChangingHeldTables() {
+        // Arrange
+        PriceTable before = IngredientMenu.getPriceTable();
+        Pancake pancake = Pancake.Builder.vegan().build();
+
+        // Act
+        IngredientMenu.addIngredient(Ingredient.SOY_MILK, 1.105);
+        try {
+            // Assert
+            PriceTable after = IngredientMenu.getPriceTable();
+            assertEquals(before.version() + 1, after.version());
+            assertEquals(111, after.cents(Ingredient.SOY_MILK));
+            assertEquals(100, before.cents(Ingredient.SOY_MILK));
+            assertEquals(150, pancake.getPriceCents(before));
+            assertEquals(161, pancake.getPriceCents());
+        } finally {
+            IngredientMenu.addIngredient(Ingredient.SOY_MILK, 1.0);
+        }
+    }
+
+    @Test
+    void cents_shouldRejectIngredientNotOnMenu() {
+        // Arrange
+        PriceTable table = PriceTable.empty().withPrice(Ingredient.FLOUR, 50);
+
+        // Act & Assert
+        assertFalse(table.contains(Ingredient.EGG));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> table.cents(Ingredient.EGG));
+        assertEquals("Ingredient is not on the menu: EGG", exception.getMessage());
+    }
+}
@@ -3,10 +3,15 @@ package org.pancakelab.service.model;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.pancakelab.model.Ingredient;
+import org.pancakelab.model.IngredientMenu;
 import org.pancakelab.model.Order;
 import org.pancakelab.model.OrderStatus;
 import org.pancakelab.model.Pancake;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class OrderTest {
@@ -189,6 +194,128 @@ class OrderTest {
         assertEquals("Order already created.", exception.getMessage());
     }
 
+    @Test
+    void addAndRemovePancake_shouldMaintainRunningTotal() {
+        // Arrange
+        Pancake plain = new Pancake.Builder()
+                .addBaseIngredient(Ingredient.FLOUR)
+                .addBaseIngredient(Ingredient.MILK)
+                .build();
+        Pancake topped = new Pancake.Builder()
+                .addBaseIngredient(Ingredient.FLOUR)
+                .addBaseIngredient(Ingredient.MILK)
+                .addCustomIngredient(Ingredient.DARK_CHOCOLATE)
+                .build();
+
+        // Act
+        order.addPancake(plain);
+        order.addPancake(topped);
+        order.addPancake(plain);
+        boolean removed = order.removePancake(plain);
+
+        // Assert
+        assertTrue(removed);
+        assertEquals(2, order.getPancakes().size());
+        assertEquals(plain.getPriceCents() + topped.getPriceCents(), order.getTotalCents());
+        assertFalse(order.removePancake(Pancake.Builder.vegan().build()));
+    }
+
+    @Test
+    void removePancake_shouldSubtractPriceRecordedWhenAdded() {
+        // Arrange
+        Pancake pancake = new Pancake.Builder()
+                .addBaseIngredient(Ingredient.FLOUR)
+                .addCustomIngredient(Ingredient.WHIPPED_CREAM)
+                .build();
+        order.addPancake(pancake);
+        order.addPancake(pancake);
+        long pricedBefore = pancake.getPriceCents();
+
+        // Act
+        IngredientMenu.addIngredient(Ingredient.WHIPPED_CREAM, 0.75);
+        try {
+            order.removePancake(pancake);
+
+            // Assert
+            assertEquals(pricedBefore, order.getTotalCents());
+        } finally {
+            IngredientMenu.addIngredient(Ingredient.WHIPPED_CREAM, 0.25);
+        }
+    }
+
+    @Test
+    void addPancake_shouldKeepEveryPancakeWhenThreadsRace() throws InterruptedException {
+        // Arrange
+        Pancake pancake = Pancake.Builder.standard().build();
+        int threads = 8;
+        int perThread = 1_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < perThread; j++) {
+                    order.addPancake(pancake);
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+
+        // Act
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Assert
+        Order.Snapshot snapshot = order.snapshot();
+        assertEquals(threads * perThread, snapshot.pancakes().size());
+        assertEquals(threads * perThread * pancake.getPriceCents(), snapshot.totalCents());
+    }
+
+    @Test
+    void tryPrepare_shouldLoseToCancelOnceCanceled() {
+        // Arrange
+        order.addPancake(Pancake.Builder.standard().build());
+        order.placeOrder();
+        Order.Snapshot placed = order.snapshot();
+
+        // Act
+        boolean canceled = order.tryCancelPlaced();
+        boolean prepared = order.tryPrepare();
+
+        // Assert
+        assertTrue(canceled);
+        assertFalse(prepared);
+        assertEquals(OrderStatus.CANCELED, order.getStatus());
+        assertEquals(OrderStatus.CREATED, placed.status());
+        assertThrows(UnsupportedOperationException.class, () -> placed.pancakes().clear());
+    }
+
+    @Test
+    void transitions_shouldStampMonotonicTimes() {
+        // Arrange
+        order.addPancake(Pancake.Builder.standard().build());
+
+        // Act
+        order.placeOrder();
+        order.prepareOrder();
+        order.deliverOrder();
+
+        // Assert
+        Order.Snapshot snapshot = order.snapshot();
+        assertTrue(snapshot.enteredAt(OrderStatus.INIT) <= snapshot.enteredAt(OrderStatus.CREATED));
+        assertTrue(snapshot.enteredAt(OrderStatus.CREATED) <= snapshot.enteredAt(OrderStatus.PREPARED));
+        assertTrue(snapshot.enteredAt(OrderStatus.PREPARED) <= snapshot.enteredAt(OrderStatus.DELIVERED));
+        assertEquals(Order.NOT_REACHED, snapshot.enteredAt(OrderStatus.CANCELED));
+        assertEquals(Order.NOT_REACHED, Order.restore(order.getId(), 5, 101, OrderStatus.DELIVERED, order.getPancakes())
+                .enteredAt(OrderStatus.DELIVERED));
+    }
+
     @Test
     void toString_shouldReturnCorrectStringRepresentation() {
         // Arrange
@@ -107,4 +107,81 @@ public class PancakeTest {
 
         assertEquals("Only base ingredients can be added here: DARK_CHOCOLATE", exception.getMessage());
     }
+
+    @Test
+    void build_shouldShareOneInstancePerRecipe() {
+        // Arrange & Act
+        Pancake first = Pancake.Builder.standard().addCustomIngredient(Ingredient.HAZELNUT).build();
+        Pancake second = new Pancake.Builder()
+                .addBaseIngredient(Ingredient.MILK)
+                .addCustomIngredient(Ingredient.HAZELNUT)
+                .addBaseIngredient(Ingredient.EGG)
+                .addBaseIngredient(Ingredient.FLOUR)
+                .build();
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(first, new Pancake(first.baseIngredients(), first.customIngredients()));
+        assertSame(first, Pancake.of(first.recipe()));
+    }
+
+    @Test
+    void ingredients_shouldBeListedInDeclarationOrder() {
+        // Arrange & Act
+        Pancake pancake = new Pancake.Builder()
+                .addBaseIngredient(Ingredient.EGG)
+                .addBaseIngredient(Ingredient.FLOUR)
+                .addCustomIngredient(Ingredient.HAZELNUT)
+                .addCustomIngredient(Ingredient.DARK_CHOCOLATE)
+                .build();
+
+        // Assert
+        assertEquals(List.of(Ingredient.FLOUR, Ingredient.EGG), pancake.baseIngredients());
+        assertEquals(List.of(Ingredient.DARK_CHOCOLATE, Ingredient.HAZELNUT), pancake.customIngredients());
+    }
+
+    @Test
+    void addPortion_shouldNotCheckTheMenu() {
+        // Arrange: a recipe as a decoder reads it, with a custom ingredient in the base half
+        long recipe = Pancake.addPortion(0, Ingredient.HAZELNUT, false);
+
+        // Act
+        Pancake pancake = Pancake.of(Pancake.addPortion(recipe, Ingredient.MILK, true));
+
+        // Assert
+        assertEquals(List.of(Ingredient.HAZELNUT), pancake.baseIngredients());
+        assertEquals(List.of(Ingredient.MILK), pancake.customIngredients());
+    }
+
+    @Test
+    void recipe_shouldCountRepeatedPortions() {
+        // Arrange & Act
+        Pancake pancake = Pancake.Builder.vegan()
+                .addCustomIngredient(Ingredient.DARK_CHOCOLATE)
+                .addCustomIngredient(Ingredient.DARK_CHOCOLATE)
+                .addCustomIngredient(Ingredient.MILK)
+                .build();
+
+        // Assert
+        assertEquals(2, pancake.customPortions(Ingredient.DARK_CHOCOLATE));
+        assertEquals(1, pancake.customPortions(Ingredient.MILK));
+        assertEquals(0, pancake.basePortions(Ingredient.MILK));
+        assertEquals(1, pancake.basePortions(Ingredient.SOY_MILK));
+        assertEquals(List.of(Ingredient.DARK_CHOCOLATE, Ingredient.DARK_CHOCOLATE, Ingredient.MILK), pancake.customIngredients());
+        assertEquals(550, pancake.getPriceCents()); // 1.5 (base) + 3.0 (dark chocolate) + 1.0 (milk)
+    }
+
+    @Test
+    void addCustomIngredient_shouldRejectMoreThanMaxPortions() {
+        // Arrange
+        Pancake.Builder builder = Pancake.Builder.standard();
+        for (int i = 0; i < Pancake.MAX_PORTIONS; i++) {
+            builder.addCustomIngredient(Ingredient.WHIPPED_CREAM);
+        }
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> builder.addCustomIngredient(Ingredient.WHIPPED_CREAM));
+        assertEquals("A pancake can hold at most 15 portions of WHIPPED_CREAM", exception.getMessage());
+    }
 }
@@ -0,0 +1,199 @@
+package org.pancakelab.service.model;
+
+import org.junit.jupiter.api.Test;
+import org.pancakelab.model.Order;
+import org.pancakelab.model.TimeOrderedIds;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedIdsTest {
+
+    @Test
+    void nextId_shouldIncreaseAndEncodeNodeAndTime() {
+        // Arrange
+        TimeOrderedIds ids = new TimeOrderedIds(7);
+        long before = System.currentTimeMillis();
+
+        // Act
+        long[] generated = new long[10_000]; // More than one millisecond's sequence
+        for (int i = 0; i < generated.length; i++) {
+            generated[i] = ids.nextId();
+        }
+
+        // Assert
+        for (int i = 1; i < generated.length; i++) {
+            assertTrue(generated[i] > generated[i - 1]);
+        }
+        assertEquals(7, TimeOrderedIds.node(generated[0]));
+        assertEquals(0, TimeOrderedIds.sequence(generated[0]));
+        assertTrue(TimeOrderedIds.timestampMillis(generated[0]) >= before);
+        assertTrue(TimeOrderedIds.timestampMillis(generated[0]) <= System.currentTimeMillis());
+        assertEquals(generated[0], TimeOrderedIds.fromUuid(TimeOrderedIds.toUuid(generated[0])));
+    }
+
+    @Test
+    void nextId_shouldBeUniqueAcrossThreads() throws InterruptedException {
+        // Arrange
+        TimeOrderedIds ids = new TimeOrderedIds(0);
+        int threads = 8;
+        int perThread = 20_000;
+        long[][] generated = new long[threads][perThread];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            long[] mine = generated[t];
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perThread; i++) {
+                    mine[i] = ids.nextId();
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Assert
+        Set<Long> unique = new HashSet<>();
+        for (long[] mine : generated) {
+            for (int i = 0; i < perThread; i++) {
+                assertTrue(unique.add(mine[i]));
+                if (i > 0) {
+                    assertTrue(mine[i] > mine[i - 1]); // Each thread sees increasing ids
+                }
+            }
+        }
+        assertEquals(threads * perThread, unique.size());
+    }
+
+    @Test
+    void nextUuid_shouldBeUniqueAcrossThreadsAndIncreasingPerThread() throws InterruptedException {
+        // Arrange
+        TimeOrderedIds ids = new TimeOrderedIds(0);
+        int threads = 8;
+        int perThread = 20_000;
+        UUID[][] generated = new UUID[threads][perThread];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            UUID[] mine = generated[t];
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perThread; i++) {
+                    mine[i] = ids.nextUuid(3);
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Assert
+        Set<UUID> unique = new HashSet<>();
+        for (UUID[] mine : generated) {
+            for (int i = 0; i < perThread; i++) {
+                assertTrue(unique.add(mine[i]));
+                assertEquals(3, mine[i].getLeastSignificantBits() & TimeOrderedIds.MAX_TAG);
+                if (i > 0) {
+                    assertTrue(mine[i].compareTo(mine[i - 1]) > 0);
+                }
+            }
+        }
+        assertEquals(threads * perThread, unique.size());
+    }
+
+    @Test
+    void fromUuid_shouldGiveDistinctIdsAcrossLanes() throws InterruptedException {
+        // Arrange: enough threads that several lanes are in use
+        TimeOrderedIds ids = new TimeOrderedIds(5);
+        int threads = 32;
+        int perThread = 5_000;
+        long[][] generated = new long[threads][perThread];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            long[] mine = generated[t];
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perThread; i++) {
+                    mine[i] = TimeOrderedIds.fromUuid(ids.nextUuid(1));
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Assert
+        Set<Long> unique = new HashSet<>();
+        Set<Integer> lanes = new HashSet<>();
+        for (long[] mine : generated) {
+            for (long id : mine) {
+                assertTrue(unique.add(id));
+                assertEquals(5, TimeOrderedIds.node(id));
+                lanes.add(TimeOrderedIds.lane(id));
+            }
+        }
+        assertEquals(threads * perThread, unique.size());
+        assertTrue(lanes.size() > 1);
+    }
+
+    @Test
+    void nextUuid_shouldRejectTagOutOfRange() {
+        // Arrange
+        TimeOrderedIds ids = new TimeOrderedIds(0);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> ids.nextUuid(-1));
+        assertThrows(IllegalArgumentException.class, () -> ids.nextUuid(TimeOrderedIds.MAX_TAG + 1));
+        assertEquals(TimeOrderedIds.MAX_TAG, ids.nextUuid(TimeOrderedIds.MAX_TAG).getLeastSignificantBits() & 0xFF);
+    }
+
+    @Test
+    void newOrder_shouldUseTimeOrderedIds() {
+        // Act
+        Order first = new Order(5, 101);
+        Order second = new Order(5, 101);
+
+        // Assert
+        assertNotEquals(new UUID(0, 0), first.getId());
+        assertTrue(first.getId().compareTo(second.getId()) < 0);
+    }
+
+    @Test
+    void constructor_shouldRejectNodeOutOfRange() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedIds(-1));
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedIds(TimeOrderedIds.MAX_NODE + 1));
+        assertEquals(TimeOrderedIds.MAX_NODE, TimeOrderedIds.node(new TimeOrderedIds(TimeOrderedIds.MAX_NODE).nextId()));
+    }
+}